@@ -4,6 +4,7 @@ import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 import android.util.Log;
+import com.kidsim.tvkiosk.service.RestartJournal;
 
 public class BootReceiver extends BroadcastReceiver {
     private static final String TAG = "BootReceiver";
@@ -18,6 +19,7 @@ public class BootReceiver extends BroadcastReceiver {
             Intent.ACTION_PACKAGE_REPLACED.equals(action)) {
             
             Log.d(TAG, "Boot completed or package updated, starting MainActivity");
+            RestartJournal.getInstance(context).append(RestartJournal.Event.RESTART, "Broadcast " + action);
             
             // Start the main activity
             Intent startIntent = new Intent(context, MainActivity.class);
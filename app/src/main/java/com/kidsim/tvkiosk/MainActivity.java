@@ -5,16 +5,17 @@ import android.app.AlertDialog;
 import android.content.Context;
 import android.content.Intent;
 import android.content.pm.ActivityInfo;
-import android.net.ConnectivityManager;
-import android.net.NetworkInfo;
+import android.graphics.Color;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
 import android.util.Log;
+import android.webkit.RenderProcessGoneDetail;
 import android.webkit.WebSettings;
 import android.webkit.WebView;
 import android.webkit.WebViewClient;
 import android.view.View;
+import android.view.ViewGroup;
 import android.view.WindowManager;
 import android.widget.Button;
 import android.widget.LinearLayout;
@@ -22,25 +23,40 @@ import android.widget.TextView;
 import android.widget.Toast;
 import android.widget.ArrayAdapter;
 import android.widget.Spinner;
+import com.kidsim.tvkiosk.config.BackoffPolicy;
+import com.kidsim.tvkiosk.config.ConfigDiff;
+import com.kidsim.tvkiosk.config.ConfigExecutor;
+import com.kidsim.tvkiosk.config.ConfigSnapshot;
 import com.kidsim.tvkiosk.config.ConfigurationManager;
+import com.kidsim.tvkiosk.config.CsvReader;
 import com.kidsim.tvkiosk.config.DeviceConfig;
 import com.kidsim.tvkiosk.config.DeviceIdManager;
 import com.kidsim.tvkiosk.config.GoogleSheetsConfigLoader;
 import com.kidsim.tvkiosk.config.PageConfig;
+import com.kidsim.tvkiosk.config.PageWarmer;
+import com.kidsim.tvkiosk.service.ConnectivityMonitor;
+import com.kidsim.tvkiosk.service.Heartbeat;
+import com.kidsim.tvkiosk.service.MainThreadWatchdog;
+import com.kidsim.tvkiosk.service.MemoryMonitor;
+import com.kidsim.tvkiosk.service.MemoryWatchdog;
+import com.kidsim.tvkiosk.service.RestartJournal;
 import com.kidsim.tvkiosk.service.WatchdogService;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.io.BufferedReader;
+import java.util.HashMap;
+import java.util.Map;
+import java.nio.charset.StandardCharsets;
 import java.io.InputStreamReader;
+import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.URL;
 
-public class MainActivity extends Activity implements ConfigurationManager.ConfigUpdateListener {
+public class MainActivity extends Activity implements ConfigurationManager.ConfigUpdateListener,
+        MainThreadWatchdog.RecoveryListener, MemoryMonitor.PressureListener, ConnectivityMonitor.Listener {
     
     private static final String TAG = "MainActivity";
     private static final int MAX_PAGES = 3;
+    private static final String BLANK_URL = "about:blank";
     
     // UI components
     private WebView[] webViews;
@@ -61,24 +77,21 @@ public class MainActivity extends Activity implements ConfigurationManager.Confi
     
     // Handlers for timing
     private Handler pageHandler;
-    private Handler configHandler;
     private Handler retryHandler;
     private Handler refreshHandler;
     
-    // Background tasks
-    private ExecutorService executor;
-    
     // Runnables
     private Runnable pageRotationRunnable;
-    private Runnable configUpdateRunnable;
     private Runnable retryRunnable;
-    private Runnable refreshRunnable;
     
     // State tracking
     private boolean isErrorState = false;
     private long lastConfigUpdate = 0;
     private static final long CONFIG_UPDATE_INTERVAL = 3600000; // 1 hour
     private static final long RETRY_INTERVAL = 300000; // 5 minutes
+    private static final long RETRY_MAX_INTERVAL = 60 * 60 * 1000; // 1 hour
+    private final BackoffPolicy retryBackoff = new BackoffPolicy(RETRY_INTERVAL, RETRY_MAX_INTERVAL);
+    private int consecutiveRetries = 0;
     
     // WebView pool management
     private boolean[] pageLoadStates;
@@ -87,11 +100,57 @@ public class MainActivity extends Activity implements ConfigurationManager.Confi
     private boolean initialLoadComplete = false;
     private boolean isRefreshing = false;
     private int refreshPageIndex = 0;
+    private int refreshGeneration = 0;
     private long lastRefreshTime = 0;
     private static final long REFRESH_INTERVAL = 10 * 60 * 1000; // 10 minutes
     
-    // Connectivity
-    private boolean isNetworkAvailable = true;
+    // Page hosts are resolved this long before a refresh starts loading them
+    private static final long WARM_LEAD = 1000;
+    private PageWarmer pageWarmer;
+    private final Map<WebView, PageLoad> pageLoads = new HashMap<>();
+    
+    private static class PageLoad {
+        final String pageUrl;
+        final boolean warm;
+        final boolean redirectSkipped;
+        final long startedAt = System.currentTimeMillis();
+        
+        PageLoad(String pageUrl, boolean warm, boolean redirectSkipped) {
+            this.pageUrl = pageUrl;
+            this.warm = warm;
+            this.redirectSkipped = redirectSkipped;
+        }
+    }
+    
+    // Config staged for the next rotation boundary, preloading in the backup WebViews
+    // unless memory is shed, in which case changed pages load in place at the boundary
+    private DeviceConfig stagedConfig;
+    private ConfigDiff stagedDiff;
+    private boolean stagedPreloaded;
+    private long stagedTime = 0;
+    private static final long STAGE_TIMEOUT = 2 * 60 * 1000; // 2 minutes
+    
+    // Connectivity, pushed by the system instead of polled
+    private ConnectivityMonitor connectivityMonitor;
+    
+    // Responsiveness and memory, supervised from outside by WatchdogService through the heartbeat
+    private Heartbeat heartbeat;
+    private MainThreadWatchdog mainThreadWatchdog;
+    private MemoryWatchdog memoryWatchdog;
+    
+    // Memory shedding: 1 = backup WebViews released, 2 = only the visible and next page kept
+    private static final int SHED_BACKUPS = 1;
+    private static final int SHED_HIDDEN_PAGES = 2;
+    private int shedLevel = 0;
+    private int shedFloor = 0;
+    private MemoryMonitor.Maintenance pendingMaintenance;
+    
+    // Crash loop handling: the journal decides how far to degrade, see RestartJournal
+    private static final long CRASH_LOOP_CHECK_INTERVAL = 15 * 60 * 1000; // 15 minutes
+    private RestartJournal restartJournal;
+    private RestartJournal.Degradation degradation = RestartJournal.Degradation.NONE;
+    private boolean recreating = false;
+    private final Runnable crashLoopCheckRunnable = this::checkCrashLoop;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -99,19 +158,26 @@ public class MainActivity extends Activity implements ConfigurationManager.Confi
         
         Log.i(TAG, "MainActivity starting");
         
+        // Journal this start and find out whether the kiosk keeps failing
+        RestartJournal.installCrashHandler(this);
+        restartJournal = RestartJournal.getInstance(this);
+        restartJournal.append(RestartJournal.Event.START,
+            savedInstanceState != null ? "MainActivity recreated" : "MainActivity created");
+        degradation = restartJournal.evaluateCrashLoop(System.currentTimeMillis());
+        
         // Initialize handlers
         pageHandler = new Handler(Looper.getMainLooper());
-        configHandler = new Handler(Looper.getMainLooper());
         retryHandler = new Handler(Looper.getMainLooper());
         refreshHandler = new Handler(Looper.getMainLooper());
         
-        // Initialize background executor
-        executor = Executors.newSingleThreadExecutor();
-        
         // Initialize WebView pool arrays
         pageLoadStates = new boolean[3];
         backupPageLoadStates = new boolean[3];
         
+        // Track connectivity before the WebViews pick their cache mode
+        connectivityMonitor = new ConnectivityMonitor(this, this);
+        connectivityMonitor.start();
+        
         // Setup kiosk mode
         setupKioskMode();
         
@@ -119,10 +185,15 @@ public class MainActivity extends Activity implements ConfigurationManager.Confi
         
         // Initialize UI components
         initializeViews();
+        applyDegradation();
         
         // Initialize configuration manager
-        configManager = new ConfigurationManager(this);
-        configManager.setConfigUpdateListener(this);
+        configManager = ConfigurationManager.getInstance(this);
+        configManager.addConfigUpdateListener(getMainExecutor(), this);
+        pageWarmer = new PageWarmer(this, configManager.getExecutor());
+        
+        // Setup refresh monitoring, phased by the configuration manager's fleet stagger
+        setupRefreshMonitoring();
         
         // Initialize device ID manager
         deviceIdManager = new DeviceIdManager(this);
@@ -134,8 +205,22 @@ public class MainActivity extends Activity implements ConfigurationManager.Confi
         // Setup periodic configuration updates
         setupConfigurationUpdates();
         
-        // Start watchdog service for app stability
+        // Start the out-of-process watchdog and give it a heartbeat to supervise
+        try {
+            heartbeat = Heartbeat.forKioskProcess(this);
+            heartbeat.setState(Heartbeat.STATE_RUNNING);
+        } catch (IOException e) {
+            Log.e(TAG, "Heartbeat unavailable, watchdog can't supervise this process", e);
+        }
         startWatchdogService();
+        
+        // Detect and recover from a frozen main thread
+        mainThreadWatchdog = new MainThreadWatchdog(this, this, heartbeat);
+        mainThreadWatchdog.start();
+        
+        // Shed memory under pressure and schedule maintenance before it runs out
+        memoryWatchdog = new MemoryWatchdog(this, this);
+        memoryWatchdog.start();
     }
     
     private void setupKioskMode() {
@@ -185,9 +270,6 @@ public class MainActivity extends Activity implements ConfigurationManager.Confi
             webViews[i].setVisibility(View.GONE);
             backupWebViews[i].setVisibility(View.GONE);
         }
-        
-        // Setup refresh monitoring
-        setupRefreshMonitoring();
     }
     
     private void setupWebViewInstance(WebView webView, String tag) {
@@ -224,7 +306,12 @@ public class MainActivity extends Activity implements ConfigurationManager.Confi
             @Override
             public void onPageFinished(WebView view, String url) {
                 super.onPageFinished(view, url);
+                if (BLANK_URL.equals(url)) {
+                    // A released or cleared slot, not a loaded page
+                    return;
+                }
                 Log.d(TAG, "WebView " + tag + " loaded: " + url);
+                finishPageLoad(view, true);
                 
                 // Mark this page as loaded in the pool
                 markPageLoaded(view);
@@ -237,6 +324,7 @@ public class MainActivity extends Activity implements ConfigurationManager.Confi
             public void onReceivedError(WebView view, int errorCode, String description, String failingUrl) {
                 super.onReceivedError(view, errorCode, description, failingUrl);
                 Log.e(TAG, "WebView " + tag + " error: " + description + " for URL: " + failingUrl);
+                finishPageLoad(view, false);
                 
                 // Mark this page as failed
                 markPageFailed(view);
@@ -246,12 +334,30 @@ public class MainActivity extends Activity implements ConfigurationManager.Confi
                     showError("Failed to load page: " + description);
                 }
             }
+            
+            @Override
+            public boolean onRenderProcessGone(WebView view, RenderProcessGoneDetail detail) {
+                String cause = detail.didCrash() ? "crashed" : "was killed by the system";
+                Log.e(TAG, "WebView " + tag + " renderer " + cause + " on " + view.getUrl());
+                restartJournal.append(RestartJournal.Event.RENDERER_GONE,
+                    "WebView " + tag + " renderer " + cause + " on " + view.getUrl());
+                
+                // Keep the app alive; the dead WebView is replaced
+                replaceDeadWebView(view);
+                return true;
+            }
         });
     }
     
     private void setupRefreshMonitoring() {
         // Start background refresh system
-        refreshHandler.postDelayed(this::checkForRefresh, REFRESH_INTERVAL);
+        scheduleRefreshCheck();
+    }
+    
+    private void scheduleRefreshCheck() {
+        // At this device's phase of the interval, so a venue's TVs don't refresh together
+        long delay = configManager.getFleetStagger().getDelayToNextSlot(System.currentTimeMillis(), REFRESH_INTERVAL);
+        refreshHandler.postDelayed(this::checkForRefresh, delay);
     }
     
     private void updateWebViewCacheMode(WebSettings webSettings) {
@@ -280,6 +386,9 @@ public class MainActivity extends Activity implements ConfigurationManager.Confi
             } else if (backupWebViews[i] == webView) {
                 backupPageLoadStates[i] = true;
                 Log.d(TAG, "Backup WebView " + i + " loaded");
+                
+                // A staged config without a rotation boundary goes live once it is ready
+                maybeCommitStagedConfig();
                 break;
             }
         }
@@ -314,6 +423,7 @@ public class MainActivity extends Activity implements ConfigurationManager.Confi
                 showPage(i);
                 hideErrorState();
                 hideLoadingState();  // Hide loading UI when first page is ready
+                consecutiveRetries = 0;
                 Log.i(TAG, "Showing first loaded page: " + i);
                 return;
             }
@@ -339,19 +449,42 @@ public class MainActivity extends Activity implements ConfigurationManager.Confi
     }
     
     private void checkForRefresh() {
-        if (isRefreshing || !isNetworkConnected()) {
-            // Skip refresh if already refreshing or no network
-            refreshHandler.postDelayed(this::checkForRefresh, REFRESH_INTERVAL);
+        if (!canRefreshInBackground()) {
+            scheduleRefreshCheck();
             return;
         }
         
+        // Slots are at least half an interval apart
         long currentTime = System.currentTimeMillis();
-        if (currentTime - lastRefreshTime >= REFRESH_INTERVAL) {
-            startBackgroundRefresh();
+        if (currentTime - lastRefreshTime >= REFRESH_INTERVAL / 2) {
+            startBackgroundRefreshIfReachable();
         }
         
         // Schedule next check
-        refreshHandler.postDelayed(this::checkForRefresh, REFRESH_INTERVAL);
+        scheduleRefreshCheck();
+    }
+    
+    private boolean canRefreshInBackground() {
+        // Not if already refreshing, backups are preloading a staged config or
+        // were released under memory pressure, or no network
+        return !isRefreshing && stagedConfig == null && shedLevel < SHED_BACKUPS && isNetworkConnected();
+    }
+    
+    /**
+     * Refresh only once the page hosts are known to answer, so a dead uplink
+     * or captive portal doesn't fail every backup load
+     */
+    private void startBackgroundRefreshIfReachable() {
+        configManager.getReachabilityProber().checkReachable(getMainExecutor(), reachable -> {
+            if (isDestroyed()) {
+                return;
+            }
+            if (!reachable) {
+                Log.i(TAG, "Hosts unreachable, skipping background refresh");
+            } else if (canRefreshInBackground()) {
+                startBackgroundRefresh();
+            }
+        });
     }
     
     private void startBackgroundRefresh() {
@@ -365,10 +498,23 @@ public class MainActivity extends Activity implements ConfigurationManager.Confi
         lastRefreshTime = System.currentTimeMillis();
         
         Log.i(TAG, "Starting background refresh of all pages");
-        refreshNextPage();
+        
+        // Resolve the page hosts first so the loads don't pay for DNS
+        List<String> pageUrls = new ArrayList<>();
+        for (int i = 0; i < Math.min(pages.size(), MAX_PAGES); i++) {
+            pageUrls.add(pages.get(i).getUrl());
+        }
+        pageWarmer.warm(pageUrls);
+        int generation = ++refreshGeneration;
+        refreshHandler.postDelayed(() -> refreshNextPage(generation), WARM_LEAD);
     }
     
-    private void refreshNextPage() {
+    private void refreshNextPage(int generation) {
+        if (generation != refreshGeneration) {
+            // Refresh was cancelled by a configuration change
+            return;
+        }
+        
         if (refreshPageIndex >= pages.size() || refreshPageIndex >= 3) {
             // Refresh complete
             isRefreshing = false;
@@ -386,15 +532,29 @@ public class MainActivity extends Activity implements ConfigurationManager.Confi
         Log.d(TAG, "Refreshing page " + refreshPageIndex + ": " + pageUrl);
         
         // Load the page in the backup WebView
-        backupWebView.loadUrl(pageUrl);
+        loadTimed(backupWebView, pageUrl, pageWarmer.resolve(pageUrl));
         
         // Move to next page after a delay
         refreshHandler.postDelayed(() -> {
             refreshPageIndex++;
-            refreshNextPage();
+            refreshNextPage(generation);
         }, 5000); // 5 second delay between page refreshes
     }
     
+    private void cancelBackgroundRefresh() {
+        if (!isRefreshing) {
+            return;
+        }
+        
+        // Pending refresh steps check the generation and stop
+        refreshGeneration++;
+        isRefreshing = false;
+        for (int i = 0; i < MAX_PAGES; i++) {
+            backupPageLoadStates[i] = false;
+        }
+        Log.i(TAG, "Background refresh cancelled");
+    }
+    
     private void swapToRefreshedPages() {
         // Only swap pages that loaded successfully in backup WebViews
         for (int i = 0; i < 3; i++) {
@@ -423,6 +583,7 @@ public class MainActivity extends Activity implements ConfigurationManager.Confi
     
     private void loadPagesIntoPool() {
         // Reset states
+        discardStagedConfig();
         pagesLoaded = 0;
         initialLoadComplete = false;
         
@@ -434,8 +595,8 @@ public class MainActivity extends Activity implements ConfigurationManager.Confi
         // Show loading state
         showLoadingState();
         
-        // Load up to 3 pages into the WebView pool
-        int pagesToLoad = Math.min(pages.size(), 3);
+        // Load up to 3 pages into the WebView pool, or the visible and next one when shed
+        int pagesToLoad = Math.min(pages.size(), shedLevel >= SHED_HIDDEN_PAGES ? 2 : 3);
         for (int i = 0; i < pagesToLoad; i++) {
             loadPageIntoWebView(i);
         }
@@ -448,18 +609,48 @@ public class MainActivity extends Activity implements ConfigurationManager.Confi
             return;
         }
         
-        PageConfig page = pages.get(webViewIndex);
-        String url = page.getUrl();
+        loadPage(webViews[webViewIndex], pages.get(webViewIndex), currentConfig, "page " + webViewIndex);
+    }
+    
+    private void loadPage(WebView webView, PageConfig page, DeviceConfig config, String label) {
+        // Skip redirects already known to be permanent
+        String url = pageWarmer.resolve(page.getUrl());
         
         // Add cache-busting parameter if device-level clearCache is enabled
-        if (currentConfig != null && currentConfig.isClearCache()) {
+        if (config != null && config.isClearCache()) {
             String separator = url.contains("?") ? "&" : "?";
             url = url + separator + "_t=" + System.currentTimeMillis();
-            Log.d(TAG, "Cache clearing enabled for WebView " + webViewIndex);
+            Log.d(TAG, "Cache clearing enabled for " + label);
         }
         
-        Log.d(TAG, "Loading page " + webViewIndex + ": " + url);
-        webViews[webViewIndex].loadUrl(url);
+        Log.d(TAG, "Loading " + label + ": " + url);
+        loadTimed(webView, page.getUrl(), url);
+    }
+    
+    /**
+     * Load a URL and time it until the page finishes or fails
+     */
+    private void loadTimed(WebView webView, String pageUrl, String loadUrl) {
+        boolean redirectSkipped = !pageUrl.equals(pageWarmer.resolve(pageUrl));
+        pageLoads.put(webView, new PageLoad(pageUrl, pageWarmer.isWarm(loadUrl), redirectSkipped));
+        webView.loadUrl(loadUrl);
+    }
+    
+    private void finishPageLoad(WebView webView, boolean success) {
+        PageLoad load = pageLoads.remove(webView);
+        if (load == null) {
+            return;
+        }
+        long millis = System.currentTimeMillis() - load.startedAt;
+        configManager.recordPageLoad(load.warm, success, millis);
+        // One line per load, for comparing warm and cold loads from logcat
+        Log.i(TAG, "Page load " + (load.warm ? "warm" : "cold")
+            + (load.redirectSkipped ? ", redirect skipped" : "")
+            + (success ? "" : ", failed") + ": " + millis + "ms " + load.pageUrl);
+        if (!success) {
+            // A remembered redirect target that fails may have moved again
+            pageWarmer.forget(load.pageUrl);
+        }
     }
     
     private void startPageRotationTimer() {
@@ -483,6 +674,19 @@ public class MainActivity extends Activity implements ConfigurationManager.Confi
         long displayTime = currentPage.getDisplayTimeSeconds() * 1000L;
         
         pageRotationRunnable = () -> {
+            // Maintenance waits for a page boundary so no page is cut short
+            if (pendingMaintenance != null) {
+                runPendingMaintenance();
+                return;
+            }
+            
+            // Switch to a staged config at the boundary once its first page is ready
+            if (stagedConfig != null && (isStagedConfigReady()
+                    || System.currentTimeMillis() - stagedTime > STAGE_TIMEOUT)) {
+                commitStagedConfig();
+                return;
+            }
+            
             // Move to next page
             int nextPageIndex = (currentPageIndex + 1) % Math.min(pages.size(), 3);
             
@@ -490,6 +694,9 @@ public class MainActivity extends Activity implements ConfigurationManager.Confi
             if (pageLoadStates[nextPageIndex]) {
                 showPage(nextPageIndex);
                 currentPageIndex = nextPageIndex;
+                if (shedLevel >= SHED_HIDDEN_PAGES) {
+                    rollShedSlots();
+                }
                 
                 // Schedule next rotation
                 setupPageRotationTimer();
@@ -503,40 +710,44 @@ public class MainActivity extends Activity implements ConfigurationManager.Confi
         Log.d(TAG, "Next page rotation scheduled in " + (displayTime / 1000) + " seconds");
     }
     
-
-
-    
     private boolean isNetworkConnected() {
-        try {
-            ConnectivityManager connectivityManager = (ConnectivityManager) getSystemService(CONNECTIVITY_SERVICE);
-            if (connectivityManager == null) {
-                return false;
+        return connectivityMonitor.isConnected();
+    }
+    
+    // ConnectivityMonitor.Listener implementation, called on the main thread
+    @Override
+    public void onConnectivityChanged(boolean connected) {
+        configManager.getReachabilityProber().invalidate();
+        for (int i = 0; i < MAX_PAGES; i++) {
+            if (webViews[i] != null) {
+                updateWebViewCacheMode(webViews[i].getSettings());
             }
-            
-            NetworkInfo activeNetwork = connectivityManager.getActiveNetworkInfo();
-            boolean connected = activeNetwork != null && activeNetwork.isConnectedOrConnecting();
-            
-            if (connected != isNetworkAvailable) {
-                isNetworkAvailable = connected;
-                Log.i(TAG, "Network connectivity changed: " + (connected ? "CONNECTED" : "DISCONNECTED"));
-                
-                if (connected) {
-                    // Network restored
-                    Log.i(TAG, "Network restored, will attempt fresh content loading");
-                } else {
-                    Log.w(TAG, "Network lost, will use cached content");
-                }
+            if (backupWebViews[i] != null) {
+                updateWebViewCacheMode(backupWebViews[i].getSettings());
             }
-            
-            return connected;
-        } catch (Exception e) {
-            Log.e(TAG, "Error checking network connectivity", e);
-            return false;
+        }
+        
+        if (!connected) {
+            Log.w(TAG, "Network lost, will use cached content");
+            return;
+        }
+        
+        // Don't wait for the next scheduled fetch or refresh
+        Log.i(TAG, "Network restored, fetching configuration and fresh content");
+        if (degradation.compareTo(RestartJournal.Degradation.SNAPSHOT_ONLY) < 0) {
+            configManager.onNetworkRestored();
+        }
+        if (isErrorState) {
+            // Without pages the fetch above brings them
+            if (pages != null && !pages.isEmpty()) {
+                consecutiveRetries = 0;
+                scheduleAutomaticRetry(0);
+            }
+        } else if (canRefreshInBackground()) {
+            startBackgroundRefreshIfReachable();
         }
     }
     
-
-    
     private void setupErrorHandling() {
         retryButton.setOnClickListener(v -> {
             Log.i(TAG, "Retry button clicked");
@@ -551,7 +762,6 @@ public class MainActivity extends Activity implements ConfigurationManager.Confi
         });
         
         // Show update button only for test devices
-        configManager = new ConfigurationManager(this);
         boolean isTestDevice = isTestDevice();
         updateButton.setVisibility(isTestDevice ? View.VISIBLE : View.GONE);
         
@@ -596,36 +806,56 @@ public class MainActivity extends Activity implements ConfigurationManager.Confi
     }
     
     private void loadConfiguration() {
-        currentConfig = configManager.getCurrentConfig();
-        applyConfiguration(currentConfig);
+        if (degradation == RestartJournal.Degradation.FALLBACK_CONFIG) {
+            DeviceConfig fallbackConfig = configManager.getFallbackConfig();
+            if (fallbackConfig != null) {
+                applyConfiguration(fallbackConfig);
+                return;
+            }
+            Log.w(TAG, "No fallback configuration, staying on the stored one");
+        }
+        applyConfiguration(configManager.getCurrentConfig());
+        
+        if (degradation.compareTo(RestartJournal.Degradation.SNAPSHOT_ONLY) >= 0) {
+            // The crash loop may come from freshly fetched content
+            Log.w(TAG, "Degraded to " + degradation + ", not fetching configuration");
+            return;
+        }
         
         // Try to update from GitHub
-        configManager.updateConfigFromGitHub(null);
+        configManager.requestStartupUpdate();
     }
     
-    private void applyConfiguration(DeviceConfig config) {
+    /**
+     * Apply a configuration, reusing live pool pages where possible.
+     * Changes to the pool are staged and go live at the next rotation boundary.
+     *
+     * @return true if anything visible changed now; staged changes are announced when they go live
+     */
+    private boolean applyConfiguration(DeviceConfig config) {
         Log.i(TAG, "Applying configuration for device: " + config.getDeviceName());
         
-        // Apply orientation
-        applyOrientation(config.getOrientation());
+        DeviceConfig previousConfig = currentConfig;
         
-        // Check network connectivity and update cache modes
-        isNetworkConnected();
-        for (int i = 0; i < 3; i++) {
-            if (webViews[i] != null) {
-                updateWebViewCacheMode(webViews[i].getSettings());
-            }
-            if (backupWebViews[i] != null) {
-                updateWebViewCacheMode(backupWebViews[i].getSettings());
-            }
+        List<PageConfig> newPages = config.getPages();
+        if (newPages != null && !newPages.isEmpty() && canApplyIncrementally(previousConfig)) {
+            // Only touch the pool where the playlist actually changed
+            ConfigDiff diff = ConfigDiff.compute(previousConfig, config, MAX_PAGES);
+            return applyConfigDiff(diff, config);
         }
         
+        discardStagedConfig();
+        currentConfig = config;
+        
+        // Apply orientation
+        applyOrientation(config.getOrientation());
+        
         // Setup pages
-        pages = config.getPages();
+        pages = newPages;
         if (pages == null || pages.isEmpty()) {
             Log.w(TAG, "No pages configured, using default");
             showError("No pages configured");
-            return;
+            return true;
         }
         
         // Load pages into WebView pool
@@ -635,7 +865,189 @@ public class MainActivity extends Activity implements ConfigurationManager.Confi
         startPageRotationTimer();
         
         Log.i(TAG, "Configuration applied with " + pages.size() + " pages, network: " + 
-              (isNetworkAvailable ? "CONNECTED" : "OFFLINE"));
+              (isNetworkConnected() ? "CONNECTED" : "OFFLINE"));
+        return true;
+    }
+    
+    private boolean canApplyIncrementally(DeviceConfig previousConfig) {
+        return previousConfig != null && pages != null && !pages.isEmpty()
+            && initialLoadComplete && !isErrorState;
+    }
+    
+    private boolean applyConfigDiff(ConfigDiff diff, DeviceConfig config) {
+        if (diff.isEmpty()) {
+            // Back to what is on screen, anything staged is obsolete
+            discardStagedConfig();
+            currentConfig = config;
+            pages = config.getPages();
+            Log.i(TAG, "Configuration unchanged, keeping live pages");
+            return false;
+        }
+        
+        if (!diff.requiresPoolChanges() && !diff.isOrientationChanged()) {
+            // Retimed pages and settings apply in place, the rotation timer reads display times from pages
+            discardStagedConfig();
+            currentConfig = config;
+            pages = config.getPages();
+            Log.i(TAG, "Configuration changes applied in place: " + diff);
+            return true;
+        }
+        
+        stageConfig(config, diff);
+        return false;
+    }
+    
+    private void stageConfig(DeviceConfig config, ConfigDiff diff) {
+        discardStagedConfig();
+        cancelBackgroundRefresh();
+        
+        stagedConfig = config;
+        stagedDiff = diff;
+        stagedTime = System.currentTimeMillis();
+        // The backups were released under memory pressure; preloading would undo that
+        stagedPreloaded = shedLevel < SHED_BACKUPS;
+        
+        // Preload changed pages in the hidden backup WebViews
+        List<PageConfig> stagedPages = config.getPages();
+        for (int i = 0; i < MAX_PAGES; i++) {
+            backupPageLoadStates[i] = false;
+            if (stagedPreloaded && diff.getAction(i) == ConfigDiff.SlotAction.LOAD) {
+                loadPage(backupWebViews[i], stagedPages.get(i), config, "staged page " + i);
+            }
+        }
+        
+        Log.i(TAG, "Configuration staged for next rotation boundary"
+            + (stagedPreloaded ? "" : " without preloading") + ": " + diff);
+        maybeCommitStagedConfig();
+    }
+    
+    /**
+     * Keep the staged config, but load its changed pages in place at the boundary
+     */
+    private void stopPreloadingStagedConfig() {
+        if (stagedConfig == null || !stagedPreloaded) {
+            return;
+        }
+        stagedPreloaded = false;
+        Log.i(TAG, "Staged configuration will load in place at the next rotation boundary");
+        maybeCommitStagedConfig();
+    }
+    
+    private void discardStagedConfig() {
+        if (stagedConfig == null) {
+            return;
+        }
+        stagedConfig = null;
+        stagedDiff = null;
+        for (int i = 0; i < MAX_PAGES; i++) {
+            backupPageLoadStates[i] = false;
+        }
+        Log.d(TAG, "Discarded staged configuration");
+    }
+    
+    private boolean isStagedConfigReady() {
+        if (stagedConfig == null) {
+            return false;
+        }
+        if (!stagedPreloaded) {
+            // Nothing to wait for, the boundary itself is the switch
+            return true;
+        }
+        
+        // The first page of the new playlist must be render-ready
+        switch (stagedDiff.getAction(0)) {
+            case LOAD:
+                return backupPageLoadStates[0];
+            case CLEAR:
+                return false;
+            default:
+                return pageLoadStates[stagedDiff.getSourceSlot(0)];
+        }
+    }
+    
+    private void maybeCommitStagedConfig() {
+        // Without rotation there is no boundary to wait for
+        boolean rotating = pages != null && pages.size() > 1;
+        if (!rotating && isStagedConfigReady()) {
+            commitStagedConfig();
+        }
+    }
+    
+    private void commitStagedConfig() {
+        DeviceConfig config = stagedConfig;
+        ConfigDiff diff = stagedDiff;
+        boolean preloaded = stagedPreloaded;
+        stagedConfig = null;
+        stagedDiff = null;
+        
+        stopPageRotation();
+        currentConfig = config;
+        applyOrientation(config.getOrientation());
+        pages = config.getPages();
+        
+        rebuildPoolFromDiff(diff, preloaded);
+        
+        // Start the new playlist from its first page
+        showPage(0);
+        if (shedLevel >= SHED_HIDDEN_PAGES) {
+            rollShedSlots();
+        }
+        startPageRotationTimer();
+        
+        Log.i(TAG, "Staged configuration is live with " + pages.size() + " pages");
+        Toast.makeText(this, "Configuration updated", Toast.LENGTH_SHORT).show();
+    }
+    
+    private void rebuildPoolFromDiff(ConfigDiff diff, boolean preloaded) {
+        WebView[] oldViews = webViews.clone();
+        boolean[] oldStates = pageLoadStates.clone();
+        boolean[] claimed = new boolean[MAX_PAGES];
+        
+        // Slots that keep or move live content take their WebView from the old pool
+        for (int i = 0; i < MAX_PAGES; i++) {
+            int source = diff.getSourceSlot(i);
+            if (source >= 0) {
+                webViews[i] = oldViews[source];
+                pageLoadStates[i] = oldStates[source];
+                claimed[source] = true;
+            }
+        }
+        
+        // Changed slots take their preloaded backup; old WebViews nobody claimed
+        // become the new backups or the cleared slots
+        int nextFree = 0;
+        for (int i = 0; i < MAX_PAGES; i++) {
+            ConfigDiff.SlotAction action = diff.getAction(i);
+            if (action != ConfigDiff.SlotAction.LOAD && action != ConfigDiff.SlotAction.CLEAR) {
+                continue;
+            }
+            while (claimed[nextFree]) {
+                nextFree++;
+            }
+            claimed[nextFree] = true;
+            WebView freeView = oldViews[nextFree];
+            freeView.setVisibility(View.GONE);
+            
+            if (action == ConfigDiff.SlotAction.LOAD && preloaded) {
+                webViews[i] = backupWebViews[i];
+                pageLoadStates[i] = backupPageLoadStates[i];
+                backupWebViews[i] = freeView;
+            } else if (action == ConfigDiff.SlotAction.LOAD) {
+                webViews[i] = freeView;
+                pageLoadStates[i] = false;
+                // Past the visible and next page, rollShedSlots loads when the rotation gets there
+                if (i < 2 || shedLevel < SHED_HIDDEN_PAGES) {
+                    loadPageIntoWebView(i);
+                } else {
+                    freeView.loadUrl(BLANK_URL);
+                }
+            } else {
+                webViews[i] = freeView;
+                pageLoadStates[i] = false;
+                freeView.loadUrl(BLANK_URL);
+            }
+            backupPageLoadStates[i] = false;
+        }
     }
     
     private void applyOrientation(String orientation) {
@@ -656,16 +1068,65 @@ public class MainActivity extends Activity implements ConfigurationManager.Confi
     }
     
     private void setupConfigurationUpdates() {
-        configUpdateRunnable = () -> {
-            Log.d(TAG, "Periodic configuration update");
-            configManager.updateConfigFromGitHub(null);
-            
-            // Schedule next update
-            configHandler.postDelayed(configUpdateRunnable, CONFIG_UPDATE_INTERVAL);
-        };
+        if (degradation.compareTo(RestartJournal.Degradation.SNAPSHOT_ONLY) >= 0) {
+            return;
+        }
+        // Failed fetches retry sooner with backoff, see ConfigFetchScheduler
+        configManager.startPeriodicUpdates(CONFIG_UPDATE_INTERVAL);
+    }
+    
+    /**
+     * Start in the degraded mode the restart journal asks for
+     */
+    private void applyDegradation() {
+        if (degradation == RestartJournal.Degradation.NONE) {
+            return;
+        }
+        Log.w(TAG, "Crash loop detected, running degraded: " + degradation);
+        restartJournal.append(RestartJournal.Event.DEGRADATION, "Running degraded: " + degradation);
+        
+        // Every degraded step keeps the pool small, and memory recovery doesn't grow it back
+        shedFloor = SHED_HIDDEN_PAGES;
+        shedPoolSlots(SHED_HIDDEN_PAGES);
         
-        // Start periodic updates
-        configHandler.postDelayed(configUpdateRunnable, CONFIG_UPDATE_INTERVAL);
+        // Step back up once the failures age out of the journal
+        refreshHandler.postDelayed(crashLoopCheckRunnable, CRASH_LOOP_CHECK_INTERVAL);
+    }
+    
+    /**
+     * Recreate the activity when the crash loop level changed, so it restarts at the new level.
+     * The journal is read off the main thread.
+     */
+    private void checkCrashLoop() {
+        refreshHandler.removeCallbacks(crashLoopCheckRunnable);
+        if (recreating) {
+            return;
+        }
+        RestartJournal.Degradation current = degradation;
+        configManager.getExecutor().execute(ConfigExecutor.Priority.NORMAL, () -> {
+            RestartJournal.Degradation level = restartJournal.evaluateCrashLoop(System.currentTimeMillis());
+            if (level != current && level == RestartJournal.Degradation.NONE) {
+                restartJournal.append(RestartJournal.Event.DEGRADATION, "Crash loop over, back to full operation");
+            }
+            runOnUiThread(() -> onCrashLoopChecked(level));
+        });
+    }
+    
+    private void onCrashLoopChecked(RestartJournal.Degradation level) {
+        if (isDestroyed() || recreating) {
+            return;
+        }
+        if (level != degradation) {
+            Log.w(TAG, "Crash loop level changed from " + degradation + " to " + level + ", recreating");
+            recreating = true;
+            recreate();
+            return;
+        }
+        if (degradation != RestartJournal.Degradation.NONE) {
+            // Several renderer deaths can each start a check; keep one pending
+            refreshHandler.removeCallbacks(crashLoopCheckRunnable);
+            refreshHandler.postDelayed(crashLoopCheckRunnable, CRASH_LOOP_CHECK_INTERVAL);
+        }
     }
     
     private void startWatchdogService() {
@@ -711,13 +1172,31 @@ public class MainActivity extends Activity implements ConfigurationManager.Confi
     }
     
     private void scheduleAutomaticRetry() {
-        retryRunnable = () -> {
-            Log.i(TAG, "Automatic retry triggered");
-            retryCurrentPage();
-        };
-        
-        retryHandler.postDelayed(retryRunnable, RETRY_INTERVAL);
-        Log.d(TAG, "Automatic retry scheduled in " + (RETRY_INTERVAL / 1000) + " seconds");
+        // Back off while retries keep failing, with jitter so a fleet doesn't retry in lockstep
+        long delay = retryBackoff.getDelayMillis(consecutiveRetries);
+        consecutiveRetries++;
+        scheduleAutomaticRetry(delay);
+        Log.d(TAG, "Automatic retry " + consecutiveRetries + " scheduled in " + (delay / 1000) + " seconds");
+    }
+    
+    private void scheduleAutomaticRetry(long delay) {
+        if (retryRunnable != null) {
+            retryHandler.removeCallbacks(retryRunnable);
+        }
+        retryRunnable = () -> configManager.getReachabilityProber().checkReachable(getMainExecutor(), reachable -> {
+            if (isDestroyed() || !isErrorState) {
+                return;
+            }
+            if (reachable) {
+                Log.i(TAG, "Automatic retry triggered");
+                retryCurrentPage();
+            } else {
+                // Loading now would only fail again; wait for the next retry
+                Log.i(TAG, "Hosts unreachable, postponing automatic retry");
+                scheduleAutomaticRetry();
+            }
+        });
+        retryHandler.postDelayed(retryRunnable, delay);
     }
     
     private void retryCurrentPage() {
@@ -764,27 +1243,239 @@ public class MainActivity extends Activity implements ConfigurationManager.Confi
                 | View.SYSTEM_UI_FLAG_FULLSCREEN);
     }
     
-    // ConfigUpdateListener implementation
+    // ConfigUpdateListener implementation, delivered on the main thread
     @Override
-    public void onConfigUpdated(DeviceConfig config) {
-        Log.i(TAG, "Configuration updated from GitHub");
-        runOnUiThread(() -> {
-            currentConfig = config;
-            applyConfiguration(config);
-            
+    public void onConfigUpdated(ConfigSnapshot snapshot) {
+        Log.i(TAG, "Configuration updated: " + snapshot);
+        if (degradation.compareTo(RestartJournal.Degradation.SNAPSHOT_ONLY) >= 0) {
+            Log.w(TAG, "Degraded to " + degradation + ", ignoring configuration update");
+            return;
+        }
+        long applyStart = System.currentTimeMillis();
+        boolean applied = false;
+        boolean changed;
+        try {
+            changed = applyConfiguration(snapshot.getConfig());
+            applied = true;
+        } finally {
+            configManager.recordApplyTime(snapshot.getSource(), applied, System.currentTimeMillis() - applyStart);
+        }
+        if (changed) {
             Toast.makeText(this, "Configuration updated", Toast.LENGTH_SHORT).show();
-        });
+        }
+    }
+    
+    // PressureListener implementation, called on the main thread by MemoryWatchdog
+    @Override
+    public void onMemoryPressure(MemoryMonitor.Pressure pressure) {
+        switch (pressure) {
+            case NORMAL:
+                restorePoolSlots();
+                break;
+            case ELEVATED:
+                shedPoolSlots(SHED_BACKUPS);
+                break;
+            case CRITICAL:
+                shedPoolSlots(SHED_HIDDEN_PAGES);
+                break;
+        }
+    }
+    
+    @Override
+    public void onMaintenanceDue(MemoryMonitor.Maintenance maintenance) {
+        pendingMaintenance = maintenance;
+        boolean rotating = pages != null && pages.size() > 1 && !isErrorState;
+        if (!rotating) {
+            // No rotation boundary is coming, so there is no page to cut short
+            runPendingMaintenance();
+        } else {
+            Log.i(TAG, maintenance + " scheduled for the next rotation boundary");
+        }
+    }
+    
+    private void runPendingMaintenance() {
+        MemoryMonitor.Maintenance maintenance = pendingMaintenance;
+        pendingMaintenance = null;
+        Log.i(TAG, "Running memory maintenance: " + maintenance);
+        restartJournal.append(RestartJournal.Event.WATCHDOG, "Memory maintenance: " + maintenance);
+        if (maintenance == MemoryMonitor.Maintenance.RESTART_ACTIVITY) {
+            recreate();
+        } else {
+            recreateWebViewPool();
+        }
+    }
+    
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        if (level == TRIM_MEMORY_RUNNING_CRITICAL) {
+            shedPoolSlots(SHED_HIDDEN_PAGES);
+        } else if (level == TRIM_MEMORY_RUNNING_LOW) {
+            shedPoolSlots(SHED_BACKUPS);
+        }
+    }
+    
+    /**
+     * Release WebViews that are not needed to keep the playlist on screen
+     */
+    private void shedPoolSlots(int level) {
+        if (level <= shedLevel) {
+            return;
+        }
+        if (shedLevel < SHED_BACKUPS) {
+            cancelBackgroundRefresh();
+            stopPreloadingStagedConfig();
+            for (int i = 0; i < MAX_PAGES; i++) {
+                releaseWebView(backupWebViews[i]);
+                backupPageLoadStates[i] = false;
+            }
+        }
+        shedLevel = level;
+        if (level >= SHED_HIDDEN_PAGES) {
+            rollShedSlots();
+        }
+        Log.w(TAG, "Shed WebView pool to level " + level);
+    }
+    
+    /**
+     * Keep only the visible page and the next one in the rotation loaded
+     */
+    private void rollShedSlots() {
+        if (pages == null || pages.isEmpty()) {
+            return;
+        }
+        int slotCount = Math.min(pages.size(), MAX_PAGES);
+        int nextIndex = (currentPageIndex + 1) % slotCount;
+        for (int i = 0; i < slotCount; i++) {
+            if (i == currentPageIndex) {
+                continue;
+            }
+            if (i == nextIndex) {
+                if (!pageLoadStates[i]) {
+                    loadPageIntoWebView(i);
+                }
+            } else if (pageLoadStates[i]) {
+                releaseWebView(webViews[i]);
+                pageLoadStates[i] = false;
+            }
+        }
+    }
+    
+    private void restorePoolSlots() {
+        if (shedLevel <= shedFloor) {
+            return;
+        }
+        shedLevel = shedFloor;
+        if (pages != null && shedLevel < SHED_HIDDEN_PAGES) {
+            for (int i = 0; i < Math.min(pages.size(), MAX_PAGES); i++) {
+                if (!pageLoadStates[i] && i != currentPageIndex) {
+                    loadPageIntoWebView(i);
+                }
+            }
+        }
+        // Backups come back with the next background refresh or staged config
+        Log.i(TAG, "Memory pressure gone, WebView pool restored");
+    }
+    
+    private void releaseWebView(WebView webView) {
+        pageLoads.remove(webView);
+        webView.stopLoading();
+        webView.setVisibility(View.GONE);
+        webView.loadUrl(BLANK_URL);
+        webView.clearHistory();
+    }
+    
+    // RecoveryListener implementation, called once the main thread is responsive again
+    @Override
+    public void onStallRecovery(MainThreadWatchdog.RecoveryAction action, long stallMillis) {
+        Log.w(TAG, "Recovering from " + stallMillis + "ms main thread stall: " + action);
+        switch (action) {
+            case RELOAD_SLOT:
+                reloadCurrentSlot();
+                break;
+            case RECREATE_POOL:
+                recreateWebViewPool();
+                break;
+            case RESTART_ACTIVITY:
+                recreate();
+                break;
+        }
+    }
+    
+    private void reloadCurrentSlot() {
+        if (pages == null || currentPageIndex >= Math.min(pages.size(), MAX_PAGES)) {
+            return;
+        }
+        loadPageIntoWebView(currentPageIndex);
+    }
+    
+    /**
+     * Replace every WebView in the pool with a fresh instance and reload the playlist
+     */
+    private void recreateWebViewPool() {
+        stopPageRotation();
+        cancelBackgroundRefresh();
+        for (int i = 0; i < MAX_PAGES; i++) {
+            webViews[i] = replaceWebView(webViews[i], "Main-" + i);
+            backupWebViews[i] = replaceWebView(backupWebViews[i], "Backup-" + i);
+        }
+        Log.i(TAG, "WebView pool recreated");
+        
+        if (pages != null && !pages.isEmpty()) {
+            loadPagesIntoPool();
+            startPageRotationTimer();
+        }
+    }
+    
+    /**
+     * Swap a WebView whose renderer died for a fresh one; a dead WebView can't be used again
+     */
+    private void replaceDeadWebView(WebView deadView) {
+        for (int i = 0; i < MAX_PAGES; i++) {
+            if (webViews[i] == deadView) {
+                boolean visible = deadView.getVisibility() == View.VISIBLE;
+                webViews[i] = replaceWebView(deadView, "Main-" + i);
+                pageLoadStates[i] = false;
+                if (pages != null && i < Math.min(pages.size(), MAX_PAGES)) {
+                    loadPageIntoWebView(i);
+                }
+                if (visible) {
+                    webViews[i].setVisibility(View.VISIBLE);
+                }
+                break;
+            } else if (backupWebViews[i] == deadView) {
+                backupWebViews[i] = replaceWebView(deadView, "Backup-" + i);
+                backupPageLoadStates[i] = false;
+                break;
+            }
+        }
+        checkCrashLoop();
+    }
+    
+    private WebView replaceWebView(WebView oldView, String tag) {
+        ViewGroup parent = (ViewGroup) oldView.getParent();
+        int index = parent.indexOfChild(oldView);
+        
+        WebView newView = new WebView(this);
+        newView.setId(oldView.getId());
+        newView.setBackgroundColor(Color.BLACK);
+        newView.setVisibility(View.GONE);
+        setupWebViewInstance(newView, tag);
+        
+        parent.removeViewAt(index);
+        parent.addView(newView, index, oldView.getLayoutParams());
+        pageLoads.remove(oldView);
+        oldView.destroy();
+        return newView;
     }
     
     @Override
     public void onConfigError(String error) {
         Log.w(TAG, "Configuration update error: " + error);
-        runOnUiThread(() -> {
-            // Don't show error if we're already in error state
-            if (!isErrorState) {
-                Toast.makeText(this, "Config update failed: " + error, Toast.LENGTH_SHORT).show();
-            }
-        });
+        // Don't show error if we're already in error state
+        if (!isErrorState) {
+            Toast.makeText(this, "Config update failed: " + error, Toast.LENGTH_SHORT).show();
+        }
     }
     
     @Override
@@ -824,29 +1515,27 @@ public class MainActivity extends Activity implements ConfigurationManager.Confi
         
         Log.i(TAG, "MainActivity destroying");
         
-        // Clean up handlers
-        stopPageRotation();
+        // Clean up handlers. The activity is recreated for recovery and
+        // maintenance, so nothing posted by this instance may outlive it.
+        pageHandler.removeCallbacksAndMessages(null);
+        retryHandler.removeCallbacksAndMessages(null);
+        refreshHandler.removeCallbacksAndMessages(null);
         
-        if (configHandler != null && configUpdateRunnable != null) {
-            configHandler.removeCallbacks(configUpdateRunnable);
+        if (mainThreadWatchdog != null) {
+            mainThreadWatchdog.stop();
         }
-        
-        if (retryHandler != null && retryRunnable != null) {
-            retryHandler.removeCallbacks(retryRunnable);
+        if (memoryWatchdog != null) {
+            memoryWatchdog.stop();
         }
-        
-        if (refreshHandler != null && refreshRunnable != null) {
-            refreshHandler.removeCallbacks(refreshRunnable);
+        if (connectivityMonitor != null) {
+            connectivityMonitor.stop();
         }
         
         // Clean up configuration manager
         if (configManager != null) {
-            configManager.shutdown();
-        }
-        
-        // Shutdown executor
-        if (executor != null) {
-            executor.shutdown();
+            // The manager is process-wide; just stop what this activity started
+            configManager.removeConfigUpdateListener(this);
+            configManager.stopPeriodicUpdates();
         }
         
         // Clean up all WebViews in the pool
@@ -863,13 +1552,18 @@ public class MainActivity extends Activity implements ConfigurationManager.Confi
             }
         }
         
-        // Stop watchdog service
-        try {
-            Intent watchdogIntent = new Intent(this, WatchdogService.class);
-            stopService(watchdogIntent);
-            Log.i(TAG, "WatchdogService stopped");
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to stop WatchdogService", e);
+        // A recreated activity keeps being supervised; only a deliberate exit stops the watchdog
+        if (isFinishing()) {
+            if (heartbeat != null) {
+                heartbeat.setState(Heartbeat.STATE_STOPPED);
+            }
+            try {
+                Intent watchdogIntent = new Intent(this, WatchdogService.class);
+                stopService(watchdogIntent);
+                Log.i(TAG, "WatchdogService stopped");
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to stop WatchdogService", e);
+            }
         }
     }
     
@@ -1033,7 +1727,7 @@ public class MainActivity extends Activity implements ConfigurationManager.Confi
         spinner.setAdapter(loadingAdapter);
         
         // Fetch device IDs in background
-        executor.execute(() -> {
+        configManager.getExecutor().execute(ConfigExecutor.Priority.LOW, () -> {
             try {
                 List<String> deviceIds = fetchDeviceIdsFromGoogleSheets();
                 
@@ -1077,28 +1771,23 @@ public class MainActivity extends Activity implements ConfigurationManager.Confi
         connection.setConnectTimeout(10000);
         connection.setReadTimeout(10000);
         
-        BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-        String line;
-        boolean firstRow = true;
-        
-        while ((line = reader.readLine()) != null) {
-            if (firstRow) {
-                firstRow = false;
-                continue; // Skip header row
-            }
-            
-            String[] parts = line.split(",");
-            if (parts.length >= 2 && !parts[1].trim().isEmpty()) {
-                String deviceId = parts[1].trim().replace("\"", "");
-                if (!deviceId.equalsIgnoreCase("DeviceID")) {
+        // Parse straight from the response; quoted fields may contain commas and line breaks
+        try (CsvReader csv = new CsvReader(
+                new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+            while (csv.nextRow()) {
+                if (csv.getRowNumber() == 1) {
+                    continue; // Skip header row
+                }
+                
+                String deviceId = csv.getTrimmedField(1);
+                if (deviceId != null && !deviceId.isEmpty() && !deviceId.equalsIgnoreCase("DeviceID")) {
                     deviceIds.add(deviceId);
                 }
             }
+        } finally {
+            connection.disconnect();
         }
         
-        reader.close();
-        connection.disconnect();
-        
         Log.i(TAG, "Loaded " + deviceIds.size() + " device IDs from Google Sheets for setup");
         return deviceIds;
     }
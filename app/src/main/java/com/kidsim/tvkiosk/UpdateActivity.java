@@ -30,8 +30,6 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public class UpdateActivity extends Activity {
     private static final String TAG = "UpdateActivity";
@@ -45,8 +43,6 @@ public class UpdateActivity extends Activity {
     private SharedPreferences preferences;
     private DeviceIdManager deviceIdManager;
     private ConfigurationManager configManager;
-    private GoogleSheetsConfigLoader googleSheetsLoader;
-    private ExecutorService executor;
     
     // UI Components
     private Spinner buildTypeSpinner;
@@ -72,8 +68,7 @@ public class UpdateActivity extends Activity {
         // Initialize components
         preferences = getSharedPreferences("KioskUpdatePrefs", MODE_PRIVATE);
         deviceIdManager = new DeviceIdManager(this);
-        configManager = new ConfigurationManager(this);
-        executor = Executors.newSingleThreadExecutor();
+        configManager = ConfigurationManager.getInstance(this);
         
         initializeViews();
         setupSpinners();
@@ -92,9 +87,6 @@ public class UpdateActivity extends Activity {
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        if (executor != null) {
-            executor.shutdown();
-        }
         try {
             unregisterReceiver(downloadReceiver);
         } catch (Exception e) {
@@ -160,7 +152,7 @@ public class UpdateActivity extends Activity {
     private void loadDeviceIds() {
         statusText.setText("Loading device IDs from Google Sheets...");
         
-        // Initialize Google Sheets loader with API credentials
+        // Check the bundled Google Sheets credentials
         String apiKey = configManager.getGoogleSheetsApiKey();
         String sheetsId = configManager.getGoogleSheetsId();
         
@@ -169,9 +161,7 @@ public class UpdateActivity extends Activity {
             return;
         }
         
-        googleSheetsLoader = new GoogleSheetsConfigLoader(sheetsId, apiKey);
-        
-        googleSheetsLoader.loadAvailableDeviceIds(new GoogleSheetsConfigLoader.DeviceListListener() {
+        configManager.loadAvailableDeviceIds(new GoogleSheetsConfigLoader.DeviceListListener() {
             @Override
             public void onDeviceListLoaded(List<String> deviceIds) {
                 runOnUiThread(() -> {
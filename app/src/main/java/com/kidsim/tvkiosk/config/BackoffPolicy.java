@@ -0,0 +1,54 @@
+package com.kidsim.tvkiosk.config;
+
+import java.util.Random;
+
+/**
+ * Exponential backoff with bounded jitter.
+ *
+ * The delay after n consecutive failures is drawn uniformly from
+ * [minDelay, min(maxDelay, minDelay * 2^n)], so devices that failed together
+ * spread their retries out instead of retrying in lockstep. Unlike full
+ * jitter, which draws from [0, ceiling], a retry never comes sooner than
+ * minDelay.
+ */
+public class BackoffPolicy {
+    private final long minDelayMillis;
+    private final long maxDelayMillis;
+    private final Random random;
+
+    public BackoffPolicy(long minDelayMillis, long maxDelayMillis) {
+        this(minDelayMillis, maxDelayMillis, new Random());
+    }
+
+    public BackoffPolicy(long minDelayMillis, long maxDelayMillis, Random random) {
+        this.minDelayMillis = minDelayMillis;
+        this.maxDelayMillis = Math.max(minDelayMillis, maxDelayMillis);
+        this.random = random;
+    }
+
+    /**
+     * Upper bound of the jitter window after the given number of consecutive failures
+     */
+    public long getCeilingMillis(int consecutiveFailures) {
+        long ceiling = minDelayMillis;
+        for (int i = 0; i < consecutiveFailures && ceiling < maxDelayMillis; i++) {
+            ceiling *= 2;
+        }
+        return Math.min(ceiling, maxDelayMillis);
+    }
+
+    /**
+     * Delay before the next attempt after the given number of consecutive failures
+     */
+    public long getDelayMillis(int consecutiveFailures) {
+        long ceiling = getCeilingMillis(consecutiveFailures);
+        long window = ceiling - minDelayMillis;
+        if (window <= 0) {
+            return minDelayMillis;
+        }
+        return minDelayMillis + (long) (random.nextDouble() * window);
+    }
+
+    public long getMinDelayMillis() { return minDelayMillis; }
+    public long getMaxDelayMillis() { return maxDelayMillis; }
+}
@@ -0,0 +1,121 @@
+package com.kidsim.tvkiosk.config;
+
+import android.util.Log;
+
+/**
+ * Per-source circuit breaker for config fetches.
+ *
+ * After failureThreshold consecutive failures the circuit opens and requests
+ * to that source are skipped. Once the open period has passed a single trial
+ * request is let through (half-open); success closes the circuit, failure
+ * opens it again for twice as long, up to maxOpenMillis. A trial that is
+ * handed back unused, or that reports nothing within baseOpenMillis, makes
+ * room for another one.
+ *
+ * Time is always passed in by the caller so the breaker can be driven by a
+ * fake clock.
+ */
+public class CircuitBreaker {
+    private static final String TAG = "CircuitBreaker";
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long baseOpenMillis;
+    private final long maxOpenMillis;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    private int trips = 0;
+    private long openUntil = 0;
+    private long trialStartedAt = 0;
+
+    public CircuitBreaker(String name, int failureThreshold, long baseOpenMillis, long maxOpenMillis) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.baseOpenMillis = baseOpenMillis;
+        this.maxOpenMillis = Math.max(baseOpenMillis, maxOpenMillis);
+    }
+
+    /**
+     * Check whether a request to this source may go out now
+     */
+    public synchronized boolean allowRequest(long nowMillis) {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (nowMillis >= openUntil) {
+                    state = State.HALF_OPEN;
+                    trialStartedAt = nowMillis;
+                    Log.i(TAG, name + " circuit half-open, allowing trial request");
+                    return true;
+                }
+                return false;
+            default:
+                // Only one trial request while half-open, unless the last one was lost
+                if (nowMillis - trialStartedAt >= baseOpenMillis) {
+                    trialStartedAt = nowMillis;
+                    Log.w(TAG, name + " trial request never reported, allowing another");
+                    return true;
+                }
+                return false;
+        }
+    }
+
+    /**
+     * Hand back a permission that was granted but not used for a request, so a
+     * half-open circuit doesn't wait for a trial that never went out
+     */
+    public synchronized void releaseRequest() {
+        if (state == State.HALF_OPEN) {
+            // openUntil has passed, so the next request becomes the trial
+            state = State.OPEN;
+            Log.i(TAG, name + " trial request not used, circuit open again");
+        }
+    }
+
+    public synchronized void recordSuccess() {
+        if (state != State.CLOSED) {
+            Log.i(TAG, name + " circuit closed");
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        trips = 0;
+    }
+
+    public synchronized void recordFailure(long nowMillis) {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            long openMillis = baseOpenMillis;
+            for (int i = 0; i < trips && openMillis < maxOpenMillis; i++) {
+                openMillis *= 2;
+            }
+            openMillis = Math.min(openMillis, maxOpenMillis);
+
+            trips++;
+            state = State.OPEN;
+            openUntil = nowMillis + openMillis;
+            Log.w(TAG, name + " circuit open for " + (openMillis / 1000) + "s after "
+                + consecutiveFailures + " consecutive failures");
+        }
+    }
+
+    /**
+     * Close the circuit and forget past failures, e.g. ones that happened
+     * while the device itself was offline and say nothing about the source
+     */
+    public synchronized void reset() {
+        if (state != State.CLOSED) {
+            Log.i(TAG, name + " circuit reset");
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        trips = 0;
+    }
+
+    public synchronized State getState() { return state; }
+    public synchronized int getConsecutiveFailures() { return consecutiveFailures; }
+    public String getName() { return name; }
+}
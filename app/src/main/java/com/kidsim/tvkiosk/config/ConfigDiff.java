@@ -0,0 +1,206 @@
+package com.kidsim.tvkiosk.config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Structural diff between two device configurations, expressed as a plan for
+ * a fixed-size page pool where slot i shows page i of the playlist.
+ */
+public class ConfigDiff {
+
+    public enum SlotAction {
+        KEEP,   // Same URL and timing, leave the slot alone
+        RETIME, // Same URL, only the display time changed
+        MOVE,   // URL already loaded in another slot, reuse that slot's content
+        LOAD,   // New or changed URL, slot has to load it
+        CLEAR   // Slot no longer used by the playlist
+    }
+
+    private final SlotAction[] actions;
+    private final int[] sourceSlots;
+    private final boolean orientationChanged;
+    private final boolean settingsChanged;
+    private final boolean pagesChanged;
+    private final List<String> addedUrls;
+    private final List<String> removedUrls;
+
+    private ConfigDiff(SlotAction[] actions, int[] sourceSlots, boolean orientationChanged,
+                       boolean settingsChanged, boolean pagesChanged,
+                       List<String> addedUrls, List<String> removedUrls) {
+        this.actions = actions;
+        this.sourceSlots = sourceSlots;
+        this.orientationChanged = orientationChanged;
+        this.settingsChanged = settingsChanged;
+        this.pagesChanged = pagesChanged;
+        this.addedUrls = addedUrls;
+        this.removedUrls = removedUrls;
+    }
+
+    /**
+     * Compute the minimal changes needed to go from oldConfig to newConfig
+     *
+     * @param poolSize number of pool slots the plan should cover
+     */
+    public static ConfigDiff compute(DeviceConfig oldConfig, DeviceConfig newConfig, int poolSize) {
+        List<PageConfig> oldPages = pagesOf(oldConfig);
+        List<PageConfig> newPages = pagesOf(newConfig);
+
+        SlotAction[] actions = new SlotAction[poolSize];
+        int[] sourceSlots = new int[poolSize];
+        boolean[] claimed = new boolean[poolSize];
+        int oldSlots = Math.min(oldPages.size(), poolSize);
+
+        // Slots whose URL did not change keep their own content
+        for (int i = 0; i < poolSize; i++) {
+            sourceSlots[i] = -1;
+            String newUrl = i < newPages.size() ? newPages.get(i).getUrl() : null;
+            String oldUrl = i < oldSlots ? oldPages.get(i).getUrl() : null;
+
+            if (newUrl == null) {
+                if (oldUrl == null) {
+                    // Unused before and after, the slot keeps its idle WebView
+                    actions[i] = SlotAction.KEEP;
+                    sourceSlots[i] = i;
+                    claimed[i] = true;
+                } else {
+                    actions[i] = SlotAction.CLEAR;
+                }
+            } else if (newUrl.equals(oldUrl)) {
+                boolean retimed = newPages.get(i).getDisplayTimeSeconds()
+                    != oldPages.get(i).getDisplayTimeSeconds();
+                actions[i] = retimed ? SlotAction.RETIME : SlotAction.KEEP;
+                sourceSlots[i] = i;
+                claimed[i] = true;
+            }
+        }
+
+        // Remaining slots either reuse a slot that already has the URL or load it
+        for (int i = 0; i < poolSize; i++) {
+            if (actions[i] != null) {
+                continue;
+            }
+            String newUrl = newPages.get(i).getUrl();
+            int source = -1;
+            for (int j = 0; j < oldSlots; j++) {
+                if (!claimed[j] && newUrl.equals(oldPages.get(j).getUrl())) {
+                    source = j;
+                    break;
+                }
+            }
+            if (source >= 0) {
+                actions[i] = SlotAction.MOVE;
+                sourceSlots[i] = source;
+                claimed[source] = true;
+            } else {
+                actions[i] = SlotAction.LOAD;
+            }
+        }
+
+        boolean orientationChanged = !safeEqualsIgnoreCase(
+            oldConfig != null ? oldConfig.getOrientation() : null, newConfig.getOrientation());
+        boolean settingsChanged = oldConfig == null
+            || oldConfig.isClearCache() != newConfig.isClearCache()
+            || oldConfig.getRefreshIntervalMinutes() != newConfig.getRefreshIntervalMinutes();
+
+        return new ConfigDiff(actions, sourceSlots, orientationChanged, settingsChanged,
+            !samePages(oldPages, newPages), urlsMissing(newPages, oldPages), urlsMissing(oldPages, newPages));
+    }
+
+    private static List<PageConfig> pagesOf(DeviceConfig config) {
+        if (config == null || config.getPages() == null) {
+            return Collections.emptyList();
+        }
+        return config.getPages();
+    }
+
+    private static boolean samePages(List<PageConfig> a, List<PageConfig> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            PageConfig pa = a.get(i);
+            PageConfig pb = b.get(i);
+            if (!safeEquals(pa.getUrl(), pb.getUrl())
+                    || pa.getDisplayTimeSeconds() != pb.getDisplayTimeSeconds()
+                    || !safeEquals(pa.getTitle(), pb.getTitle())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<String> urlsMissing(List<PageConfig> from, List<PageConfig> in) {
+        List<String> missing = new ArrayList<>();
+        for (PageConfig page : from) {
+            boolean found = false;
+            for (PageConfig other : in) {
+                if (safeEquals(page.getUrl(), other.getUrl())) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                missing.add(page.getUrl());
+            }
+        }
+        return missing;
+    }
+
+    private static boolean safeEquals(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private static boolean safeEqualsIgnoreCase(String a, String b) {
+        return a == null ? b == null : a.equalsIgnoreCase(b);
+    }
+
+    public int getSlotCount() { return actions.length; }
+    public SlotAction getAction(int slot) { return actions[slot]; }
+
+    /**
+     * Slot of the old pool whose content is reused by this slot, or -1 if none
+     */
+    public int getSourceSlot(int slot) { return sourceSlots[slot]; }
+
+    public boolean isOrientationChanged() { return orientationChanged; }
+    public List<String> getAddedUrls() { return addedUrls; }
+    public List<String> getRemovedUrls() { return removedUrls; }
+
+    /**
+     * True if any pool slot has to load, move or drop content
+     */
+    public boolean requiresPoolChanges() {
+        for (SlotAction action : actions) {
+            if (action == SlotAction.MOVE || action == SlotAction.LOAD || action == SlotAction.CLEAR) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * True if the two configurations are equivalent for display purposes
+     */
+    public boolean isEmpty() {
+        return !orientationChanged && !settingsChanged && !pagesChanged;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("slots=[");
+        for (int i = 0; i < actions.length; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(actions[i]);
+            if (actions[i] == SlotAction.MOVE) {
+                sb.append("<-").append(sourceSlots[i]);
+            }
+        }
+        sb.append("], added=").append(addedUrls.size())
+          .append(", removed=").append(removedUrls.size())
+          .append(", orientationChanged=").append(orientationChanged);
+        return sb.toString();
+    }
+}
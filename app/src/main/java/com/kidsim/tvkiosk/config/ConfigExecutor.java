@@ -0,0 +1,120 @@
+package com.kidsim.tvkiosk.config;
+
+import android.util.Log;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The one executor for all config, Sheets and device-list I/O in the process.
+ *
+ * A fixed number of named worker threads take tasks by priority, FIFO within
+ * a priority. Delayed tasks wait on a single timer thread and are then handed
+ * to the workers, so a blocking download never holds up a timer. The queue is
+ * bounded; tasks beyond the limit are rejected with a log instead of piling up.
+ */
+public class ConfigExecutor {
+    private static final String TAG = "ConfigExecutor";
+
+    private static final int WORKER_THREADS = 3;
+    private static final int MAX_QUEUED_TASKS = 64;
+
+    public enum Priority {
+        /** Resolving the playlist on screen */
+        HIGH,
+        /** Background refreshes */
+        NORMAL,
+        /** Setup screens, device lists */
+        LOW
+    }
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final ThreadPoolExecutor workers;
+    private final ScheduledExecutorService timer;
+
+    private static final class PrioritizedTask implements Runnable, Comparable<PrioritizedTask> {
+        final Priority priority;
+        final long sequence;
+        final Runnable task;
+
+        PrioritizedTask(Priority priority, long sequence, Runnable task) {
+            this.priority = priority;
+            this.sequence = sequence;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Config task failed", e);
+            }
+        }
+
+        @Override
+        public int compareTo(PrioritizedTask other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    public ConfigExecutor() {
+        AtomicInteger threadCount = new AtomicInteger();
+        workers = new ThreadPoolExecutor(WORKER_THREADS, WORKER_THREADS, 60, TimeUnit.SECONDS,
+            new PriorityBlockingQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, "config-io-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        workers.allowCoreThreadTimeOut(true);
+
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "config-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void execute(Runnable task) {
+        execute(Priority.NORMAL, task);
+    }
+
+    public void execute(Priority priority, Runnable task) {
+        if (workers.getQueue().size() >= MAX_QUEUED_TASKS) {
+            Log.w(TAG, "Config queue full, dropping " + priority + " task");
+            throw new RejectedExecutionException("Config queue full");
+        }
+        workers.execute(new PrioritizedTask(priority, sequence.incrementAndGet(), task));
+    }
+
+    /**
+     * Run a task on a worker thread after the delay. Cancelling the returned
+     * future before the delay passes keeps the task from running.
+     */
+    public ScheduledFuture<?> schedule(Priority priority, Runnable task, long delay, TimeUnit unit) {
+        return timer.schedule(() -> {
+            try {
+                execute(priority, task);
+            } catch (RejectedExecutionException e) {
+                Log.w(TAG, "Scheduled config task rejected", e);
+            }
+        }, delay, unit);
+    }
+
+    public boolean isShutdown() {
+        return workers.isShutdown();
+    }
+
+    public void shutdown() {
+        timer.shutdownNow();
+        workers.shutdown();
+    }
+}
@@ -0,0 +1,161 @@
+package com.kidsim.tvkiosk.config;
+
+import android.util.Log;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives periodic config fetches.
+ *
+ * Regular attempts run at this device's phase of the interval, see
+ * FleetStagger, so a fleet doesn't fetch in lockstep. After a failure the
+ * scheduler retries sooner with exponential backoff and bounded jitter, see
+ * BackoffPolicy, never waiting longer than the regular interval. Only one
+ * attempt is ever in flight; explicit requests while one is running are
+ * coalesced into a single follow-up attempt, since the running one may
+ * predate the change.
+ */
+public class ConfigFetchScheduler {
+    private static final String TAG = "ConfigFetchScheduler";
+
+    public interface Attempt {
+        /**
+         * Run one fetch attempt and report its outcome through the callback exactly once
+         */
+        void run(AttemptCallback callback);
+    }
+
+    public interface AttemptCallback {
+        void onAttemptFinished(boolean success);
+    }
+
+    public interface Phase {
+        /**
+         * Delay from now until the next regular attempt
+         */
+        long getDelayToNextAttempt(long intervalMillis);
+    }
+
+    private final ConfigExecutor scheduler;
+    private final Attempt attempt;
+    private final BackoffPolicy failureBackoff;
+    private final Phase phase;
+
+    private long intervalMillis;
+    private boolean running = false;
+    private boolean inFlight = false;
+    private boolean rerunRequested = false;
+    private int consecutiveFailures = 0;
+    private long attemptToken = 0;
+    private ScheduledFuture<?> pending;
+
+    public ConfigFetchScheduler(ConfigExecutor scheduler, Attempt attempt, BackoffPolicy failureBackoff, Phase phase) {
+        this.scheduler = scheduler;
+        this.attempt = attempt;
+        this.failureBackoff = failureBackoff;
+        this.phase = phase;
+    }
+
+    /**
+     * Start periodic fetches, the first one at this device's next slot. An
+     * attempt that is already pending or in flight comes first.
+     */
+    public synchronized void start(long intervalMillis) {
+        this.intervalMillis = intervalMillis;
+        if (running) {
+            return;
+        }
+        running = true;
+        if (!inFlight && pending == null) {
+            scheduleNext(phase.getDelayToNextAttempt(intervalMillis));
+        }
+        Log.i(TAG, "Periodic config fetch every " + (intervalMillis / 60000) + " minutes");
+    }
+
+    public synchronized void stop() {
+        running = false;
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+        }
+    }
+
+    /**
+     * Fetch now instead of waiting for the next scheduled attempt
+     */
+    public synchronized void runNow() {
+        if (inFlight) {
+            rerunRequested = true;
+            return;
+        }
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+        }
+        startAttempt();
+    }
+
+    /**
+     * Fetch after a delay, unless an attempt is in flight or due sooner anyway
+     */
+    public synchronized void runAfter(long delayMillis) {
+        if (inFlight || (pending != null && pending.getDelay(TimeUnit.MILLISECONDS) <= delayMillis)) {
+            return;
+        }
+        scheduleNext(delayMillis);
+    }
+
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    private synchronized void scheduleNext(long delayMillis) {
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        pending = scheduler.schedule(ConfigExecutor.Priority.NORMAL, this::startAttempt,
+            delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void startAttempt() {
+        pending = null;
+        if (inFlight) {
+            Log.d(TAG, "Config fetch already in flight, coalescing");
+            return;
+        }
+        inFlight = true;
+
+        final long token = ++attemptToken;
+        try {
+            attempt.run(success -> onAttemptFinished(token, success));
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Config fetch attempt failed to start", e);
+            onAttemptFinished(token, false);
+        }
+    }
+
+    private synchronized void onAttemptFinished(long token, boolean success) {
+        if (token != attemptToken || !inFlight) {
+            // Callback already reported for this attempt
+            return;
+        }
+        inFlight = false;
+        consecutiveFailures = success ? 0 : consecutiveFailures + 1;
+
+        if (rerunRequested) {
+            rerunRequested = false;
+            scheduleNext(0);
+            return;
+        }
+        if (!running) {
+            return;
+        }
+
+        long delay = success
+            ? phase.getDelayToNextAttempt(intervalMillis)
+            : Math.min(intervalMillis, failureBackoff.getDelayMillis(consecutiveFailures - 1));
+        scheduleNext(delay);
+        Log.i(TAG, "Config fetch " + (success ? "succeeded" : "failed (" + consecutiveFailures + " in a row)")
+            + ", next attempt in " + (delay / 1000) + "s");
+    }
+}
@@ -0,0 +1,427 @@
+package com.kidsim.tvkiosk.config;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single-pass streaming reader for config.json payloads.
+ *
+ * Reads straight from the response stream into DeviceConfig/PageConfig objects,
+ * so a config is tokenized exactly once instead of being joined into a String
+ * and parsed into JSONObject trees several times.
+ */
+public class ConfigJsonReader {
+    private final String deviceId;
+
+    /**
+     * Result of reading a config.json document: the source settings plus the
+     * device configuration resolved for this device.
+     */
+    public static class ConfigDocument {
+        private String configSource = "json";
+        private String googleSheetsId;
+        private String googleSheetsApiKey;
+        private DeviceConfig fallbackConfig;
+        private DeviceConfig deviceConfig;
+        private String pushChannelUrl;
+        private String pushChannelType;
+        private String rawJson;
+
+        public String getConfigSource() { return configSource; }
+        public boolean isGoogleSheets() { return "googleSheets".equals(configSource); }
+        public String getGoogleSheetsId() { return googleSheetsId; }
+        public String getGoogleSheetsApiKey() { return googleSheetsApiKey; }
+        public DeviceConfig getFallbackConfig() { return fallbackConfig; }
+        public DeviceConfig getDeviceConfig() { return deviceConfig; }
+
+        /**
+         * Optional control endpoint announcing config versions, or null if not configured
+         */
+        public String getPushChannelUrl() { return pushChannelUrl; }
+        public String getPushChannelType() { return pushChannelType; }
+
+        /**
+         * Raw document text as read from the stream, or null if it was not captured
+         */
+        public String getRawJson() { return rawJson; }
+    }
+
+    /**
+     * @param deviceId ID used to select an entry from a multi-device "devices" array
+     *                 and as the default deviceId of single-device configs
+     */
+    public ConfigJsonReader(String deviceId) {
+        this.deviceId = deviceId;
+    }
+
+    /**
+     * Read a config document in a single pass. The reader is closed when done.
+     */
+    public ConfigDocument read(Reader in) throws IOException {
+        return read(in, false);
+    }
+
+    /**
+     * Read a config document in a single pass, optionally keeping a copy of the
+     * raw text (with its original line breaks) so it can be persisted.
+     */
+    public ConfigDocument read(Reader in, boolean captureRaw) throws IOException {
+        CapturingReader capture = captureRaw ? new CapturingReader(in) : null;
+        JsonReader reader = new JsonReader(captureRaw ? capture : in);
+        reader.setLenient(true);
+
+        try {
+            ConfigDocument document = new ConfigDocument();
+            DeviceFields topLevel = new DeviceFields();
+            DeviceConfig matchedDevice = null;
+            DeviceConfig firstDevice = null;
+            boolean hasDevices = false;
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                switch (name) {
+                    case "configSource":
+                        document.configSource = nextString(reader, "json");
+                        break;
+                    case "googleSheetsId":
+                        document.googleSheetsId = nextString(reader, null);
+                        break;
+                    case "googleSheetsApiKey":
+                        document.googleSheetsApiKey = nextString(reader, null);
+                        break;
+                    case "fallbackConfig":
+                        if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                            document.fallbackConfig = readDeviceObject(reader);
+                        } else {
+                            reader.skipValue();
+                        }
+                        break;
+                    case "pushChannel":
+                        readPushChannel(reader, document);
+                        break;
+                    case "devices":
+                        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+                            reader.skipValue();
+                            break;
+                        }
+                        reader.beginArray();
+                        while (reader.hasNext()) {
+                            hasDevices = true;
+                            if (matchedDevice != null || (firstDevice != null && deviceId == null)) {
+                                // Nothing left to find; the rest of the fleet is skipped unbuilt
+                                reader.skipValue();
+                                continue;
+                            }
+
+                            // The first device is the fallback when none matches, so it is always read
+                            DeviceFields device = firstDevice == null
+                                ? readDeviceFields(reader) : readMatchingDeviceFields(reader);
+                            if (device == null) {
+                                continue;
+                            }
+                            if (firstDevice == null) {
+                                firstDevice = device.build(deviceId);
+                            }
+                            if (deviceId != null && deviceId.equals(device.deviceId)) {
+                                matchedDevice = device.build(deviceId);
+                            }
+                        }
+                        reader.endArray();
+                        break;
+                    default:
+                        if (!topLevel.readField(name, reader)) {
+                            reader.skipValue();
+                        }
+                        break;
+                }
+            }
+            reader.endObject();
+
+            if (matchedDevice != null) {
+                document.deviceConfig = matchedDevice;
+            } else if (hasDevices) {
+                // No specific config found, use the first one with the actual device ID
+                firstDevice.setDeviceId(deviceId);
+                document.deviceConfig = firstDevice;
+            } else {
+                // Single device configuration
+                document.deviceConfig = topLevel.build(deviceId);
+            }
+
+            if (captureRaw) {
+                document.rawJson = capture.getCaptured();
+            }
+            return document;
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static void readPushChannel(JsonReader reader, ConfigDocument document) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return;
+        }
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "url":
+                    document.pushChannelUrl = nextString(reader, null);
+                    break;
+                case "type":
+                    document.pushChannelType = nextString(reader, null);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+    }
+
+    private DeviceConfig readDeviceObject(JsonReader reader) throws IOException {
+        return readDeviceFields(reader).build(deviceId);
+    }
+
+    private DeviceFields readDeviceFields(JsonReader reader) throws IOException {
+        DeviceFields fields = new DeviceFields();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (!fields.readField(name, reader)) {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return fields;
+    }
+
+    /**
+     * Read a device object only if it belongs to this device. As soon as a
+     * different deviceId is seen the rest of the object is skipped without
+     * building pages; fields that came before the deviceId are already read,
+     * so fleet files should list deviceId first.
+     *
+     * @return the device fields, or null if the object was skipped
+     */
+    private DeviceFields readMatchingDeviceFields(JsonReader reader) throws IOException {
+        DeviceFields fields = new DeviceFields();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("deviceId".equals(name)) {
+                fields.deviceId = nextString(reader, null);
+                if (!deviceId.equals(fields.deviceId)) {
+                    while (reader.hasNext()) {
+                        reader.nextName();
+                        reader.skipValue();
+                    }
+                    reader.endObject();
+                    return null;
+                }
+            } else if (!fields.readField(name, reader)) {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        // Objects without a deviceId can't match
+        return deviceId.equals(fields.deviceId) ? fields : null;
+    }
+
+    /**
+     * Accumulates device fields in whatever order they appear in the stream
+     */
+    private static class DeviceFields {
+        private String deviceId;
+        private String deviceName = "Android TV";
+        private String orientation = "landscape";
+        private int refreshIntervalMinutes = 60;
+        private boolean autoStart = true;
+        private boolean clearCache = false;
+        private String configVersion = "1.0";
+        private List<PageConfig> pages;
+        private String singleUrl;
+
+        boolean readField(String name, JsonReader reader) throws IOException {
+            switch (name) {
+                case "deviceId":
+                    deviceId = nextString(reader, null);
+                    return true;
+                case "deviceName":
+                    deviceName = nextString(reader, deviceName);
+                    return true;
+                case "orientation":
+                    orientation = nextString(reader, orientation);
+                    return true;
+                case "refreshIntervalMinutes":
+                    refreshIntervalMinutes = nextInt(reader, refreshIntervalMinutes);
+                    return true;
+                case "autoStart":
+                    autoStart = nextBoolean(reader, autoStart);
+                    return true;
+                case "clearCache":
+                    clearCache = nextBoolean(reader, clearCache);
+                    return true;
+                case "configVersion":
+                    configVersion = nextString(reader, configVersion);
+                    return true;
+                case "pages":
+                    if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+                        return false;
+                    }
+                    pages = readPages(reader);
+                    return true;
+                case "url":
+                    singleUrl = nextString(reader, null);
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        DeviceConfig build(String defaultDeviceId) {
+            DeviceConfig config = new DeviceConfig();
+            config.setDeviceId(deviceId != null ? deviceId : defaultDeviceId);
+            config.setDeviceName(deviceName);
+            config.setOrientation(orientation);
+            config.setRefreshIntervalMinutes(refreshIntervalMinutes);
+            config.setAutoStart(autoStart);
+            config.setClearCache(clearCache);
+            config.setConfigVersion(configVersion);
+
+            List<PageConfig> resolvedPages = pages;
+            if (resolvedPages == null) {
+                resolvedPages = new ArrayList<>();
+                if (singleUrl != null) {
+                    // Single URL configuration for backward compatibility
+                    resolvedPages.add(new PageConfig(singleUrl, refreshIntervalMinutes * 60));
+                }
+            }
+            config.setPages(resolvedPages);
+            return config;
+        }
+    }
+
+    private static List<PageConfig> readPages(JsonReader reader) throws IOException {
+        List<PageConfig> pages = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            String url = null;
+            int displayTimeSeconds = 300;
+            String title = "";
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                switch (name) {
+                    case "url":
+                        url = nextString(reader, null);
+                        break;
+                    case "displayTimeSeconds":
+                        displayTimeSeconds = nextInt(reader, displayTimeSeconds);
+                        break;
+                    case "title":
+                        title = nextString(reader, title);
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+
+            if (url == null) {
+                throw new IOException("Page entry " + pages.size() + " is missing a url");
+            }
+            PageConfig page = new PageConfig(url, displayTimeSeconds);
+            page.setTitle(title);
+            pages.add(page);
+        }
+        reader.endArray();
+        return pages;
+    }
+
+    private static String nextString(JsonReader reader, String defaultValue) throws IOException {
+        switch (reader.peek()) {
+            case STRING:
+            case NUMBER:
+                return reader.nextString();
+            case BOOLEAN:
+                return String.valueOf(reader.nextBoolean());
+            case NULL:
+                reader.nextNull();
+                return defaultValue;
+            default:
+                reader.skipValue();
+                return defaultValue;
+        }
+    }
+
+    private static int nextInt(JsonReader reader, int defaultValue) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.NUMBER || token == JsonToken.STRING) {
+            String value = reader.nextString();
+            try {
+                return (int) Double.parseDouble(value.trim());
+            } catch (NumberFormatException e) {
+                return defaultValue;
+            }
+        }
+        reader.skipValue();
+        return defaultValue;
+    }
+
+    private static boolean nextBoolean(JsonReader reader, boolean defaultValue) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.BOOLEAN) {
+            return reader.nextBoolean();
+        }
+        if (token == JsonToken.STRING) {
+            String value = reader.nextString();
+            if ("true".equalsIgnoreCase(value)) return true;
+            if ("false".equalsIgnoreCase(value)) return false;
+            return defaultValue;
+        }
+        reader.skipValue();
+        return defaultValue;
+    }
+
+    /**
+     * Keeps a copy of every character handed to the JSON tokenizer
+     */
+    private static class CapturingReader extends FilterReader {
+        private final StringBuilder captured = new StringBuilder(4096);
+
+        CapturingReader(Reader in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int c = super.read();
+            if (c != -1) {
+                captured.append((char) c);
+            }
+            return c;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            int count = super.read(buffer, offset, length);
+            if (count > 0) {
+                captured.append(buffer, offset, count);
+            }
+            return count;
+        }
+
+        String getCaptured() {
+            return captured.toString();
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.kidsim.tvkiosk.config;
+
+import android.content.Context;
+import android.util.Log;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Per-stage timings for the config pipeline, kept as histograms that survive
+ * restarts.
+ *
+ * Every HTTP request records dns, connect (TCP and TLS together, which
+ * HttpURLConnection doesn't separate), ttfb and parse (reading and parsing
+ * the streamed body). Each source also records its total time per attempt,
+ * and MainActivity records how long applying a snapshot took. Every series
+ * is labelled with source, stage and result.
+ *
+ * Page loads in the WebView pool are recorded here too, as stage page_load
+ * with source page_warm or page_cold depending on whether the host was
+ * resolved ahead of the load, so the two can be compared.
+ *
+ * The histograms are written to filesDir as config_metrics.bin (state) and
+ * config_metrics.prom (Prometheus text format, for the fleet scraper and for
+ * reading on the device).
+ */
+public class ConfigMetrics {
+    private static final String TAG = "ConfigMetrics";
+    private static final String STATE_FILE = "config_metrics.bin";
+    private static final String EXPORT_FILE = "config_metrics.prom";
+    private static final int STATE_VERSION = 1;
+    private static final String METRIC = "kiosk_config_stage_duration_seconds";
+
+    public static final String STAGE_DNS = "dns";
+    public static final String STAGE_CONNECT = "connect";
+    public static final String STAGE_TTFB = "ttfb";
+    public static final String STAGE_PARSE = "parse";
+    public static final String STAGE_TOTAL = "total";
+    public static final String STAGE_APPLY = "apply";
+    public static final String STAGE_PAGE_LOAD = "page_load";
+
+    public static final String SOURCE_PAGE_WARM = "page_warm";
+    public static final String SOURCE_PAGE_COLD = "page_cold";
+
+    // Bucket upper bounds in milliseconds; a final +Inf bucket is implied
+    private static final long[] BUCKETS = {
+        10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000, 60000
+    };
+
+    private static class Histogram {
+        final long[] counts = new long[BUCKETS.length + 1];
+        long count;
+        long sumMillis;
+
+        void add(long millis) {
+            int bucket = 0;
+            while (bucket < BUCKETS.length && millis > BUCKETS[bucket]) {
+                bucket++;
+            }
+            counts[bucket]++;
+            count++;
+            sumMillis += millis;
+        }
+    }
+
+    private final File stateFile;
+    private final File exportFile;
+    // Keyed by "source|stage|result", sorted so the export is stable
+    private final Map<String, Histogram> histograms = new TreeMap<>();
+    private boolean dirty = false;
+
+    public ConfigMetrics(Context context) {
+        this(context.getFilesDir());
+    }
+
+    public ConfigMetrics(File directory) {
+        this.stateFile = new File(directory, STATE_FILE);
+        this.exportFile = new File(directory, EXPORT_FILE);
+        load();
+    }
+
+    public synchronized void record(String source, String stage, boolean success, long millis) {
+        String key = source + "|" + stage + "|" + (success ? "ok" : "error");
+        Histogram histogram = histograms.get(key);
+        if (histogram == null) {
+            histogram = new Histogram();
+            histograms.put(key, histogram);
+        }
+        histogram.add(Math.max(0, millis));
+        dirty = true;
+    }
+
+    /**
+     * Start timing one HTTP request
+     */
+    public RequestTimer startRequest(String source) {
+        return new RequestTimer(source);
+    }
+
+    /**
+     * Times the stages of one HTTP request. Call the mark methods as the
+     * request progresses and finish() once, typically from a finally block;
+     * stages that were never reached are not recorded.
+     */
+    public class RequestTimer {
+        private final String source;
+        private final long start = System.currentTimeMillis();
+        private long dnsDone;
+        private long connected;
+        private long firstByte;
+        private boolean finished = false;
+
+        RequestTimer(String source) {
+            this.source = source;
+        }
+
+        /**
+         * Resolve the host up front so DNS time is measured on its own. The
+         * connection's own lookup then hits the resolver cache.
+         */
+        public void resolve(String host) throws IOException {
+            try {
+                InetAddress.getAllByName(host);
+            } finally {
+                dnsDone = System.currentTimeMillis();
+            }
+        }
+
+        public void markConnected() {
+            connected = System.currentTimeMillis();
+        }
+
+        public void markFirstByte() {
+            firstByte = System.currentTimeMillis();
+        }
+
+        public void finish(boolean success) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            long end = System.currentTimeMillis();
+
+            long previous = start;
+            if (dnsDone > 0) {
+                record(source, STAGE_DNS, success, dnsDone - previous);
+                previous = dnsDone;
+            }
+            if (connected > 0) {
+                record(source, STAGE_CONNECT, success, connected - previous);
+                previous = connected;
+            }
+            if (firstByte > 0) {
+                record(source, STAGE_TTFB, success, firstByte - previous);
+                record(source, STAGE_PARSE, success, end - firstByte);
+            }
+        }
+    }
+
+    /**
+     * Write the histograms to disk if anything changed since the last flush
+     */
+    public synchronized void flush() {
+        if (!dirty) {
+            return;
+        }
+        try {
+            writeState();
+            writeExport();
+            dirty = false;
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to persist config metrics", e);
+        }
+    }
+
+    /**
+     * Current histograms in Prometheus text exposition format
+     */
+    public synchronized String toPrometheusText() {
+        StringBuilder out = new StringBuilder(4096);
+        out.append("# HELP ").append(METRIC).append(" Config pipeline stage duration\n");
+        out.append("# TYPE ").append(METRIC).append(" histogram\n");
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            String[] parts = entry.getKey().split("\\|", 3);
+            String labels = "source=\"" + parts[0] + "\",stage=\"" + parts[1] + "\",result=\"" + parts[2] + "\"";
+            Histogram histogram = entry.getValue();
+
+            long cumulative = 0;
+            for (int i = 0; i <= BUCKETS.length; i++) {
+                cumulative += histogram.counts[i];
+                String le = i < BUCKETS.length ? seconds(BUCKETS[i]) : "+Inf";
+                out.append(METRIC).append("_bucket{").append(labels).append(",le=\"").append(le).append("\"} ")
+                    .append(cumulative).append('\n');
+            }
+            out.append(METRIC).append("_sum{").append(labels).append("} ")
+                .append(seconds(histogram.sumMillis)).append('\n');
+            out.append(METRIC).append("_count{").append(labels).append("} ")
+                .append(histogram.count).append('\n');
+        }
+        return out.toString();
+    }
+
+    private static String seconds(long millis) {
+        return String.format(Locale.US, "%.3f", millis / 1000.0);
+    }
+
+    private void load() {
+        if (!stateFile.exists()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new FileInputStream(stateFile))) {
+            if (in.readInt() != STATE_VERSION || in.readInt() != BUCKETS.length) {
+                Log.w(TAG, "Discarding config metrics with an old layout");
+                return;
+            }
+            int series = in.readInt();
+            for (int s = 0; s < series; s++) {
+                String key = in.readUTF();
+                Histogram histogram = new Histogram();
+                for (int i = 0; i <= BUCKETS.length; i++) {
+                    histogram.counts[i] = in.readLong();
+                }
+                histogram.count = in.readLong();
+                histogram.sumMillis = in.readLong();
+                histograms.put(key, histogram);
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to load config metrics, starting fresh", e);
+            histograms.clear();
+        }
+    }
+
+    private void writeState() throws IOException {
+        File tmp = new File(stateFile.getPath() + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(tmp);
+             DataOutputStream out = new DataOutputStream(file)) {
+            out.writeInt(STATE_VERSION);
+            out.writeInt(BUCKETS.length);
+            out.writeInt(histograms.size());
+            for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+                out.writeUTF(entry.getKey());
+                Histogram histogram = entry.getValue();
+                for (long count : histogram.counts) {
+                    out.writeLong(count);
+                }
+                out.writeLong(histogram.count);
+                out.writeLong(histogram.sumMillis);
+            }
+            out.flush();
+            file.getFD().sync();
+        }
+        if (!tmp.renameTo(stateFile)) {
+            throw new IOException("Failed to replace " + stateFile);
+        }
+    }
+
+    private void writeExport() throws IOException {
+        File tmp = new File(exportFile.getPath() + ".tmp");
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8)) {
+            out.write(toPrometheusText());
+        }
+        if (!tmp.renameTo(exportFile)) {
+            throw new IOException("Failed to replace " + exportFile);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.kidsim.tvkiosk.config;
+
+import android.util.Log;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Publishes configuration snapshots through a single atomic reference and
+ * dispatches them to listeners on the executor each listener subscribed with.
+ *
+ * Every fetch attempt takes a sequence number up front. A result from an
+ * attempt older than the one behind the current snapshot is dropped, so a
+ * slow source can never overwrite a newer configuration.
+ */
+public class ConfigPublisher {
+    private static final String TAG = "ConfigPublisher";
+
+    private final AtomicReference<ConfigSnapshot> current = new AtomicReference<>();
+    private final AtomicLong attempts = new AtomicLong();
+    private final List<Registration> registrations = new CopyOnWriteArrayList<>();
+
+    private static class Registration {
+        final Executor executor;
+        final ConfigurationManager.ConfigUpdateListener listener;
+        final AtomicLong lastDeliveredVersion = new AtomicLong();
+
+        Registration(Executor executor, ConfigurationManager.ConfigUpdateListener listener) {
+            this.executor = executor;
+            this.listener = listener;
+        }
+    }
+
+    /**
+     * Start a new fetch attempt
+     *
+     * @return sequence number to pass to publish() and publishError()
+     */
+    public long beginAttempt() {
+        return attempts.incrementAndGet();
+    }
+
+    public ConfigSnapshot getCurrent() {
+        return current.get();
+    }
+
+    public void addListener(Executor executor, ConfigurationManager.ConfigUpdateListener listener) {
+        registrations.add(new Registration(executor, listener));
+    }
+
+    public void removeListener(ConfigurationManager.ConfigUpdateListener listener) {
+        for (Registration registration : registrations) {
+            if (registration.listener == listener) {
+                registrations.remove(registration);
+            }
+        }
+    }
+
+    /**
+     * Publish a configuration produced by the given attempt
+     *
+     * @return the published snapshot, or null if the result was stale
+     */
+    public ConfigSnapshot publish(long attempt, String source, DeviceConfig config) {
+        while (true) {
+            ConfigSnapshot previous = current.get();
+            if (previous != null && attempt < previous.getAttempt()) {
+                Log.i(TAG, "Dropping stale " + source + " config from attempt " + attempt
+                    + ", current is " + previous);
+                return null;
+            }
+
+            long version = previous != null ? previous.getVersion() + 1 : 1;
+            ConfigSnapshot snapshot = new ConfigSnapshot(version, attempt, source,
+                System.currentTimeMillis(), config);
+
+            if (current.compareAndSet(previous, snapshot)) {
+                Log.i(TAG, "Published " + snapshot);
+                dispatch(snapshot);
+                return snapshot;
+            }
+        }
+    }
+
+    /**
+     * Report a failed attempt to listeners, unless a newer attempt already published
+     */
+    public void publishError(long attempt, String error) {
+        ConfigSnapshot snapshot = current.get();
+        if (snapshot != null && attempt < snapshot.getAttempt()) {
+            Log.d(TAG, "Dropping stale error from attempt " + attempt + ": " + error);
+            return;
+        }
+
+        for (Registration registration : registrations) {
+            registration.executor.execute(() -> registration.listener.onConfigError(error));
+        }
+    }
+
+    private void dispatch(ConfigSnapshot snapshot) {
+        for (Registration registration : registrations) {
+            registration.executor.execute(() -> {
+                // Deliveries can race across publishing threads, never go backwards
+                long delivered = registration.lastDeliveredVersion.get();
+                while (snapshot.getVersion() > delivered) {
+                    if (registration.lastDeliveredVersion.compareAndSet(delivered, snapshot.getVersion())) {
+                        registration.listener.onConfigUpdated(snapshot);
+                        return;
+                    }
+                    delivered = registration.lastDeliveredVersion.get();
+                }
+            });
+        }
+    }
+}
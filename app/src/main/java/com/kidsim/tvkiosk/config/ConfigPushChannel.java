@@ -0,0 +1,250 @@
+package com.kidsim.tvkiosk.config;
+
+import android.net.Uri;
+import android.os.SystemClock;
+import android.util.Log;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import org.json.JSONObject;
+
+/**
+ * Holds a long-lived connection to a control endpoint that announces config
+ * versions, so a change reaches the screen in seconds instead of at the next
+ * poll. The channel only signals; the config itself is still fetched through
+ * the normal path, and periodic polling keeps running as the fallback.
+ *
+ * Two protocols are supported, selected by "pushChannel.type" in config.json:
+ *
+ *   longpoll - GET url?version=V&deviceId=D. The server holds the request until
+ *              the version differs from V (200, body is the version as plain
+ *              text or {"version": ...}) or its own timeout passes (204/304).
+ *   sse      - GET url with Accept: text/event-stream. Each event's data is the
+ *              current version; comment lines can be used as keepalives.
+ *
+ * The first version seen only sets the baseline. Any later change, including
+ * one that happened while disconnected, is reported to the listener.
+ */
+public class ConfigPushChannel {
+    private static final String TAG = "ConfigPushChannel";
+
+    public static final String TYPE_LONG_POLL = "longpoll";
+    public static final String TYPE_SSE = "sse";
+
+    private static final int CONNECT_TIMEOUT = 10000;
+    private static final int LONG_POLL_READ_TIMEOUT = 120 * 1000; // server should answer within 90s
+    private static final int SSE_READ_TIMEOUT = 5 * 60 * 1000; // without a keepalive the stream is dead
+    private static final long RECONNECT_MIN_DELAY = 5 * 1000;
+    private static final long RECONNECT_MAX_DELAY = 10 * 60 * 1000;
+    // A round that ends sooner than this is followed by a backed-off pause
+    private static final long MIN_ROUND_DURATION = RECONNECT_MIN_DELAY;
+
+    public interface Listener {
+        void onVersionChanged(String version);
+    }
+
+    private final String url;
+    private final String type;
+    private final String deviceId;
+    private final Listener listener;
+    private final BackoffPolicy reconnectBackoff = new BackoffPolicy(RECONNECT_MIN_DELAY, RECONNECT_MAX_DELAY);
+
+    private volatile boolean running = false;
+    private volatile HttpURLConnection activeConnection;
+    private Thread thread;
+    private String lastVersion;
+
+    public ConfigPushChannel(String url, String type, String deviceId, Listener listener) {
+        this.url = url;
+        this.type = TYPE_SSE.equalsIgnoreCase(type) ? TYPE_SSE : TYPE_LONG_POLL;
+        this.deviceId = deviceId;
+        this.listener = listener;
+    }
+
+    public String getUrl() { return url; }
+    public String getType() { return type; }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::runLoop, TAG);
+        thread.setDaemon(true);
+        thread.start();
+        Log.i(TAG, "Push channel started: " + type + " " + url);
+    }
+
+    public synchronized void stop() {
+        running = false;
+        HttpURLConnection connection = activeConnection;
+        if (connection != null) {
+            // Unblocks a pending read
+            connection.disconnect();
+        }
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    private void runLoop() {
+        int failures = 0;
+        int quickRounds = 0;
+        while (running) {
+            long roundStart = SystemClock.elapsedRealtime();
+            long delay;
+            try {
+                if (TYPE_SSE.equals(type)) {
+                    readEventStream();
+                } else {
+                    longPollOnce();
+                }
+                failures = 0;
+                if (SystemClock.elapsedRealtime() - roundStart >= MIN_ROUND_DURATION) {
+                    quickRounds = 0;
+                    continue;
+                }
+                // A server or proxy answering at once, or a stream that closes right
+                // away, would otherwise turn this into a tight request loop
+                delay = reconnectBackoff.getDelayMillis(quickRounds++);
+                Log.w(TAG, "Push channel returned at once, reconnecting in " + (delay / 1000) + "s");
+            } catch (Exception e) {
+                if (!running) {
+                    break;
+                }
+                delay = reconnectBackoff.getDelayMillis(failures++);
+                Log.w(TAG, "Push channel error, reconnecting in " + (delay / 1000) + "s: " + e.getMessage());
+            }
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException ie) {
+                break;
+            }
+        }
+        Log.i(TAG, "Push channel stopped");
+    }
+
+    private void longPollOnce() throws IOException {
+        Uri.Builder builder = Uri.parse(url).buildUpon();
+        if (lastVersion != null) {
+            builder.appendQueryParameter("version", lastVersion);
+        }
+        builder.appendQueryParameter("deviceId", deviceId);
+
+        HttpURLConnection connection = open(builder.build().toString(), LONG_POLL_READ_TIMEOUT);
+        try {
+            int responseCode = connection.getResponseCode();
+            if (responseCode == HttpURLConnection.HTTP_NO_CONTENT
+                    || responseCode == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                return; // Server timeout without a change, ask again
+            }
+            if (responseCode != HttpURLConnection.HTTP_OK) {
+                throw new IOException("HTTP error: " + responseCode);
+            }
+
+            StringBuilder body = new StringBuilder();
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    body.append(line);
+                }
+            }
+            onVersion(parseVersion(body.toString()));
+        } finally {
+            activeConnection = null;
+            connection.disconnect();
+        }
+    }
+
+    private void readEventStream() throws IOException {
+        HttpURLConnection connection = open(url, SSE_READ_TIMEOUT);
+        connection.setRequestProperty("Accept", "text/event-stream");
+        connection.setRequestProperty("Cache-Control", "no-cache");
+        if (lastVersion != null) {
+            connection.setRequestProperty("Last-Event-ID", lastVersion);
+        }
+        try {
+            int responseCode = connection.getResponseCode();
+            if (responseCode != HttpURLConnection.HTTP_OK) {
+                throw new IOException("HTTP error: " + responseCode);
+            }
+
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+                StringBuilder data = new StringBuilder();
+                String line;
+                while (running && (line = reader.readLine()) != null) {
+                    if (line.isEmpty()) {
+                        // Blank line dispatches the event
+                        if (data.length() > 0) {
+                            onVersion(parseVersion(data.toString()));
+                            data.setLength(0);
+                        }
+                    } else if (line.startsWith("data:")) {
+                        if (data.length() > 0) {
+                            data.append('\n');
+                        }
+                        data.append(line.substring(5).trim());
+                    }
+                    // Comments (":") and other fields are ignored
+                }
+            }
+            if (running) {
+                throw new IOException("Event stream closed by server");
+            }
+        } finally {
+            activeConnection = null;
+            connection.disconnect();
+        }
+    }
+
+    private HttpURLConnection open(String urlString, int readTimeout) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(urlString).openConnection();
+        connection.setRequestMethod("GET");
+        connection.setConnectTimeout(CONNECT_TIMEOUT);
+        connection.setReadTimeout(readTimeout);
+        connection.setUseCaches(false);
+        connection.setRequestProperty("User-Agent", "KioskTV-Android");
+        activeConnection = connection;
+        if (!running) {
+            connection.disconnect();
+            throw new IOException("Push channel stopped");
+        }
+        return connection;
+    }
+
+    private static String parseVersion(String body) {
+        String trimmed = body.trim();
+        if (trimmed.startsWith("{")) {
+            try {
+                return new JSONObject(trimmed).optString("version", null);
+            } catch (Exception e) {
+                Log.w(TAG, "Invalid version payload: " + trimmed);
+                return null;
+            }
+        }
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    private void onVersion(String version) {
+        if (version == null || version.equals(lastVersion)) {
+            return;
+        }
+        String previous = lastVersion;
+        lastVersion = version;
+        if (previous == null) {
+            Log.d(TAG, "Push channel baseline version: " + version);
+            return;
+        }
+
+        Log.i(TAG, "Config version changed " + previous + " -> " + version);
+        if (running) {
+            listener.onVersionChanged(version);
+        }
+    }
+}
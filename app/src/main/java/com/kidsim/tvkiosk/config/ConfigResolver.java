@@ -0,0 +1,262 @@
+package com.kidsim.tvkiosk.config;
+
+import android.util.Log;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolves a device configuration from several sources at once.
+ *
+ * Each source starts after its own hedge delay instead of waiting for the
+ * previous one to fail. A result from a source of the highest freshness is
+ * final as soon as it arrives; the remaining sources are cancelled. A result
+ * from a less fresh source (e.g. the stored last-good config) is held and only
+ * used once every fresher source has failed. A source that has not started
+ * yet when a fresher one fails is started right away.
+ *
+ * The listener is always called without the resolver's lock held, as it may
+ * block on page checks or disk writes while other sources report back.
+ */
+public class ConfigResolver {
+    private static final String TAG = "ConfigResolver";
+
+    public interface SourceCallback {
+        void onResult(DeviceConfig config);
+        void onFailure(String error);
+    }
+
+    public interface Source {
+        /**
+         * Start resolving; report through the callback exactly once. May block.
+         */
+        void start(SourceCallback callback);
+
+        /**
+         * The result is no longer needed. Called at most once, possibly before start.
+         */
+        void cancel();
+    }
+
+    public interface Listener {
+        void onResolved(String sourceName, DeviceConfig config);
+        void onFailed(String error);
+
+        /**
+         * A source reported back, win or lose. Not called for cancelled sources.
+         */
+        void onSourceFinished(String sourceName, boolean success, long elapsedMillis);
+    }
+
+    private enum Status { PENDING, RUNNING, SUCCEEDED, FAILED, CANCELLED }
+
+    private static class Entry {
+        final String name;
+        final int freshness;
+        final long hedgeDelayMillis;
+        final Source source;
+        Status status = Status.PENDING;
+        ScheduledFuture<?> startFuture;
+        long startedAt;
+        DeviceConfig result;
+        String error;
+
+        Entry(String name, int freshness, long hedgeDelayMillis, Source source) {
+            this.name = name;
+            this.freshness = freshness;
+            this.hedgeDelayMillis = hedgeDelayMillis;
+            this.source = source;
+        }
+    }
+
+    private final ConfigExecutor executor;
+    private final List<Entry> entries = new ArrayList<>();
+    private Listener listener;
+    private long roundStart;
+    private boolean done = false;
+
+    public ConfigResolver(ConfigExecutor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * @param freshness        higher values win over lower ones
+     * @param hedgeDelayMillis delay before this source starts, unless fresher sources fail first
+     */
+    public synchronized ConfigResolver addSource(String name, int freshness, long hedgeDelayMillis, Source source) {
+        entries.add(new Entry(name, freshness, hedgeDelayMillis, source));
+        return this;
+    }
+
+    public void start(Listener listener) {
+        Runnable outcome;
+        synchronized (this) {
+            this.listener = listener;
+            this.roundStart = System.currentTimeMillis();
+
+            if (!entries.isEmpty()) {
+                for (Entry entry : entries) {
+                    entry.startFuture = executor.schedule(ConfigExecutor.Priority.HIGH, () -> startEntry(entry),
+                        entry.hedgeDelayMillis, TimeUnit.MILLISECONDS);
+                }
+                return;
+            }
+            outcome = finish(null, "No configuration sources available");
+        }
+        outcome.run();
+    }
+
+    private void startEntry(Entry entry) {
+        synchronized (this) {
+            if (done || entry.status != Status.PENDING) {
+                return;
+            }
+            entry.status = Status.RUNNING;
+            entry.startedAt = System.currentTimeMillis();
+        }
+
+        try {
+            entry.source.start(new SourceCallback() {
+                @Override
+                public void onResult(DeviceConfig config) {
+                    onEntryFinished(entry, config, null);
+                }
+
+                @Override
+                public void onFailure(String error) {
+                    onEntryFinished(entry, null, error);
+                }
+            });
+        } catch (RuntimeException e) {
+            onEntryFinished(entry, null, e.getMessage());
+        }
+    }
+
+    private void onEntryFinished(Entry entry, DeviceConfig config, String error) {
+        long elapsed;
+        Runnable outcome = null;
+        synchronized (this) {
+            if (entry.status != Status.RUNNING) {
+                // Cancelled or already reported
+                return;
+            }
+            long now = System.currentTimeMillis();
+            elapsed = now - entry.startedAt;
+            if (config != null) {
+                entry.status = Status.SUCCEEDED;
+                entry.result = config;
+                Log.i(TAG, entry.name + " resolved in " + elapsed + "ms ("
+                    + (now - roundStart) + "ms into round)");
+            } else {
+                entry.status = Status.FAILED;
+                entry.error = error;
+                Log.w(TAG, entry.name + " failed in " + elapsed + "ms: " + error);
+            }
+            if (!done) {
+                outcome = evaluate();
+            }
+        }
+
+        listener.onSourceFinished(entry.name, config != null, elapsed);
+        if (outcome != null) {
+            outcome.run();
+        }
+    }
+
+    /**
+     * Pick a winner if one is known, otherwise start any source that is now the best hope
+     *
+     * @return the listener call for the outcome, to be run after releasing the lock, or null if undecided
+     */
+    private Runnable evaluate() {
+        int bestPossible = Integer.MIN_VALUE;
+        Entry bestResult = null;
+        for (Entry entry : entries) {
+            if (entry.status == Status.PENDING || entry.status == Status.RUNNING) {
+                bestPossible = Math.max(bestPossible, entry.freshness);
+            } else if (entry.status == Status.SUCCEEDED
+                    && (bestResult == null || entry.freshness > bestResult.freshness)) {
+                bestResult = entry;
+            }
+        }
+
+        if (bestResult != null && bestResult.freshness >= bestPossible) {
+            return finish(bestResult, null);
+        }
+        if (bestPossible == Integer.MIN_VALUE) {
+            return finish(null, describeFailures());
+        }
+
+        // A fresher source failed; stop hedging the remaining fresh ones
+        for (Entry entry : entries) {
+            if (entry.status == Status.PENDING && entry.freshness == bestPossible && !hasRunning(bestPossible)) {
+                entry.startFuture.cancel(false);
+                executor.execute(ConfigExecutor.Priority.HIGH, () -> startEntry(entry));
+            }
+        }
+        return null;
+    }
+
+    private boolean hasRunning(int freshness) {
+        for (Entry entry : entries) {
+            if (entry.status == Status.RUNNING && entry.freshness == freshness) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Mark the round done and cancel what is left
+     *
+     * @return the listener call, to be run after releasing the lock
+     */
+    private Runnable finish(Entry winner, String error) {
+        done = true;
+
+        StringBuilder report = new StringBuilder();
+        for (Entry entry : entries) {
+            if (entry.status == Status.PENDING || entry.status == Status.RUNNING) {
+                if (entry.startFuture != null) {
+                    entry.startFuture.cancel(false);
+                }
+                boolean wasRunning = entry.status == Status.RUNNING;
+                entry.status = Status.CANCELLED;
+                try {
+                    entry.source.cancel();
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "Error cancelling " + entry.name, e);
+                }
+                if (wasRunning) {
+                    report.append(' ').append(entry.name).append("=cancelled after ")
+                        .append(System.currentTimeMillis() - entry.startedAt).append("ms");
+                } else {
+                    report.append(' ').append(entry.name).append("=not started");
+                }
+            } else {
+                report.append(' ').append(entry.name).append('=').append(entry.status.name().toLowerCase());
+            }
+        }
+
+        long elapsed = System.currentTimeMillis() - roundStart;
+        if (winner != null) {
+            Log.i(TAG, "Config resolved by " + winner.name + " in " + elapsed + "ms;" + report);
+            String name = winner.name;
+            DeviceConfig result = winner.result;
+            return () -> listener.onResolved(name, result);
+        }
+        Log.w(TAG, "Config resolution failed after " + elapsed + "ms;" + report);
+        return () -> listener.onFailed(error);
+    }
+
+    private String describeFailures() {
+        StringBuilder message = new StringBuilder("All configuration sources failed");
+        for (Entry entry : entries) {
+            if (entry.error != null) {
+                message.append("; ").append(entry.name).append(": ").append(entry.error);
+            }
+        }
+        return message.toString();
+    }
+}
@@ -0,0 +1,47 @@
+package com.kidsim.tvkiosk.config;
+
+/**
+ * Immutable, versioned view of the device configuration as published by
+ * ConfigurationManager. Versions increase monotonically within a process.
+ */
+public final class ConfigSnapshot {
+    public static final String SOURCE_STORED = "stored";
+    public static final String SOURCE_GITHUB = "github";
+    public static final String SOURCE_SHEETS = "sheets";
+    public static final String SOURCE_FALLBACK = "fallback";
+
+    private final long version;
+    private final long attempt;
+    private final String source;
+    private final long publishedAt;
+    private final DeviceConfig config;
+
+    ConfigSnapshot(long version, long attempt, String source, long publishedAt, DeviceConfig config) {
+        this.version = version;
+        this.attempt = attempt;
+        this.source = source;
+        this.publishedAt = publishedAt;
+        this.config = config.toImmutable();
+    }
+
+    public long getVersion() { return version; }
+
+    /**
+     * Sequence number of the fetch attempt that produced this snapshot
+     */
+    public long getAttempt() { return attempt; }
+
+    public String getSource() { return source; }
+    public long getPublishedAt() { return publishedAt; }
+
+    /**
+     * Immutable configuration, safe to read from any thread
+     */
+    public DeviceConfig getConfig() { return config; }
+
+    @Override
+    public String toString() {
+        return "ConfigSnapshot{v" + version + ", attempt=" + attempt + ", source=" + source
+            + ", pages=" + (config.getPages() != null ? config.getPages().size() : 0) + "}";
+    }
+}
@@ -0,0 +1,221 @@
+package com.kidsim.tvkiosk.config;
+
+import android.content.Context;
+import android.util.Log;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Persists the last good resolved device configuration, so the kiosk can
+ * build its page pool from disk at boot instead of waiting for the network.
+ *
+ * File layout (big-endian):
+ *
+ *   int magic "KCFG" | int format version | int payload length | int CRC32 of payload | payload
+ *
+ * The payload holds the snapshot source, save time and every DeviceConfig and
+ * PageConfig field. Writes go to a temp file that is synced and renamed over
+ * the old one, so a power cut leaves either the old or the new file. A file
+ * with a bad magic, version, length or checksum is ignored.
+ */
+public class ConfigStore {
+    private static final String TAG = "ConfigStore";
+    private static final String FILE_NAME = "config.bin";
+
+    private static final int MAGIC = 0x4B434647; // "KCFG"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int MAX_PAYLOAD_SIZE = 1024 * 1024;
+
+    /**
+     * A configuration as loaded from the store
+     */
+    public static class StoredConfig {
+        private final String source;
+        private final long savedAt;
+        private final DeviceConfig config;
+
+        StoredConfig(String source, long savedAt, DeviceConfig config) {
+            this.source = source;
+            this.savedAt = savedAt;
+            this.config = config;
+        }
+
+        /**
+         * Snapshot source the config was originally published from
+         */
+        public String getSource() { return source; }
+        public long getSavedAt() { return savedAt; }
+        public DeviceConfig getConfig() { return config; }
+    }
+
+    private final File file;
+
+    public ConfigStore(Context context) {
+        this(new File(context.getFilesDir(), FILE_NAME));
+    }
+
+    public ConfigStore(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Atomically replace the stored configuration
+     */
+    public synchronized void save(String source, DeviceConfig config) throws IOException {
+        byte[] payload = encode(source, System.currentTimeMillis(), config);
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(payload.length).putInt((int) crc.getValue());
+
+        File tmp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            out.write(header.array());
+            out.write(payload);
+            out.getFD().sync();
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Failed to replace " + file);
+        }
+        Log.d(TAG, "Stored " + source + " config, " + (HEADER_SIZE + payload.length) + " bytes");
+    }
+
+    /**
+     * Load the stored configuration as an immutable object
+     *
+     * @return the stored config, or null if there is none or it is invalid
+     */
+    public synchronized StoredConfig load() {
+        if (!file.exists()) {
+            return null;
+        }
+
+        long start = System.nanoTime();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > HEADER_SIZE + MAX_PAYLOAD_SIZE) {
+                Log.w(TAG, "Ignoring stored config with bad size " + size);
+                return null;
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int magic = buffer.getInt();
+            int version = buffer.getInt();
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (magic != MAGIC || version != FORMAT_VERSION || length != size - HEADER_SIZE) {
+                Log.w(TAG, "Ignoring stored config with bad header (version " + version + ")");
+                return null;
+            }
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                Log.w(TAG, "Ignoring stored config with bad checksum");
+                return null;
+            }
+
+            StoredConfig stored = decode(buffer);
+            Log.i(TAG, "Loaded stored " + stored.getSource() + " config in "
+                + String.format("%.2f", (System.nanoTime() - start) / 1e6) + "ms");
+            return stored;
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to load stored config", e);
+            return null;
+        }
+    }
+
+    private static byte[] encode(String source, long savedAt, DeviceConfig config) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        writeString(out, source);
+        out.writeLong(savedAt);
+        writeString(out, config.getDeviceId());
+        writeString(out, config.getDeviceName());
+        writeString(out, config.getOrientation());
+        out.writeInt(config.getRefreshIntervalMinutes());
+        out.writeBoolean(config.isAutoStart());
+        out.writeBoolean(config.isClearCache());
+        writeString(out, config.getConfigVersion());
+
+        List<PageConfig> pages = config.getPages();
+        int pageCount = pages != null ? pages.size() : 0;
+        out.writeInt(pageCount);
+        for (int i = 0; i < pageCount; i++) {
+            PageConfig page = pages.get(i);
+            writeString(out, page.getUrl());
+            out.writeInt(page.getDisplayTimeSeconds());
+            writeString(out, page.getTitle());
+        }
+
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static StoredConfig decode(ByteBuffer in) throws IOException {
+        String source = readString(in);
+        long savedAt = in.getLong();
+
+        DeviceConfig config = new DeviceConfig();
+        config.setDeviceId(readString(in));
+        config.setDeviceName(readString(in));
+        config.setOrientation(readString(in));
+        config.setRefreshIntervalMinutes(in.getInt());
+        config.setAutoStart(in.get() != 0);
+        config.setClearCache(in.get() != 0);
+        config.setConfigVersion(readString(in));
+
+        int pageCount = in.getInt();
+        if (pageCount < 0 || pageCount > in.remaining()) {
+            throw new IOException("Bad page count " + pageCount);
+        }
+        List<PageConfig> pages = new ArrayList<>(pageCount);
+        for (int i = 0; i < pageCount; i++) {
+            PageConfig page = new PageConfig(readString(in), in.getInt());
+            page.setTitle(readString(in));
+            pages.add(page);
+        }
+        config.setPages(pages);
+
+        return new StoredConfig(source, savedAt, config.toImmutable());
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) throws IOException {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > in.remaining()) {
+            throw new IOException("Bad string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -5,19 +5,23 @@ import android.content.SharedPreferences;
 import android.os.Build;
 import android.provider.Settings;
 import android.util.Log;
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.StringReader;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class ConfigurationManager {
     private static final String TAG = "ConfigurationManager";
@@ -31,90 +35,696 @@ public class ConfigurationManager {
     private static final String TEST_CONFIG_URL = 
         "https://raw.githubusercontent.com/KidsInternationalMinistries/KIDSAndroidTVKiosk/test/config.json";
     
+    // Failure handling: retry backoff and per-source circuit breakers
+    static final long RETRY_MIN_DELAY = 60 * 1000; // 1 minute
+    static final long RETRY_MAX_DELAY = 60 * 60 * 1000; // 1 hour
+    static final int BREAKER_FAILURE_THRESHOLD = 3;
+    static final long BREAKER_BASE_OPEN = 5 * 60 * 1000; // 5 minutes
+    static final long BREAKER_MAX_OPEN = 4 * 60 * 60 * 1000; // 4 hours
+    
+    // Hedged resolution: Sheets starts directly if GitHub hasn't answered by then
+    private static final long SHEETS_HEDGE_DELAY = 3000;
+    private static final int FRESHNESS_STORED = 0;
+    private static final int FRESHNESS_NETWORK = 1;
+    
+    // The first fetch after start waits for this device's slot in this window, see FleetStagger
+    private static final long STARTUP_STAGGER_WINDOW = 5 * 60 * 1000; // 5 minutes
+    
+    // Metrics are written to disk at most this often and at shutdown; nobody reads them live
+    private static final long METRICS_FLUSH_DELAY = 5 * 60 * 1000; // 5 minutes
+    
+    // A new playlist with fewer reachable pages than this is not put on screen
+    private static final double MIN_HEALTHY_PAGE_FRACTION = 0.5;
+    
+    // Devices that should use the test configuration
+    private static final Set<String> TEST_DEVICE_IDS = new HashSet<>(Arrays.asList(
+        "test",                 // Your test Android TV device
+        "382a9b8d8e53e5df",     // Your phone device ID (actual from logs)
+        "bd97668be0c1ef6e",     // Your phone device ID (from ADB command)
+        "33021JEHN03011"        // Your phone ADB serial (backup)
+        // "abc123def456",      // Add more test device IDs here
+        // "test_device_01",    // Test TV #1
+        // "test_device_02"     // Test TV #2
+    ));
+    
     private Context context;
     private SharedPreferences prefs;
-    private ExecutorService executor;
-    private ConfigUpdateListener listener;
+    private final ConfigStore configStore;
+    private final ConfigMetrics metrics;
+    private final ConfigExecutor executor;
+    private final ConfigPublisher publisher = new ConfigPublisher();
+    private final PageUrlValidator pageValidator = new PageUrlValidator();
+    private final ReachabilityProber reachabilityProber = new ReachabilityProber();
+    private final CircuitBreaker githubBreaker =
+        new CircuitBreaker("GitHub", BREAKER_FAILURE_THRESHOLD, BREAKER_BASE_OPEN, BREAKER_MAX_OPEN);
+    private final CircuitBreaker sheetsBreaker =
+        new CircuitBreaker("Sheets", BREAKER_FAILURE_THRESHOLD, BREAKER_BASE_OPEN, BREAKER_MAX_OPEN);
+    private final ConfigFetchScheduler fetchScheduler;
+    private ConfigPushChannel pushChannel;
+    private final Object metricsFlushLock = new Object();
+    private ScheduledFuture<?> metricsFlush;
     private GoogleSheetsConfigLoader sheetsLoader;
     private DeviceIdManager deviceIdManager;
     
+    // Values read once and kept until their source changes
+    private final Memo<String> deviceIdMemo = new Memo<>("deviceId", this::readDeviceId);
+    private final Memo<Boolean> testConfigMemo = new Memo<>("testConfig", this::readUseTestConfig);
+    private final Memo<ConfigJsonReader.ConfigDocument> assetDocumentMemo =
+        new Memo<>("assetDocument", this::readLocalConfigFromAssets);
+    private final Memo<ConfigJsonReader.ConfigDocument> storedDocumentMemo =
+        new Memo<>("storedDocument", this::readStoredDocument);
+    private final Memo<ConfigStore.StoredConfig> storedConfigMemo =
+        new Memo<>("storedConfig", this::readStoredConfig);
+    private final Memo<DeviceConfig> bootConfigMemo = new Memo<>("bootConfig", this::readBootConfig);
+    private final Memo<FleetStagger> staggerMemo = new Memo<>("fleetStagger", this::readFleetStagger);
+    
+    private final SharedPreferences.OnSharedPreferenceChangeListener configPrefsListener = (sharedPrefs, key) -> {
+        if (key == null || KEY_CONFIG_JSON.equals(key)) {
+            storedDocumentMemo.invalidate();
+            bootConfigMemo.invalidate();
+        }
+    };
+    
+    private final SharedPreferences.OnSharedPreferenceChangeListener devicePrefsListener = (sharedPrefs, key) -> {
+        // The stored config is only valid for the device ID it was resolved for
+        storedConfigMemo.invalidate();
+        bootConfigMemo.invalidate();
+        staggerMemo.invalidate();
+    };
+    
     public interface ConfigUpdateListener {
-        void onConfigUpdated(DeviceConfig config);
+        void onConfigUpdated(ConfigSnapshot snapshot);
         void onConfigError(String error);
     }
     
-    public ConfigurationManager(Context context) {
+    private static ConfigurationManager instance;
+    
+    /**
+     * Get the process-wide configuration manager. All config, Sheets and
+     * device-list I/O in the app goes through its single executor.
+     */
+    public static synchronized ConfigurationManager getInstance(Context context) {
+        if (instance == null) {
+            instance = new ConfigurationManager(context.getApplicationContext());
+        }
+        return instance;
+    }
+    
+    private ConfigurationManager(Context context) {
         this.context = context;
         this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        this.executor = Executors.newSingleThreadExecutor();
+        this.configStore = new ConfigStore(context);
+        this.metrics = new ConfigMetrics(context);
+        this.executor = new ConfigExecutor();
         this.deviceIdManager = new DeviceIdManager(context);
+        prefs.registerOnSharedPreferenceChangeListener(configPrefsListener);
+        deviceIdManager.registerOnChangeListener(devicePrefsListener);
+        this.fetchScheduler = new ConfigFetchScheduler(executor,
+            callback -> runFetchAttempt(null, callback),
+            new BackoffPolicy(RETRY_MIN_DELAY, RETRY_MAX_DELAY),
+            interval -> staggerMemo.get().getDelayToNextSlot(System.currentTimeMillis(), interval));
+    }
+    
+    /**
+     * Start polling for configuration changes. Failures retry sooner with
+     * backoff and jitter, but never more often than the breakers allow.
+     */
+    public void startPeriodicUpdates(long intervalMillis) {
+        fetchScheduler.start(intervalMillis);
+    }
+    
+    public void stopPeriodicUpdates() {
+        fetchScheduler.stop();
+    }
+    
+    /**
+     * Fetch configuration now; the periodic schedule continues from this attempt
+     */
+    public void requestUpdate() {
+        fetchScheduler.runNow();
+    }
+    
+    /**
+     * First fetch after start. With a stored config to show it waits for this
+     * device's slot in STARTUP_STAGGER_WINDOW, so a venue's TVs coming back
+     * from a power cut don't all fetch at once.
+     */
+    public void requestStartupUpdate() {
+        if (storedConfigMemo.get() == null) {
+            requestUpdate();
+            return;
+        }
+        long delay = staggerMemo.get().getDelayWithin(STARTUP_STAGGER_WINDOW);
+        Log.i(TAG, "Startup config fetch in " + (delay / 1000) + "s");
+        fetchScheduler.runAfter(delay);
+    }
+    
+    /**
+     * Phase of this device's periodic work within the fleet
+     */
+    public FleetStagger getFleetStagger() {
+        return staggerMemo.get();
+    }
+    
+    /**
+     * Fetch now after the device got its network back. Failures while offline
+     * tripped the breakers without saying anything about the sources.
+     */
+    public void onNetworkRestored() {
+        reachabilityProber.invalidate();
+        githubBreaker.reset();
+        sheetsBreaker.reset();
+        requestUpdate();
+    }
+    
+    /**
+     * Prober for the config and page hosts. Fetch attempts update its targets
+     * and skip the network while it reports them unreachable.
+     */
+    public ReachabilityProber getReachabilityProber() {
+        return reachabilityProber;
+    }
+    
+    /**
+     * Subscribe to configuration snapshots, delivered on the given executor
+     */
+    public void addConfigUpdateListener(Executor callbackExecutor, ConfigUpdateListener listener) {
+        publisher.addListener(callbackExecutor, listener);
+    }
+    
+    public void removeConfigUpdateListener(ConfigUpdateListener listener) {
+        publisher.removeListener(listener);
     }
     
-    public void setConfigUpdateListener(ConfigUpdateListener listener) {
-        this.listener = listener;
+    /**
+     * Get the latest published snapshot, or null if nothing has been published yet
+     */
+    public ConfigSnapshot getCurrentSnapshot() {
+        return publisher.getCurrent();
     }
     
+    /**
+     * Get the current configuration as an immutable object
+     */
     public DeviceConfig getCurrentConfig() {
-        String configJson = prefs.getString(KEY_CONFIG_JSON, null);
-        if (configJson != null) {
+        ConfigSnapshot snapshot = publisher.getCurrent();
+        if (snapshot != null) {
+            return snapshot.getConfig();
+        }
+        return bootConfigMemo.get();
+    }
+    
+    private FleetStagger readFleetStagger() {
+        // The Android ID keeps TVs that share a configured device ID apart
+        return new FleetStagger(deviceIdManager.getDeviceId() + "/" + getDeviceId());
+    }
+    
+    private DeviceConfig readBootConfig() {
+        // Last resolved config, so boot doesn't wait for the network
+        ConfigStore.StoredConfig stored = storedConfigMemo.get();
+        if (stored != null) {
+            return stored.getConfig();
+        }
+        
+        ConfigJsonReader.ConfigDocument document = storedDocumentMemo.get();
+        if (document != null) {
+            return document.getDeviceConfig().toImmutable();
+        }
+        return getDefaultConfig().toImmutable();
+    }
+    
+    /**
+     * Cache hit and miss counts, for diagnostics
+     */
+    public String getCacheStats() {
+        return deviceIdMemo + ", " + testConfigMemo + ", " + assetDocumentMemo + ", "
+            + storedDocumentMemo + ", " + storedConfigMemo + ", " + bootConfigMemo + ", " + staggerMemo;
+    }
+    
+    /**
+     * Per-stage fetch and apply timings. The same histograms are exported to
+     * filesDir/config_metrics.prom every few minutes while they change.
+     */
+    public ConfigMetrics getMetrics() {
+        return metrics;
+    }
+    
+    /**
+     * Record how long applying a published snapshot took on screen
+     */
+    public void recordApplyTime(String source, boolean success, long millis) {
+        metrics.record(source, ConfigMetrics.STAGE_APPLY, success, millis);
+        scheduleMetricsFlush();
+    }
+    
+    /**
+     * Record how long a page took to load in the WebView pool
+     */
+    public void recordPageLoad(boolean warm, boolean success, long millis) {
+        metrics.record(warm ? ConfigMetrics.SOURCE_PAGE_WARM : ConfigMetrics.SOURCE_PAGE_COLD,
+            ConfigMetrics.STAGE_PAGE_LOAD, success, millis);
+        scheduleMetricsFlush();
+    }
+    
+    /**
+     * Write the metrics within METRICS_FLUSH_DELAY, batching everything recorded until then
+     */
+    private void scheduleMetricsFlush() {
+        synchronized (metricsFlushLock) {
+            if (metricsFlush != null && !metricsFlush.isDone()) {
+                return;
+            }
             try {
-                return parseConfig(configJson);
-            } catch (Exception e) {
-                Log.e(TAG, "Failed to parse stored config", e);
+                metricsFlush = executor.schedule(ConfigExecutor.Priority.LOW, metrics::flush,
+                    METRICS_FLUSH_DELAY, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                Log.w(TAG, "Config metrics flush not scheduled, executor shut down");
             }
         }
-        return getDefaultConfig();
     }
     
     public void updateConfigFromGitHub(String configUrl) {
+        if (configUrl == null || configUrl.isEmpty()) {
+            // Joins a fetch already in flight instead of starting a second one
+            requestUpdate();
+            return;
+        }
+        runFetchAttempt(configUrl, null);
+    }
+    
+    /**
+     * Shared executor for other config-related background work, e.g. setup screens
+     */
+    public ConfigExecutor getExecutor() {
+        return executor;
+    }
+    
+    /**
+     * Load the device IDs (sheet tab names) using the bundled Sheets credentials
+     */
+    public void loadAvailableDeviceIds(GoogleSheetsConfigLoader.DeviceListListener listener) {
+        ConfigJsonReader.ConfigDocument document = assetDocumentMemo.get();
+        if (document == null) {
+            listener.onDeviceListFailed("Google Sheets credentials not configured");
+            return;
+        }
+        try {
+            getSheetsLoader(document).loadAvailableDeviceIds(listener);
+        } catch (IllegalArgumentException e) {
+            listener.onDeviceListFailed("Google Sheets credentials not configured");
+        }
+    }
+    
+    private void runFetchAttempt(String configUrl, ConfigFetchScheduler.AttemptCallback callback) {
         // If no URL provided, determine based on device test flag
         final String finalConfigUrl;
         if (configUrl == null || configUrl.isEmpty()) {
-            finalConfigUrl = shouldUseTestConfig() ? TEST_CONFIG_URL : PRODUCTION_CONFIG_URL;
-            Log.i(TAG, "Using " + (shouldUseTestConfig() ? "TEST" : "PRODUCTION") + " configuration for device: " + getDeviceId());
+            boolean useTestConfig = shouldUseTestConfig();
+            finalConfigUrl = useTestConfig ? TEST_CONFIG_URL : PRODUCTION_CONFIG_URL;
+            Log.i(TAG, "Using " + (useTestConfig ? "TEST" : "PRODUCTION") + " configuration for device: " + getDeviceId());
         } else {
             finalConfigUrl = configUrl;
         }
         
-        executor.execute(() -> {
-            try {
-                String configJson = downloadConfig(finalConfigUrl);
-                JSONObject configObj = new JSONObject(configJson);
+        // Results from attempts older than the published snapshot are dropped
+        final long attempt = publisher.beginAttempt();
+        
+        executor.execute(ConfigExecutor.Priority.HIGH, () -> resolveConfig(finalConfigUrl, attempt, callback));
+    }
+    
+    /**
+     * Query the stored, Sheets and GitHub sources in parallel and publish the freshest valid result
+     */
+    private void resolveConfig(String configUrl, long attempt, ConfigFetchScheduler.AttemptCallback callback) {
+        // Something is on screen already, so don't spend the attempt on an uplink that is down
+        updateProbeTargets(configUrl);
+        if (publisher.getCurrent() != null && !reachabilityProber.checkReachable()) {
+            publisher.publishError(attempt, "Configuration hosts unreachable, keeping current configuration");
+            finishAttempt(callback, false);
+            return;
+        }
+        
+        long now = System.currentTimeMillis();
+        ConfigJsonReader.ConfigDocument storedDocument = storedDocumentMemo.get();
+        AtomicReference<ConfigJsonReader.ConfigDocument> githubDocument = new AtomicReference<>();
+        
+        // Sheets credentials from the last GitHub document, or the bundled one on first boot
+        ConfigJsonReader.ConfigDocument sheetsDocument =
+            storedDocument != null ? storedDocument : assetDocumentMemo.get();
+        boolean githubAllowed = githubBreaker.allowRequest(now);
+        SheetsPermit sheetsPermit = new SheetsPermit();
+        
+        ConfigResolver resolver = new ConfigResolver(executor);
+        resolver.addSource(ConfigSnapshot.SOURCE_STORED, FRESHNESS_STORED, 0, storedSource(storedDocument));
+        if (githubAllowed) {
+            resolver.addSource(ConfigSnapshot.SOURCE_GITHUB, FRESHNESS_NETWORK, 0,
+                githubSource(configUrl, githubDocument, sheetsPermit));
+        } else {
+            Log.w(TAG, "GitHub circuit open, resolving without GitHub");
+        }
+        if (sheetsDocument != null && sheetsDocument.isGoogleSheets() && sheetsPermit.acquire()) {
+            resolver.addSource(ConfigSnapshot.SOURCE_SHEETS, FRESHNESS_NETWORK,
+                githubAllowed ? SHEETS_HEDGE_DELAY : 0, sheetsSource(sheetsDocument, sheetsPermit));
+        }
+        
+        resolver.start(new ConfigResolver.Listener() {
+            @Override
+            public void onResolved(String sourceName, DeviceConfig config) {
+                sheetsPermit.close();
+                String source = sourceName;
+                ConfigJsonReader.ConfigDocument document = githubDocument.get();
+                if (ConfigSnapshot.SOURCE_GITHUB.equals(sourceName) && document != null && document.isGoogleSheets()) {
+                    source = ConfigSnapshot.SOURCE_SHEETS;
+                }
                 
-                // Check if this configuration uses Google Sheets
-                String configSource = configObj.optString("configSource", "json");
-                if ("googleSheets".equals(configSource)) {
-                    Log.i(TAG, "Google Sheets configuration detected, loading from sheets");
-                    loadConfigFromGoogleSheets(configObj);
-                } else {
-                    // Traditional JSON configuration
-                    Log.i(TAG, "JSON configuration detected, parsing directly");
-                    DeviceConfig config = parseConfig(configJson);
-                    DeviceConfig deviceConfig = getConfigForThisDevice(config);
-                    
-                    // Save to preferences
-                    prefs.edit()
-                        .putString(KEY_CONFIG_JSON, configJson)
-                        .putLong(KEY_LAST_UPDATE, System.currentTimeMillis())
-                        .apply();
-                    
-                    if (listener != null) {
-                        listener.onConfigUpdated(deviceConfig);
+                if (ConfigSnapshot.SOURCE_STORED.equals(source)) {
+                    // Only better than nothing; keeps the retry backoff going
+                    if (publisher.getCurrent() == null) {
+                        publisher.publish(attempt, source, config);
+                    } else {
+                        publisher.publishError(attempt, "Configuration sources unavailable, keeping current configuration");
                     }
-                    
-                    Log.i(TAG, "JSON Configuration updated successfully from " + finalConfigUrl);
+                    finishAttempt(callback, false);
+                    scheduleMetricsFlush();
+                    return;
                 }
                 
-            } catch (Exception e) {
-                Log.e(TAG, "Failed to update configuration from " + finalConfigUrl, e);
-                if (listener != null) {
-                    listener.onConfigError("Failed to update configuration: " + e.getMessage());
+                DeviceConfig checked = preflightPages(config);
+                if (checked == null) {
+                    if (publisher.getCurrent() != null) {
+                        publisher.publishError(attempt, "New configuration has too many unreachable pages, keeping current configuration");
+                        finishAttempt(callback, false);
+                        scheduleMetricsFlush();
+                        return;
+                    }
+                    // Nothing on screen yet, a partly broken playlist beats none
+                    checked = config;
+                }
+                
+                prefs.edit().putLong(KEY_LAST_UPDATE, System.currentTimeMillis()).apply();
+                if (publisher.publish(attempt, source, checked) != null) {
+                    try {
+                        configStore.save(source, checked);
+                    } catch (IOException e) {
+                        Log.e(TAG, "Failed to store resolved config", e);
+                    }
+                    storedConfigMemo.invalidate();
+                    bootConfigMemo.invalidate();
+                }
+                finishAttempt(callback, true);
+                scheduleMetricsFlush();
+            }
+            
+            @Override
+            public void onFailed(String error) {
+                sheetsPermit.close();
+                Log.w(TAG, error);
+                ConfigJsonReader.ConfigDocument document = githubDocument.get();
+                if (document == null) {
+                    document = sheetsDocument;
                 }
+                loadFallbackConfig(document, attempt);
+                finishAttempt(callback, false);
+                scheduleMetricsFlush();
+            }
+            
+            @Override
+            public void onSourceFinished(String sourceName, boolean success, long elapsedMillis) {
+                metrics.record(sourceName, ConfigMetrics.STAGE_TOTAL, success, elapsedMillis);
             }
         });
     }
     
-    private void loadConfigFromGoogleSheets(JSONObject baseConfig) {
+    /**
+     * Check the pages of a freshly fetched config before it goes live
+     *
+     * @return the config without its dead pages, or null if too few pages are reachable
+     */
+    private DeviceConfig preflightPages(DeviceConfig config) {
+        List<PageConfig> pages = config.getPages();
+        if (pages == null || pages.isEmpty()) {
+            return config;
+        }
+        ConfigSnapshot current = publisher.getCurrent();
+        if (current != null && samePageUrls(current.getConfig().getPages(), pages)) {
+            // Already on screen as-is, nothing new to vet
+            return config;
+        }
+        
+        PageUrlValidator.Result result = pageValidator.validate(pages);
+        if (result.getHealthyFraction() < MIN_HEALTHY_PAGE_FRACTION) {
+            Log.w(TAG, "Only " + result.getLivePages().size() + " of " + pages.size()
+                + " pages reachable, rejecting new configuration");
+            return null;
+        }
+        if (result.getDeadUrls().isEmpty()) {
+            return config;
+        }
+        Log.w(TAG, "Dropping " + result.getDeadUrls().size() + " unreachable page URLs from new configuration");
+        return config.withPages(result.getLivePages());
+    }
+    
+    private void updateProbeTargets(String configUrl) {
+        List<String> targets = new ArrayList<>();
+        targets.add(configUrl);
+        DeviceConfig config = getCurrentConfig();
+        if (hasPages(config)) {
+            for (PageConfig page : config.getPages()) {
+                targets.add(page.getUrl());
+            }
+        }
+        reachabilityProber.setTargets(targets);
+    }
+    
+    private static boolean samePageUrls(List<PageConfig> a, List<PageConfig> b) {
+        if (a == null || a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            String url = a.get(i).getUrl();
+            if (url == null ? b.get(i).getUrl() != null : !url.equals(b.get(i).getUrl())) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private ConfigResolver.Source storedSource(ConfigJsonReader.ConfigDocument storedDocument) {
+        return new ConfigResolver.Source() {
+            @Override
+            public void start(ConfigResolver.SourceCallback callback) {
+                ConfigStore.StoredConfig stored = storedConfigMemo.get();
+                if (stored != null && hasPages(stored.getConfig())) {
+                    callback.onResult(stored.getConfig());
+                    return;
+                }
+                
+                // A stored Sheets document only holds credentials, not the playlist
+                if (storedDocument == null || storedDocument.isGoogleSheets()
+                        || !hasPages(storedDocument.getDeviceConfig())) {
+                    callback.onFailure("No stored configuration");
+                    return;
+                }
+                callback.onResult(getConfigForThisDevice(storedDocument.getDeviceConfig()));
+            }
+            
+            @Override
+            public void cancel() {
+            }
+        };
+    }
+    
+    /**
+     * GitHub config.json, followed by a Sheets load when the document points there
+     */
+    private ConfigResolver.Source githubSource(String configUrl,
+                                               AtomicReference<ConfigJsonReader.ConfigDocument> documentOut,
+                                               SheetsPermit sheetsPermit) {
+        return new ConfigResolver.Source() {
+            private volatile boolean cancelled = false;
+            
+            @Override
+            public void start(ConfigResolver.SourceCallback callback) {
+                ConfigJsonReader.ConfigDocument document;
+                try {
+                    document = downloadConfig(configUrl);
+                    githubBreaker.recordSuccess();
+                } catch (Exception e) {
+                    githubBreaker.recordFailure(System.currentTimeMillis());
+                    Log.e(TAG, "Failed to download configuration from " + configUrl, e);
+                    callback.onFailure(e.getMessage());
+                    return;
+                }
+                
+                // The base document is authoritative even if another source won this round
+                documentOut.set(document);
+                prefs.edit().putString(KEY_CONFIG_JSON, document.getRawJson()).apply();
+                updatePushChannel(document);
+                
+                if (!document.isGoogleSheets()) {
+                    Log.i(TAG, "JSON configuration detected, parsing directly");
+                    if (cancelled) {
+                        // Sheets won with credentials this document no longer uses
+                        Log.i(TAG, "Configuration source changed to JSON, resolving again");
+                        requestUpdate();
+                    }
+                    callback.onResult(getConfigForThisDevice(document.getDeviceConfig()));
+                } else if (cancelled) {
+                    callback.onFailure("Cancelled");
+                } else if (!sheetsPermit.use()) {
+                    callback.onFailure("Sheets circuit open");
+                } else {
+                    Log.i(TAG, "Google Sheets configuration detected, loading from sheets");
+                    loadConfigFromGoogleSheets(document, callback);
+                }
+            }
+            
+            @Override
+            public void cancel() {
+                // The download is small and still worth finishing; only the Sheets hop is skipped
+                cancelled = true;
+            }
+        };
+    }
+    
+    /**
+     * Sheets directly, using the credentials of the last known base document
+     */
+    private ConfigResolver.Source sheetsSource(ConfigJsonReader.ConfigDocument baseConfig, SheetsPermit sheetsPermit) {
+        return new ConfigResolver.Source() {
+            @Override
+            public void start(ConfigResolver.SourceCallback callback) {
+                if (!sheetsPermit.use()) {
+                    callback.onFailure("Cancelled");
+                    return;
+                }
+                loadConfigFromGoogleSheets(baseConfig, callback);
+            }
+            
+            @Override
+            public void cancel() {
+                // An in-flight Sheets request can't be aborted; the resolver ignores its result
+            }
+        };
+    }
+    
+    /**
+     * One resolution's permission to call Sheets, taken from the breaker at most
+     * once. The direct Sheets source and the Sheets hop after a GitHub download
+     * share it, so a half-open trial granted to the round isn't refused to its
+     * other path. A trial that no request used goes back to the breaker when
+     * the round ends.
+     */
+    private class SheetsPermit {
+        private boolean asked = false;
+        private boolean granted = false;
+        private boolean used = false;
+        private boolean closed = false;
+        
+        synchronized boolean acquire() {
+            if (closed) {
+                return false;
+            }
+            if (!asked) {
+                asked = true;
+                granted = sheetsBreaker.allowRequest(System.currentTimeMillis());
+            }
+            return granted;
+        }
+        
+        /**
+         * Acquire for a request that goes out now
+         */
+        synchronized boolean use() {
+            if (!acquire()) {
+                return false;
+            }
+            used = true;
+            return true;
+        }
+        
+        synchronized void close() {
+            if (!closed && granted && !used) {
+                sheetsBreaker.releaseRequest();
+            }
+            closed = true;
+        }
+    }
+    
+    /**
+     * Last resolved config, unless it was resolved for a different device ID
+     */
+    private ConfigStore.StoredConfig readStoredConfig() {
+        ConfigStore.StoredConfig stored = configStore.load();
+        if (stored == null) {
+            return null;
+        }
+        // JSON configs carry the Android ID, Sheets configs the ID the sheet was matched on
+        String storedId = stored.getConfig().getDeviceId();
+        String sheetId = deviceIdManager.getDeviceId();
+        if (sheetId == null || sheetId.isEmpty()) {
+            sheetId = getDeviceName();
+        }
+        if (storedId != null && !storedId.equals(getDeviceId()) && !storedId.equals(sheetId)) {
+            Log.i(TAG, "Ignoring stored config for device " + storedId);
+            return null;
+        }
+        return stored;
+    }
+    
+    private static boolean hasPages(DeviceConfig config) {
+        return config != null && config.getPages() != null && !config.getPages().isEmpty();
+    }
+    
+    /**
+     * Open, replace or close the push channel to match the config document
+     */
+    private synchronized void updatePushChannel(ConfigJsonReader.ConfigDocument document) {
+        String url = document.getPushChannelUrl();
+        if (url == null || url.isEmpty()) {
+            if (pushChannel != null) {
+                Log.i(TAG, "Push channel removed from configuration");
+                pushChannel.stop();
+                pushChannel = null;
+            }
+            return;
+        }
+        
+        ConfigPushChannel channel = new ConfigPushChannel(url, document.getPushChannelType(), getDeviceId(),
+            version -> requestUpdate());
+        if (pushChannel != null) {
+            if (pushChannel.getUrl().equals(channel.getUrl()) && pushChannel.getType().equals(channel.getType())) {
+                return;
+            }
+            pushChannel.stop();
+        }
+        pushChannel = channel;
+        if (!executor.isShutdown()) {
+            pushChannel.start();
+        }
+    }
+    
+    private static void finishAttempt(ConfigFetchScheduler.AttemptCallback callback, boolean success) {
+        if (callback != null) {
+            callback.onAttemptFinished(success);
+        }
+    }
+    
+    private ConfigJsonReader.ConfigDocument readStoredDocument() {
+        String configJson = prefs.getString(KEY_CONFIG_JSON, null);
+        if (configJson == null) {
+            return null;
+        }
+        try {
+            return new ConfigJsonReader(getDeviceId()).read(new StringReader(configJson));
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to parse stored config", e);
+            return null;
+        }
+    }
+    
+    private void loadConfigFromGoogleSheets(ConfigJsonReader.ConfigDocument baseConfig,
+                                            ConfigResolver.SourceCallback callback) {
         try {
             // Get device ID from DeviceIdManager first, fallback to device name
             String tempDeviceId = deviceIdManager.getDeviceId();
@@ -127,179 +737,141 @@ public class ConfigurationManager {
                 Log.i(TAG, "Using configured device ID: " + deviceId);
             }
             
-            // Initialize Google Sheets loader if not already done
-            if (sheetsLoader == null) {
-                // Get API key and sheets ID from configuration
-                String apiKey = baseConfig.getString("googleSheetsApiKey");
-                String sheetsId = baseConfig.getString("googleSheetsId");
-                
-                if (apiKey == null || apiKey.isEmpty() || sheetsId == null || sheetsId.isEmpty()) {
-                    throw new IllegalArgumentException("Missing API key or sheets ID for Google Sheets API");
-                }
-                
-                Log.i(TAG, "Using Google Sheets API v4 method");
-                sheetsLoader = new GoogleSheetsConfigLoader(sheetsId, apiKey);
-            }
+            GoogleSheetsConfigLoader loader = getSheetsLoader(baseConfig);
             
             Log.i(TAG, "Loading configuration for device: " + deviceId + " from Google Sheets");
             
-            sheetsLoader.loadDeviceConfig(deviceId, new GoogleSheetsConfigLoader.ConfigLoadListener() {
+            loader.loadDeviceConfig(deviceId, new GoogleSheetsConfigLoader.ConfigLoadListener() {
                 @Override
                 public void onConfigLoaded(DeviceConfig config) {
-                    try {
-                        // Save the base config and successful load time
-                        prefs.edit()
-                            .putString(KEY_CONFIG_JSON, baseConfig.toString())
-                            .putLong(KEY_LAST_UPDATE, System.currentTimeMillis())
-                            .apply();
-                        
-                        if (listener != null) {
-                            listener.onConfigUpdated(config);
-                        }
-                        
-                        Log.i(TAG, "Google Sheets configuration loaded successfully for device: " + deviceId);
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error processing loaded config", e);
-                        loadFallbackConfig(baseConfig);
-                    }
+                    sheetsBreaker.recordSuccess();
+                    Log.i(TAG, "Google Sheets configuration loaded successfully for device: " + deviceId);
+                    callback.onResult(config);
                 }
                 
                 @Override
                 public void onConfigLoadFailed(String error) {
                     Log.w(TAG, "Failed to load from Google Sheets: " + error);
-                    loadFallbackConfig(baseConfig);
+                    sheetsBreaker.recordFailure(System.currentTimeMillis());
+                    callback.onFailure(error);
                 }
             });
             
         } catch (Exception e) {
             Log.e(TAG, "Error setting up Google Sheets loader", e);
-            loadFallbackConfig(baseConfig);
+            callback.onFailure(e.getMessage());
+        }
+    }
+    
+    /**
+     * Get the shared Sheets loader, replacing it when the credentials change
+     */
+    private synchronized GoogleSheetsConfigLoader getSheetsLoader(ConfigJsonReader.ConfigDocument baseConfig) {
+        // Get API key and sheets ID from configuration
+        String apiKey = baseConfig.getGoogleSheetsApiKey();
+        String sheetsId = baseConfig.getGoogleSheetsId();
+        
+        if (apiKey == null || apiKey.isEmpty() || sheetsId == null || sheetsId.isEmpty()) {
+            throw new IllegalArgumentException("Missing API key or sheets ID for Google Sheets API");
+        }
+        
+        if (sheetsLoader == null || !sheetsId.equals(sheetsLoader.getSheetsId())
+                || !apiKey.equals(sheetsLoader.getApiKey())) {
+            Log.i(TAG, "Using Google Sheets API v4 method");
+            sheetsLoader = new GoogleSheetsConfigLoader(sheetsId, apiKey, executor, metrics);
         }
+        return sheetsLoader;
     }
     
-    private void loadFallbackConfig(JSONObject baseConfig) {
+    private void loadFallbackConfig(ConfigJsonReader.ConfigDocument baseConfig, long attempt) {
+        // A failing source must not replace a good playlist with the fallback one
+        ConfigSnapshot current = publisher.getCurrent();
+        if (current != null && !ConfigSnapshot.SOURCE_FALLBACK.equals(current.getSource())) {
+            Log.i(TAG, "Keeping current " + current.getSource() + " configuration instead of fallback");
+            publisher.publishError(attempt, "Configuration sources unavailable, keeping current configuration");
+            return;
+        }
+        
         try {
-            JSONObject fallbackConfig = baseConfig.getJSONObject("fallbackConfig");
-            DeviceConfig config = parseDeviceConfigFromJson(fallbackConfig);
-            config.setDeviceId(getDeviceId());
-            
-            // Use configured device ID or fallback to device name
-            String deviceName = deviceIdManager.getDeviceId();
-            if (deviceName == null || deviceName.isEmpty()) {
-                deviceName = getDeviceName();
-            }
-            config.setDeviceName(deviceName);
-            
-            if (listener != null) {
-                listener.onConfigUpdated(config);
-            }
+            DeviceConfig config = buildFallbackConfig(baseConfig);
+            publisher.publish(attempt, ConfigSnapshot.SOURCE_FALLBACK, config);
             
             Log.i(TAG, "Using fallback configuration");
         } catch (Exception e) {
             Log.e(TAG, "Failed to load fallback config", e);
-            if (listener != null) {
-                listener.onConfigError("Failed to load any configuration");
-            }
+            publisher.publishError(attempt, "Failed to load any configuration");
+        }
+    }
+    
+    /**
+     * The fallback configuration of the last known base document, without
+     * fetching anything. Used when the kiosk degrades out of a crash loop.
+     *
+     * @return null if no base document has a fallback configuration
+     */
+    public DeviceConfig getFallbackConfig() {
+        ConfigJsonReader.ConfigDocument document = storedDocumentMemo.get();
+        if (document == null || document.getFallbackConfig() == null) {
+            document = assetDocumentMemo.get();
+        }
+        try {
+            return buildFallbackConfig(document);
+        } catch (Exception e) {
+            Log.e(TAG, "No fallback configuration available", e);
+            return null;
+        }
+    }
+    
+    private DeviceConfig buildFallbackConfig(ConfigJsonReader.ConfigDocument baseConfig) {
+        DeviceConfig config = baseConfig != null ? baseConfig.getFallbackConfig() : null;
+        if (config == null) {
+            throw new IllegalStateException("No fallbackConfig in base configuration");
         }
+        
+        // Use configured device ID or fallback to device name
+        String deviceName = deviceIdManager.getDeviceId();
+        if (deviceName == null || deviceName.isEmpty()) {
+            deviceName = getDeviceName();
+        }
+        // The document is shared through the memos; work on a copy
+        return config.withDevice(getDeviceId(), deviceName);
     }
     
-    private String downloadConfig(String urlString) throws IOException {
+    private ConfigJsonReader.ConfigDocument downloadConfig(String urlString) throws IOException {
         URL url = new URL(urlString);
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        ConfigMetrics.RequestTimer timer = metrics.startRequest(ConfigSnapshot.SOURCE_GITHUB);
+        boolean success = false;
+        HttpURLConnection connection = null;
         
         try {
+            timer.resolve(url.getHost());
+            connection = (HttpURLConnection) url.openConnection();
             connection.setRequestMethod("GET");
             connection.setConnectTimeout(10000);
             connection.setReadTimeout(15000);
             connection.setRequestProperty("User-Agent", "KioskTV-Android");
             
+            connection.connect();
+            timer.markConnected();
             int responseCode = connection.getResponseCode();
+            timer.markFirstByte();
             if (responseCode != HttpURLConnection.HTTP_OK) {
                 throw new IOException("HTTP error: " + responseCode);
             }
             
+            // Parse straight from the response stream, keeping the raw text for persistence
             InputStream inputStream = connection.getInputStream();
-            BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
-            StringBuilder response = new StringBuilder();
-            String line;
-            
-            while ((line = reader.readLine()) != null) {
-                response.append(line);
-            }
-            
-            return response.toString();
+            ConfigJsonReader.ConfigDocument document = new ConfigJsonReader(getDeviceId())
+                .read(new InputStreamReader(inputStream, StandardCharsets.UTF_8), true);
+            success = true;
+            return document;
             
         } finally {
-            connection.disconnect();
-        }
-    }
-    
-    private DeviceConfig parseConfig(String configJson) throws JSONException {
-        JSONObject json = new JSONObject(configJson);
-        
-        // Check if this is a multi-device config or single device config
-        if (json.has("devices")) {
-            // Multi-device configuration
-            JSONArray devices = json.getJSONArray("devices");
-            String deviceId = getDeviceId();
-            
-            for (int i = 0; i < devices.length(); i++) {
-                JSONObject deviceJson = devices.getJSONObject(i);
-                if (deviceId.equals(deviceJson.optString("deviceId"))) {
-                    return parseDeviceConfig(deviceJson);
-                }
-            }
-            
-            // If no specific config found, use default or first one
-            if (devices.length() > 0) {
-                JSONObject defaultDevice = devices.getJSONObject(0);
-                DeviceConfig config = parseDeviceConfig(defaultDevice);
-                config.setDeviceId(deviceId); // Override with actual device ID
-                return config;
-            }
-        }
-        
-        // Single device configuration
-        return parseDeviceConfig(json);
-    }
-    
-    private DeviceConfig parseDeviceConfig(JSONObject json) throws JSONException {
-        return parseDeviceConfigFromJson(json);
-    }
-    
-    private DeviceConfig parseDeviceConfigFromJson(JSONObject json) throws JSONException {
-        DeviceConfig config = new DeviceConfig();
-        
-        config.setDeviceId(json.optString("deviceId", getDeviceId()));
-        config.setDeviceName(json.optString("deviceName", "Android TV"));
-        config.setOrientation(json.optString("orientation", "landscape"));
-        config.setRefreshIntervalMinutes(json.optInt("refreshIntervalMinutes", 60));
-        config.setAutoStart(json.optBoolean("autoStart", true));
-        config.setClearCache(json.optBoolean("clearCache", false));
-        config.setConfigVersion(json.optString("configVersion", "1.0"));
-        
-        // Parse pages
-        List<PageConfig> pages = new ArrayList<>();
-        if (json.has("pages")) {
-            JSONArray pagesArray = json.getJSONArray("pages");
-            for (int i = 0; i < pagesArray.length(); i++) {
-                JSONObject pageJson = pagesArray.getJSONObject(i);
-                PageConfig page = new PageConfig();
-                page.setUrl(pageJson.getString("url"));
-                page.setDisplayTimeSeconds(pageJson.optInt("displayTimeSeconds", 300));
-                page.setTitle(pageJson.optString("title", ""));
-                pages.add(page);
+            timer.finish(success);
+            if (connection != null) {
+                connection.disconnect();
             }
-        } else if (json.has("url")) {
-            // Single URL configuration for backward compatibility
-            PageConfig page = new PageConfig();
-            page.setUrl(json.getString("url"));
-            page.setDisplayTimeSeconds(config.getRefreshIntervalMinutes() * 60);
-            pages.add(page);
         }
-        
-        config.setPages(pages);
-        return config;
     }
     
     private DeviceConfig getConfigForThisDevice(DeviceConfig globalConfig) {
@@ -322,6 +894,10 @@ public class ConfigurationManager {
     }
     
     private String getDeviceId() {
+        return deviceIdMemo.get();
+    }
+    
+    private String readDeviceId() {
         try {
             // Use Android ID as device identifier
             String androidId = Settings.Secure.getString(context.getContentResolver(), 
@@ -367,6 +943,10 @@ public class ConfigurationManager {
     }
     
     private boolean shouldUseTestConfig() {
+        return testConfigMemo.get();
+    }
+    
+    private Boolean readUseTestConfig() {
         String deviceId = getDeviceId();
         
         // Log device ID for debugging
@@ -374,22 +954,9 @@ public class ConfigurationManager {
         Log.i(TAG, "Current Device ID: " + deviceId);
         Log.i(TAG, "======================");
         
-        // Add test device IDs here - devices that should use test configuration
-        String[] testDeviceIds = {
-            "test",                 // Your test Android TV device
-            "382a9b8d8e53e5df",     // Your phone device ID (actual from logs)
-            "bd97668be0c1ef6e",     // Your phone device ID (from ADB command)
-            "33021JEHN03011",       // Your phone ADB serial (backup)
-            // "abc123def456",      // Add more test device IDs here
-            // "test_device_01",    // Test TV #1
-            // "test_device_02"     // Test TV #2
-        };
-        
-        for (String testId : testDeviceIds) {
-            if (deviceId.equals(testId)) {
-                Log.i(TAG, "Device " + deviceId + " flagged for TEST configuration");
-                return true;
-            }
+        if (TEST_DEVICE_IDS.contains(deviceId)) {
+            Log.i(TAG, "Device " + deviceId + " flagged for TEST configuration");
+            return true;
         }
         
         Log.i(TAG, "Device " + deviceId + " using PRODUCTION configuration");
@@ -401,52 +968,56 @@ public class ConfigurationManager {
     }
     
     public String getGoogleSheetsApiKey() {
-        try {
-            JSONObject config = loadLocalConfigFromAssets();
-            if (config != null && config.has("googleSheetsApiKey")) {
-                return config.getString("googleSheetsApiKey");
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "Error getting Google Sheets API key", e);
-        }
-        return null;
+        ConfigJsonReader.ConfigDocument config = assetDocumentMemo.get();
+        return config != null ? config.getGoogleSheetsApiKey() : null;
     }
     
     public String getGoogleSheetsId() {
-        try {
-            JSONObject config = loadLocalConfigFromAssets();
-            if (config != null && config.has("googleSheetsId")) {
-                return config.getString("googleSheetsId");
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "Error getting Google Sheets ID", e);
-        }
-        return null;
+        ConfigJsonReader.ConfigDocument config = assetDocumentMemo.get();
+        return config != null ? config.getGoogleSheetsId() : null;
     }
     
-    private JSONObject loadLocalConfigFromAssets() {
+    private ConfigJsonReader.ConfigDocument readLocalConfigFromAssets() {
         try {
             InputStream inputStream = context.getAssets().open("config.json");
-            BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
-            StringBuilder jsonString = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                jsonString.append(line);
-            }
-            reader.close();
-            return new JSONObject(jsonString.toString());
+            return new ConfigJsonReader(getDeviceId())
+                .read(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
         } catch (Exception e) {
             Log.e(TAG, "Error reading config.json from assets", e);
             return null;
         }
     }
     
-    public void shutdown() {
-        if (executor != null) {
-            executor.shutdown();
+    /**
+     * Stop all config work. Meant for process teardown; a later getInstance() creates a new manager.
+     */
+    public synchronized void shutdown() {
+        Log.i(TAG, "Config cache: " + getCacheStats());
+        prefs.unregisterOnSharedPreferenceChangeListener(configPrefsListener);
+        deviceIdManager.unregisterOnChangeListener(devicePrefsListener);
+        fetchScheduler.stop();
+        if (pushChannel != null) {
+            pushChannel.stop();
+            pushChannel = null;
+        }
+        synchronized (metricsFlushLock) {
+            if (metricsFlush != null) {
+                metricsFlush.cancel(false);
+            }
+        }
+        try {
+            // Queued work still runs after shutdown, so the last records are kept
+            executor.execute(ConfigExecutor.Priority.LOW, metrics::flush);
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "Config metrics not flushed, queue full");
         }
-        if (sheetsLoader != null) {
-            sheetsLoader.shutdown();
+        executor.shutdown();
+        pageValidator.shutdown();
+        reachabilityProber.shutdown();
+        synchronized (ConfigurationManager.class) {
+            if (instance == this) {
+                instance = null;
+            }
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,190 @@
+package com.kidsim.tvkiosk.config;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Streaming RFC 4180 CSV reader.
+ *
+ * Handles quoted fields, doubled quotes inside them, embedded line breaks
+ * and CRLF, LF or CR row endings. The current row lives in buffers that are
+ * reused for every row; field text is only turned into a String when asked
+ * for, so scanning a large export for one column allocates very little.
+ *
+ * Usage:
+ *   while (csv.nextRow()) { String id = csv.getField(1); }
+ */
+public class CsvReader implements Closeable {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int bufferPos = 0;
+    private int bufferLimit = 0;
+
+    // Current row: all field text back to back, with per-field boundaries
+    private char[] rowChars = new char[256];
+    private int rowLength = 0;
+    private int[] fieldStarts = new int[16];
+    private int[] fieldEnds = new int[16];
+    private int fieldCount = 0;
+    private long rowNumber = 0;
+
+    public CsvReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Advance to the next row
+     *
+     * @return false at end of input
+     */
+    public boolean nextRow() throws IOException {
+        rowLength = 0;
+        fieldCount = 0;
+
+        int c = read();
+        if (c == -1) {
+            return false;
+        }
+
+        int fieldStart = 0;
+        boolean quoted = false;
+        boolean afterQuote = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    // Unterminated quote, keep what was read
+                    endField(fieldStart);
+                    break;
+                }
+                if (c == '"') {
+                    int next = read();
+                    if (next == '"') {
+                        append('"');
+                    } else {
+                        quoted = false;
+                        afterQuote = true;
+                        c = next;
+                        continue;
+                    }
+                } else {
+                    append((char) c);
+                }
+            } else if (c == ',') {
+                endField(fieldStart);
+                fieldStart = rowLength;
+                afterQuote = false;
+            } else if (c == '\n' || c == -1) {
+                endField(fieldStart);
+                break;
+            } else if (c == '\r') {
+                endField(fieldStart);
+                int next = read();
+                if (next != '\n' && next != -1) {
+                    unread();
+                }
+                break;
+            } else if (c == '"' && rowLength == fieldStart && !afterQuote) {
+                quoted = true;
+            } else {
+                // Text after a closing quote or a stray quote is kept as-is
+                append((char) c);
+            }
+            c = read();
+        }
+
+        rowNumber++;
+        return true;
+    }
+
+    /**
+     * Number of fields in the current row. An empty line has one empty field.
+     */
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * 1-based number of the current row
+     */
+    public long getRowNumber() {
+        return rowNumber;
+    }
+
+    /**
+     * Get a field as a String, or null if the row has no such field
+     */
+    public String getField(int index) {
+        if (index < 0 || index >= fieldCount) {
+            return null;
+        }
+        return new String(rowChars, fieldStarts[index], fieldEnds[index] - fieldStarts[index]);
+    }
+
+    /**
+     * Get a field with surrounding whitespace removed, or null if the row has no such field
+     */
+    public String getTrimmedField(int index) {
+        if (index < 0 || index >= fieldCount) {
+            return null;
+        }
+        int start = fieldStarts[index];
+        int end = fieldEnds[index];
+        while (start < end && rowChars[start] <= ' ') {
+            start++;
+        }
+        while (end > start && rowChars[end - 1] <= ' ') {
+            end--;
+        }
+        return new String(rowChars, start, end - start);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private int read() throws IOException {
+        if (bufferPos >= bufferLimit) {
+            bufferLimit = in.read(buffer, 0, buffer.length);
+            bufferPos = 0;
+            if (bufferLimit <= 0) {
+                bufferLimit = 0;
+                return -1;
+            }
+        }
+        return buffer[bufferPos++];
+    }
+
+    /**
+     * Step back over the character just read; only valid right after a successful read()
+     */
+    private void unread() {
+        bufferPos--;
+    }
+
+    private void append(char c) {
+        if (rowLength == rowChars.length) {
+            char[] grown = new char[rowChars.length * 2];
+            System.arraycopy(rowChars, 0, grown, 0, rowLength);
+            rowChars = grown;
+        }
+        rowChars[rowLength++] = c;
+    }
+
+    private void endField(int start) {
+        if (fieldCount == fieldStarts.length) {
+            int[] starts = new int[fieldCount * 2];
+            int[] ends = new int[fieldCount * 2];
+            System.arraycopy(fieldStarts, 0, starts, 0, fieldCount);
+            System.arraycopy(fieldEnds, 0, ends, 0, fieldCount);
+            fieldStarts = starts;
+            fieldEnds = ends;
+        }
+        fieldStarts[fieldCount] = start;
+        fieldEnds[fieldCount] = rowLength;
+        fieldCount++;
+    }
+}
@@ -1,5 +1,7 @@
 package com.kidsim.tvkiosk.config;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class DeviceConfig {
@@ -11,6 +13,7 @@ public class DeviceConfig {
     private boolean autoStart;
     private boolean clearCache;
     private String configVersion;
+    private boolean immutable;
     
     // Default constructor
     public DeviceConfig() {
@@ -23,28 +26,100 @@ public class DeviceConfig {
     
     // Getters and setters
     public String getDeviceId() { return deviceId; }
-    public void setDeviceId(String deviceId) { this.deviceId = deviceId; }
+    public void setDeviceId(String deviceId) { checkMutable(); this.deviceId = deviceId; }
     
     public String getDeviceName() { return deviceName; }
-    public void setDeviceName(String deviceName) { this.deviceName = deviceName; }
+    public void setDeviceName(String deviceName) { checkMutable(); this.deviceName = deviceName; }
     
     public String getOrientation() { return orientation; }
-    public void setOrientation(String orientation) { this.orientation = orientation; }
+    public void setOrientation(String orientation) { checkMutable(); this.orientation = orientation; }
     
     public int getRefreshIntervalMinutes() { return refreshIntervalMinutes; }
     public void setRefreshIntervalMinutes(int refreshIntervalMinutes) { 
+        checkMutable();
         this.refreshIntervalMinutes = refreshIntervalMinutes; 
     }
     
     public List<PageConfig> getPages() { return pages; }
-    public void setPages(List<PageConfig> pages) { this.pages = pages; }
+    public void setPages(List<PageConfig> pages) { checkMutable(); this.pages = pages; }
     
     public boolean isAutoStart() { return autoStart; }
-    public void setAutoStart(boolean autoStart) { this.autoStart = autoStart; }
+    public void setAutoStart(boolean autoStart) { checkMutable(); this.autoStart = autoStart; }
     
     public boolean isClearCache() { return clearCache; }
-    public void setClearCache(boolean clearCache) { this.clearCache = clearCache; }
+    public void setClearCache(boolean clearCache) { checkMutable(); this.clearCache = clearCache; }
     
     public String getConfigVersion() { return configVersion; }
-    public void setConfigVersion(String configVersion) { this.configVersion = configVersion; }
-}
\ No newline at end of file
+    public void setConfigVersion(String configVersion) { checkMutable(); this.configVersion = configVersion; }
+    
+    public boolean isImmutable() { return immutable; }
+    
+    /**
+     * Get an immutable deep copy of this configuration, safe to share between threads.
+     * Setters on the copy and on its page list throw UnsupportedOperationException.
+     */
+    public DeviceConfig toImmutable() {
+        if (immutable) {
+            return this;
+        }
+        
+        DeviceConfig copy = new DeviceConfig();
+        copy.deviceId = deviceId;
+        copy.deviceName = deviceName;
+        copy.orientation = orientation;
+        copy.refreshIntervalMinutes = refreshIntervalMinutes;
+        copy.autoStart = autoStart;
+        copy.clearCache = clearCache;
+        copy.configVersion = configVersion;
+        
+        if (pages != null) {
+            List<PageConfig> pageCopies = new ArrayList<>(pages.size());
+            for (PageConfig page : pages) {
+                pageCopies.add(page.toImmutable());
+            }
+            copy.pages = Collections.unmodifiableList(pageCopies);
+        }
+        
+        copy.immutable = true;
+        return copy;
+    }
+    
+    /**
+     * Get an immutable copy of this configuration with a different page list
+     */
+    public DeviceConfig withPages(List<PageConfig> newPages) {
+        DeviceConfig copy = shallowCopy();
+        copy.pages = newPages != null ? new ArrayList<>(newPages) : null;
+        return copy.toImmutable();
+    }
+    
+    /**
+     * Get an immutable copy of this configuration for a different device,
+     * leaving this one untouched
+     */
+    public DeviceConfig withDevice(String newDeviceId, String newDeviceName) {
+        DeviceConfig copy = shallowCopy();
+        copy.deviceId = newDeviceId;
+        copy.deviceName = newDeviceName;
+        return copy.toImmutable();
+    }
+    
+    private DeviceConfig shallowCopy() {
+        DeviceConfig copy = new DeviceConfig();
+        copy.deviceId = deviceId;
+        copy.deviceName = deviceName;
+        copy.orientation = orientation;
+        copy.refreshIntervalMinutes = refreshIntervalMinutes;
+        copy.autoStart = autoStart;
+        copy.clearCache = clearCache;
+        copy.configVersion = configVersion;
+        copy.pages = pages;
+        return copy;
+    }
+    
+    private void checkMutable() {
+        if (immutable) {
+            throw new UnsupportedOperationException("DeviceConfig snapshot is immutable");
+        }
+    }
+}
@@ -78,6 +78,17 @@ public class DeviceIdManager {
         Log.i(TAG, "Debug mode set to: " + isDebug);
     }
     
+    /**
+     * Listen for changes to the stored device settings. A null key means everything was cleared.
+     */
+    public void registerOnChangeListener(SharedPreferences.OnSharedPreferenceChangeListener listener) {
+        prefs.registerOnSharedPreferenceChangeListener(listener);
+    }
+    
+    public void unregisterOnChangeListener(SharedPreferences.OnSharedPreferenceChangeListener listener) {
+        prefs.unregisterOnSharedPreferenceChangeListener(listener);
+    }
+    
     /**
      * Clear all stored configuration (for reset purposes)
      */
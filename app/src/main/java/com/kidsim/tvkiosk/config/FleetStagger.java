@@ -0,0 +1,81 @@
+package com.kidsim.tvkiosk.config;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Random;
+
+/**
+ * Spreads periodic work of a device fleet over the period.
+ *
+ * Each device gets a stable phase in [0, 1) from a hash of its identity and
+ * runs periodic work at that phase of the wall clock period, plus a little
+ * random jitter. TVs that boot together after a power cut therefore still
+ * hit the content servers and the Sheets quota at different times, and keep
+ * doing so period after period.
+ */
+public class FleetStagger {
+    // Jitter on top of the phase, as a share of the period
+    private static final double MAX_JITTER_FRACTION = 0.05;
+
+    private final double phase;
+    private final Random random;
+
+    public FleetStagger(String deviceKey) {
+        this(deviceKey, new Random());
+    }
+
+    public FleetStagger(String deviceKey, Random random) {
+        this.phase = phaseOf(deviceKey != null ? deviceKey : "");
+        this.random = random;
+    }
+
+    /**
+     * This device's stable phase, in [0, 1)
+     */
+    public double getPhase() {
+        return phase;
+    }
+
+    /**
+     * Delay from now until this device's next slot in the period, with
+     * jitter. The slot is at least half a period away, so work that just ran
+     * doesn't run again right away.
+     */
+    public long getDelayToNextSlot(long nowMillis, long periodMillis) {
+        long offset = (long) (phase * periodMillis);
+        long slot = nowMillis - Math.floorMod(nowMillis, periodMillis) + offset;
+        while (slot - nowMillis < periodMillis / 2) {
+            slot += periodMillis;
+        }
+        return slot - nowMillis + getJitterMillis(periodMillis);
+    }
+
+    /**
+     * Delay within a window that starts now, for one-off work such as the
+     * first fetch after boot
+     */
+    public long getDelayWithin(long windowMillis) {
+        long jitter = getJitterMillis(windowMillis);
+        return Math.min(windowMillis, (long) (phase * windowMillis) + jitter);
+    }
+
+    private long getJitterMillis(long periodMillis) {
+        return (long) (random.nextDouble() * periodMillis * MAX_JITTER_FRACTION);
+    }
+
+    private static double phaseOf(String deviceKey) {
+        try {
+            // A cryptographic hash, so similar IDs like TV-01 and TV-02 still land far apart
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(deviceKey.getBytes(StandardCharsets.UTF_8));
+            long bits = 0;
+            for (int i = 0; i < 7; i++) {
+                bits = (bits << 8) | (digest[i] & 0xFF);
+            }
+            return (double) bits / (1L << 56);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform has SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,58 +1,110 @@
 package com.kidsim.tvkiosk.config;
 
+import android.net.Uri;
 import android.util.Log;
 import org.json.JSONObject;
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 public class GoogleSheetsConfigLoader {
     private static final String TAG = "GoogleSheetsLoader";
     private final String sheetsId;
     private final String apiKey;
-    private final ExecutorService executor;
+    private final ConfigExecutor executor;
+    private final ConfigMetrics metrics;
+    
+    // Requests already in flight; later callers wait for the same result
+    private final Map<String, List<ConfigLoadListener>> pendingConfigLoads = new HashMap<>();
+    private List<DeviceListListener> pendingDeviceListListeners;
     
     // Google Sheets API v4 endpoints
     private static final String SHEETS_API_BASE = "https://sheets.googleapis.com/v4/spreadsheets/";
     
+    // Only ask for the sheet properties we use, not the whole spreadsheet resource
+    private static final String SHEET_TITLE_FIELDS = "sheets.properties.title";
+    
+    // Playlist rows are fetched as one open-ended range of only the columns SheetValuesParser reads
+    private static final String FIRST_COLUMN = "A";
+    private static final String LAST_COLUMN = SheetValuesParser.LAST_COLUMN;
+    
     public interface ConfigLoadListener {
         void onConfigLoaded(DeviceConfig config);
         void onConfigLoadFailed(String error);
     }
     
-    public GoogleSheetsConfigLoader(String sheetsId, String apiKey) {
+    public GoogleSheetsConfigLoader(String sheetsId, String apiKey, ConfigExecutor executor, ConfigMetrics metrics) {
         this.sheetsId = sheetsId;
         this.apiKey = apiKey;
-        this.executor = Executors.newSingleThreadExecutor();
+        this.executor = executor;
+        this.metrics = metrics;
     }
     
+    public String getSheetsId() { return sheetsId; }
+    public String getApiKey() { return apiKey; }
+    
     public void loadDeviceConfig(String deviceId, ConfigLoadListener listener) {
-        executor.execute(() -> {
-            try {
-                // First, get the list of sheets to find the correct sheet for the device
-                String sheetName = findDeviceSheet(deviceId);
-                if (sheetName == null) {
-                    listener.onConfigLoadFailed("Device sheet not found: " + deviceId);
-                    return;
-                }
-                
+        synchronized (pendingConfigLoads) {
+            List<ConfigLoadListener> waiting = pendingConfigLoads.get(deviceId);
+            if (waiting != null) {
+                Log.d(TAG, "Config load for " + deviceId + " already in flight, joining it");
+                waiting.add(listener);
+                return;
+            }
+            waiting = new ArrayList<>();
+            waiting.add(listener);
+            pendingConfigLoads.put(deviceId, waiting);
+        }
+        
+        try {
+            executor.execute(ConfigExecutor.Priority.HIGH, () -> loadDeviceConfigNow(deviceId));
+        } catch (RejectedExecutionException e) {
+            synchronized (pendingConfigLoads) {
+                pendingConfigLoads.remove(deviceId);
+            }
+            listener.onConfigLoadFailed("Config queue full");
+        }
+    }
+    
+    private void loadDeviceConfigNow(String deviceId) {
+        DeviceConfig config = null;
+        String error = null;
+        try {
+            // First, get the list of sheets to find the correct sheet for the device
+            String sheetName = findDeviceSheet(deviceId);
+            if (sheetName == null) {
+                error = "Device sheet not found: " + deviceId;
+            } else {
                 // Load the device configuration from the found sheet
-                DeviceConfig config = loadConfigFromSheet(deviceId, sheetName);
-                if (config != null) {
-                    listener.onConfigLoaded(config);
-                } else {
-                    listener.onConfigLoadFailed("Failed to parse device configuration");
+                config = loadConfigFromSheet(deviceId, sheetName);
+                if (config == null) {
+                    error = "Failed to parse device configuration";
                 }
-            } catch (Exception e) {
-                Log.e(TAG, "Error loading config from Google Sheets", e);
-                listener.onConfigLoadFailed("Network error: " + e.getMessage());
             }
-        });
+        } catch (Exception e) {
+            Log.e(TAG, "Error loading config from Google Sheets", e);
+            error = "Network error: " + e.getMessage();
+        }
+        
+        List<ConfigLoadListener> listeners;
+        synchronized (pendingConfigLoads) {
+            listeners = pendingConfigLoads.remove(deviceId);
+        }
+        for (ConfigLoadListener waiting : listeners) {
+            if (config != null) {
+                waiting.onConfigLoaded(config);
+            } else {
+                waiting.onConfigLoadFailed(error);
+            }
+        }
     }
     
     public interface DeviceListListener {
@@ -61,25 +113,56 @@ public class GoogleSheetsConfigLoader {
     }
     
     public void loadAvailableDeviceIds(DeviceListListener listener) {
-        executor.execute(() -> {
-            try {
-                List<String> deviceIds = getDeviceIdsFromSheet();
-                if (deviceIds != null && !deviceIds.isEmpty()) {
-                    listener.onDeviceListLoaded(deviceIds);
-                } else {
-                    listener.onDeviceListFailed("No device IDs found in sheet");
-                }
-            } catch (Exception e) {
-                Log.e(TAG, "Error loading device IDs", e);
-                listener.onDeviceListFailed("Network error: " + e.getMessage());
+        synchronized (this) {
+            if (pendingDeviceListListeners != null) {
+                pendingDeviceListListeners.add(listener);
+                return;
             }
-        });
+            pendingDeviceListListeners = new ArrayList<>();
+            pendingDeviceListListeners.add(listener);
+        }
+        
+        try {
+            executor.execute(ConfigExecutor.Priority.LOW, this::loadAvailableDeviceIdsNow);
+        } catch (RejectedExecutionException e) {
+            synchronized (this) {
+                pendingDeviceListListeners = null;
+            }
+            listener.onDeviceListFailed("Config queue full");
+        }
+    }
+    
+    private void loadAvailableDeviceIdsNow() {
+        List<String> deviceIds = null;
+        String error = null;
+        try {
+            deviceIds = getDeviceIdsFromSheet();
+            if (deviceIds == null || deviceIds.isEmpty()) {
+                error = "No device IDs found in sheet";
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error loading device IDs", e);
+            error = "Network error: " + e.getMessage();
+        }
+        
+        List<DeviceListListener> listeners;
+        synchronized (this) {
+            listeners = pendingDeviceListListeners;
+            pendingDeviceListListeners = null;
+        }
+        for (DeviceListListener waiting : listeners) {
+            if (error == null) {
+                waiting.onDeviceListLoaded(deviceIds);
+            } else {
+                waiting.onDeviceListFailed(error);
+            }
+        }
     }
     
     private List<String> getDeviceIdsFromSheet() {
         try {
             // Get all sheet names from the spreadsheet - these are the device IDs
-            String url = SHEETS_API_BASE + sheetsId + "?key=" + apiKey;
+            String url = SHEETS_API_BASE + sheetsId + "?fields=" + Uri.encode(SHEET_TITLE_FIELDS) + "&key=" + apiKey;
             
             URL apiUrl = new URL(url);
             HttpURLConnection connection = (HttpURLConnection) apiUrl.openConnection();
@@ -130,7 +213,7 @@ public class GoogleSheetsConfigLoader {
     
     private String getFirstSheetName() {
         try {
-            String url = SHEETS_API_BASE + sheetsId + "?key=" + apiKey;
+            String url = SHEETS_API_BASE + sheetsId + "?fields=" + Uri.encode(SHEET_TITLE_FIELDS) + "&key=" + apiKey;
             
             URL apiUrl = new URL(url);
             HttpURLConnection connection = (HttpURLConnection) apiUrl.openConnection();
@@ -171,19 +254,25 @@ public class GoogleSheetsConfigLoader {
     }
     
     private String findDeviceSheet(String deviceId) {
+        ConfigMetrics.RequestTimer timer = metrics.startRequest(ConfigSnapshot.SOURCE_SHEETS);
+        boolean success = false;
         try {
             // Get spreadsheet metadata to find all sheets
-            String url = SHEETS_API_BASE + sheetsId + "?key=" + apiKey;
+            String url = SHEETS_API_BASE + sheetsId + "?fields=" + Uri.encode(SHEET_TITLE_FIELDS) + "&key=" + apiKey;
             Log.d(TAG, "Getting spreadsheet metadata from: " + url);
             
             URL apiUrl = new URL(url);
+            timer.resolve(apiUrl.getHost());
             HttpURLConnection connection = (HttpURLConnection) apiUrl.openConnection();
             connection.setRequestMethod("GET");
             connection.setRequestProperty("Accept", "application/json");
             connection.setConnectTimeout(10000);
             connection.setReadTimeout(10000);
             
+            connection.connect();
+            timer.markConnected();
             int responseCode = connection.getResponseCode();
+            timer.markFirstByte();
             if (responseCode != HttpURLConnection.HTTP_OK) {
                 Log.e(TAG, "API HTTP error: " + responseCode);
                 return null;
@@ -201,6 +290,7 @@ public class GoogleSheetsConfigLoader {
             // Parse the response to find sheets
             org.json.JSONObject spreadsheet = new org.json.JSONObject(response.toString());
             org.json.JSONArray sheets = spreadsheet.getJSONArray("sheets");
+            success = true;
             
             // Look for a sheet that exactly matches the device ID
             for (int i = 0; i < sheets.length(); i++) {
@@ -223,39 +313,18 @@ public class GoogleSheetsConfigLoader {
         } catch (Exception e) {
             Log.e(TAG, "Error finding device sheet", e);
             return null;
+        } finally {
+            timer.finish(success);
         }
     }
     
     private DeviceConfig loadConfigFromSheet(String deviceId, String sheetName) {
         try {
-            // Get values from the specific sheet
-            String range = sheetName + "!A1:Z100"; // Adjust range as needed
-            String url = SHEETS_API_BASE + sheetsId + "/values/" + range + "?key=" + apiKey;
-            Log.d(TAG, "Loading device config from: " + url);
+            // Stream the rows straight into the playlist model
+            SheetValuesParser parser = new SheetValuesParser();
+            loadUsedRows(parser, sheetName);
             
-            URL apiUrl = new URL(url);
-            HttpURLConnection connection = (HttpURLConnection) apiUrl.openConnection();
-            connection.setRequestMethod("GET");
-            connection.setRequestProperty("Accept", "application/json");
-            connection.setConnectTimeout(10000);
-            connection.setReadTimeout(10000);
-            
-            int responseCode = connection.getResponseCode();
-            if (responseCode != HttpURLConnection.HTTP_OK) {
-                Log.e(TAG, "API HTTP error: " + responseCode);
-                return null;
-            }
-            
-            BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-            StringBuilder response = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                response.append(line);
-            }
-            reader.close();
-            connection.disconnect();
-            
-            return parseDeviceConfigFromAPI(deviceId, response.toString());
+            return parser.toDeviceConfig(deviceId);
             
         } catch (Exception e) {
             Log.e(TAG, "Error loading from sheet", e);
@@ -263,141 +332,45 @@ public class GoogleSheetsConfigLoader {
         }
     }
     
-    private DeviceConfig parseDeviceConfigFromCsv(String deviceId, List<String> csvLines) {
-        try {
-            if (csvLines.size() < 5) {
-                Log.e(TAG, "Sheet too short, expected at least 5 rows");
-                return null;
-            }
-            
-            // Parse configuration from your sheet structure:
-            // Row 1: "Refresh Minutes", refresh interval value (in column B)
-            // Row 4: "URL", "DisplaySeconds" (headers)
-            // Row 5+: actual URL, display time values
-            
-            String[] row1 = parseCsvLine(csvLines.get(0));
-            
-            // Extract refresh interval from row 1, column B (index 1)
-            int refreshInterval = 60; // default
-            if (row1.length > 1) {
-                try {
-                    refreshInterval = Integer.parseInt(row1[1].trim());
-                    Log.d(TAG, "Parsed refresh interval: " + refreshInterval + " minutes");
-                } catch (NumberFormatException e) {
-                    Log.w(TAG, "Invalid refresh interval, using default: " + row1[1]);
-                }
-            }
-            
-            // Parse pages starting from row 5 (index 4) - after the URL/DisplaySeconds headers in row 4
-            List<PageConfig> pages = new ArrayList<>();
-            for (int i = 4; i < csvLines.size(); i++) {
-                String[] pageRow = parseCsvLine(csvLines.get(i));
-                if (pageRow.length >= 2 && !pageRow[0].trim().isEmpty()) {
-                    String pageUrl = pageRow[0].trim();
-                    
-                    // Skip if this is a header row
-                    if (pageUrl.equalsIgnoreCase("URL")) {
-                        Log.d(TAG, "Skipping header row: " + pageUrl);
-                        continue;
-                    }
-                    
-                    int displayTime = 30; // default
-                    if (pageRow.length > 1) {
-                        try {
-                            displayTime = Integer.parseInt(pageRow[1].trim());
-                        } catch (NumberFormatException e) {
-                            Log.w(TAG, "Invalid display time, using default: " + pageRow[1]);
-                        }
-                    }
-                    
-                    PageConfig pageConfig = new PageConfig(pageUrl, displayTime);
-                    pageConfig.setTitle("Page " + (pages.size() + 1));
-                    pages.add(pageConfig);
-                    
-                    Log.d(TAG, "Added page: " + pageUrl + " (display: " + displayTime + "s)");
-                }
-            }
-            
-            if (pages.isEmpty()) {
-                Log.e(TAG, "No pages found in configuration");
-                return null;
-            }
-            
-            String deviceName = deviceId + " Device";
-            Log.i(TAG, "Loaded config for " + deviceName + " with " + pages.size() + " pages, refresh: " + refreshInterval + "min");
-            
-            DeviceConfig config = new DeviceConfig();
-            config.setDeviceId(deviceId);
-            config.setDeviceName(deviceName);
-            config.setOrientation("landscape"); // Default orientation, will be overridden by stored preference
-            config.setRefreshIntervalMinutes(refreshInterval);
-            config.setAutoStart(true);
-            config.setClearCache(true);
-            config.setPages(pages);
-            
-            return config;
-            
-        } catch (Exception e) {
-            Log.e(TAG, "Error parsing sheet config", e);
-            return null;
-        }
-    }
-    
-    private DeviceConfig parseDeviceConfigFromAPI(String deviceId, String jsonResponse) {
+    /**
+     * Fetch every used row into the parser in one request. An open-ended range
+     * ends at the last non-empty row, with empty rows before it kept in place,
+     * so blank blocks in the playlist neither cut it short nor cost requests.
+     */
+    private void loadUsedRows(SheetValuesParser parser, String sheetName) throws IOException {
+        // Sheet names are quoted so spaces and punctuation survive
+        String range = "'" + sheetName.replace("'", "''") + "'!" + FIRST_COLUMN + "1:" + LAST_COLUMN;
+        String url = SHEETS_API_BASE + sheetsId + "/values/" + Uri.encode(range) + "?key=" + apiKey;
+        Log.d(TAG, "Loading used rows of " + sheetName);
+        
+        URL apiUrl = new URL(url);
+        ConfigMetrics.RequestTimer timer = metrics.startRequest(ConfigSnapshot.SOURCE_SHEETS);
+        boolean success = false;
+        HttpURLConnection connection = null;
         try {
-            // Parse the Google Sheets API JSON response
-            org.json.JSONObject response = new org.json.JSONObject(jsonResponse);
-            org.json.JSONArray values = response.getJSONArray("values");
+            timer.resolve(apiUrl.getHost());
+            connection = (HttpURLConnection) apiUrl.openConnection();
+            connection.setRequestMethod("GET");
+            connection.setRequestProperty("Accept", "application/json");
+            connection.setConnectTimeout(10000);
+            connection.setReadTimeout(10000);
             
-            // Convert JSON array to list of strings for compatibility with existing parser
-            List<String> csvLines = new ArrayList<>();
-            for (int i = 0; i < values.length(); i++) {
-                org.json.JSONArray row = values.getJSONArray(i);
-                StringBuilder csvLine = new StringBuilder();
-                for (int j = 0; j < row.length(); j++) {
-                    if (j > 0) csvLine.append(",");
-                    String cell = row.optString(j, "");
-                    // Escape commas and quotes in CSV format
-                    if (cell.contains(",") || cell.contains("\"")) {
-                        cell = "\"" + cell.replace("\"", "\"\"") + "\"";
-                    }
-                    csvLine.append(cell);
-                }
-                csvLines.add(csvLine.toString());
+            connection.connect();
+            timer.markConnected();
+            int responseCode = connection.getResponseCode();
+            timer.markFirstByte();
+            if (responseCode != HttpURLConnection.HTTP_OK) {
+                throw new IOException("API HTTP error: " + responseCode);
             }
             
-            return parseDeviceConfigFromCsv(deviceId, csvLines);
-            
-        } catch (Exception e) {
-            Log.e(TAG, "Error parsing API response", e);
-            return null;
-        }
-    }
-    
-    private String[] parseCsvLine(String line) {
-        // Simple CSV parsing - handle quoted fields and commas
-        List<String> fields = new ArrayList<>();
-        boolean inQuotes = false;
-        StringBuilder currentField = new StringBuilder();
-        
-        for (char c : line.toCharArray()) {
-            if (c == '"') {
-                inQuotes = !inQuotes;
-            } else if (c == ',' && !inQuotes) {
-                fields.add(currentField.toString());
-                currentField = new StringBuilder();
-            } else {
-                currentField.append(c);
+            int rows = parser.readValues(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
+            Log.d(TAG, "Read " + rows + " rows of " + sheetName);
+            success = true;
+        } finally {
+            timer.finish(success);
+            if (connection != null) {
+                connection.disconnect();
             }
         }
-        fields.add(currentField.toString());
-        
-        return fields.toArray(new String[0]);
-    }
-    
-    public void shutdown() {
-        if (executor != null) {
-            executor.shutdown();
-        }
     }
 }
\ No newline at end of file
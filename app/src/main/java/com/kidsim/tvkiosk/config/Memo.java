@@ -0,0 +1,59 @@
+package com.kidsim.tvkiosk.config;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lazily computed value that is kept until invalidated. Null results are
+ * cached too. Hit and miss counts are kept for diagnostics.
+ */
+class Memo<T> {
+    interface Loader<T> {
+        T load();
+    }
+
+    private final String name;
+    private final Loader<T> loader;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private volatile boolean loaded = false;
+    private volatile T value;
+
+    Memo(String name, Loader<T> loader) {
+        this.name = name;
+        this.loader = loader;
+    }
+
+    T get() {
+        if (loaded) {
+            hits.incrementAndGet();
+            return value;
+        }
+        synchronized (this) {
+            if (!loaded) {
+                misses.incrementAndGet();
+                value = loader.load();
+                loaded = true;
+            } else {
+                hits.incrementAndGet();
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Drop the cached value; the next get() loads it again
+     */
+    synchronized void invalidate() {
+        loaded = false;
+        value = null;
+    }
+
+    long getHits() { return hits.get(); }
+    long getMisses() { return misses.get(); }
+
+    @Override
+    public String toString() {
+        return name + " hits=" + hits.get() + " misses=" + misses.get();
+    }
+}
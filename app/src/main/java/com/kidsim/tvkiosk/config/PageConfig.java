@@ -4,6 +4,7 @@ public class PageConfig {
     private String url;
     private int displayTimeSeconds;
     private String title;
+    private boolean immutable;
     
     // Default constructor
     public PageConfig() {
@@ -24,13 +25,35 @@ public class PageConfig {
     
     // Getters and setters
     public String getUrl() { return url; }
-    public void setUrl(String url) { this.url = url; }
+    public void setUrl(String url) { checkMutable(); this.url = url; }
     
     public int getDisplayTimeSeconds() { return displayTimeSeconds; }
     public void setDisplayTimeSeconds(int displayTimeSeconds) { 
+        checkMutable();
         this.displayTimeSeconds = displayTimeSeconds; 
     }
     
     public String getTitle() { return title; }
-    public void setTitle(String title) { this.title = title; }
-}
\ No newline at end of file
+    public void setTitle(String title) { checkMutable(); this.title = title; }
+    
+    public boolean isImmutable() { return immutable; }
+    
+    /**
+     * Get an immutable copy of this page
+     */
+    public PageConfig toImmutable() {
+        if (immutable) {
+            return this;
+        }
+        PageConfig copy = new PageConfig(url, displayTimeSeconds);
+        copy.title = title;
+        copy.immutable = true;
+        return copy;
+    }
+    
+    private void checkMutable() {
+        if (immutable) {
+            throw new UnsupportedOperationException("PageConfig snapshot is immutable");
+        }
+    }
+}
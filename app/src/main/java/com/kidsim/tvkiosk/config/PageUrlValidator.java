@@ -0,0 +1,183 @@
+package com.kidsim.tvkiosk.config;
+
+import android.util.Log;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pre-flight check of the page URLs in a new configuration.
+ *
+ * Every distinct http(s) URL gets a HEAD request, or a one-byte ranged GET
+ * when the server refuses HEAD. Checks run in parallel on a few threads and
+ * the whole round has a deadline; a URL that hasn't answered by then counts
+ * as dead. Other schemes are not checked and count as live.
+ */
+public class PageUrlValidator {
+    private static final String TAG = "PageUrlValidator";
+
+    private static final int MAX_CONCURRENT_CHECKS = 4;
+    private static final int CHECK_TIMEOUT = 5000;
+    private static final long ROUND_DEADLINE = 10000;
+
+    public static class Result {
+        private final List<PageConfig> livePages;
+        private final Map<String, String> deadUrls;
+        private final int totalPages;
+
+        Result(List<PageConfig> livePages, Map<String, String> deadUrls, int totalPages) {
+            this.livePages = livePages;
+            this.deadUrls = deadUrls;
+            this.totalPages = totalPages;
+        }
+
+        public List<PageConfig> getLivePages() { return livePages; }
+
+        /**
+         * Dead URLs mapped to the reason they failed
+         */
+        public Map<String, String> getDeadUrls() { return deadUrls; }
+
+        public double getHealthyFraction() {
+            return totalPages == 0 ? 1.0 : (double) livePages.size() / totalPages;
+        }
+    }
+
+    private final ThreadPoolExecutor checkers;
+
+    public PageUrlValidator() {
+        AtomicInteger threadCount = new AtomicInteger();
+        checkers = new ThreadPoolExecutor(MAX_CONCURRENT_CHECKS, MAX_CONCURRENT_CHECKS, 30, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, "page-check-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        checkers.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Check every page, blocking until all checks finish or the deadline passes
+     */
+    public Result validate(List<PageConfig> pages) {
+        long start = System.currentTimeMillis();
+
+        // Playlists often repeat a URL; check each one once
+        Map<String, Callable<String>> checks = new LinkedHashMap<>();
+        for (PageConfig page : pages) {
+            String url = page.getUrl();
+            if (url != null && !checks.containsKey(url)) {
+                checks.put(url, () -> check(url));
+            }
+        }
+
+        Map<String, String> deadUrls = new LinkedHashMap<>();
+        try {
+            List<Future<String>> futures = checkers.invokeAll(new ArrayList<>(checks.values()),
+                ROUND_DEADLINE, TimeUnit.MILLISECONDS);
+            int i = 0;
+            for (String url : checks.keySet()) {
+                String failure = outcome(futures.get(i++));
+                if (failure != null) {
+                    deadUrls.put(url, failure);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Log.w(TAG, "Page checks interrupted, treating pages as live");
+        }
+
+        List<PageConfig> livePages = new ArrayList<>(pages.size());
+        for (PageConfig page : pages) {
+            if (page.getUrl() != null && !deadUrls.containsKey(page.getUrl())) {
+                livePages.add(page);
+            }
+        }
+
+        Log.i(TAG, "Checked " + checks.size() + " URLs in " + (System.currentTimeMillis() - start)
+            + "ms: " + livePages.size() + "/" + pages.size() + " pages live");
+        for (Map.Entry<String, String> dead : deadUrls.entrySet()) {
+            Log.w(TAG, "Dead page " + dead.getKey() + ": " + dead.getValue());
+        }
+        return new Result(Collections.unmodifiableList(livePages), Collections.unmodifiableMap(deadUrls),
+            pages.size());
+    }
+
+    public void shutdown() {
+        checkers.shutdownNow();
+    }
+
+    private static String outcome(Future<String> future) {
+        try {
+            return future.get();
+        } catch (CancellationException e) {
+            return "no answer within " + ROUND_DEADLINE + "ms";
+        } catch (ExecutionException e) {
+            return String.valueOf(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "interrupted";
+        }
+    }
+
+    /**
+     * @return null if the URL is live, otherwise why it isn't
+     */
+    private static String check(String urlString) {
+        URL url;
+        try {
+            url = new URL(urlString);
+        } catch (IOException e) {
+            return "malformed URL";
+        }
+        String protocol = url.getProtocol();
+        if (!"http".equals(protocol) && !"https".equals(protocol)) {
+            return null;
+        }
+
+        try {
+            int code = request(url, "HEAD");
+            if (code == HttpURLConnection.HTTP_BAD_METHOD || code == HttpURLConnection.HTTP_NOT_IMPLEMENTED) {
+                code = request(url, "GET");
+            }
+            // Auth walls and rate limits still mean the page exists; the WebView may have the cookies
+            if (code >= 400 && code != HttpURLConnection.HTTP_UNAUTHORIZED
+                    && code != HttpURLConnection.HTTP_FORBIDDEN && code != 429) {
+                return "HTTP " + code;
+            }
+            return null;
+        } catch (IOException e) {
+            return e.getClass().getSimpleName() + ": " + e.getMessage();
+        }
+    }
+
+    private static int request(URL url, String method) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        try {
+            connection.setRequestMethod(method);
+            connection.setConnectTimeout(CHECK_TIMEOUT);
+            connection.setReadTimeout(CHECK_TIMEOUT);
+            connection.setRequestProperty("User-Agent", "KioskTV-Android");
+            if ("GET".equals(method)) {
+                connection.setRequestProperty("Range", "bytes=0-0");
+            }
+            return connection.getResponseCode();
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.kidsim.tvkiosk.config;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.SystemClock;
+import android.util.Log;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Warms the network path to the playlist's page hosts shortly before the
+ * pool loads them.
+ *
+ * Hosts are resolved ahead of the load so the WebView's own lookup hits the
+ * system resolver cache. Permanent redirects (301, 308) found on the way are
+ * remembered for a day, so later loads go straight to the final URL instead
+ * of paying for the extra round trips. Connections can't be opened ahead:
+ * the WebView keeps its own socket pool, which app code has no way to fill.
+ */
+public class PageWarmer {
+    private static final String TAG = "PageWarmer";
+    private static final String PREFS_NAME = "PageRedirects";
+
+    // A host resolved this recently counts as warm
+    private static final long WARM_TTL = 60 * 1000; // 1 minute
+    private static final long REDIRECT_TTL = 24 * 60 * 60 * 1000L; // 24 hours
+    private static final int CHECK_TIMEOUT = 5000;
+    private static final int MAX_REDIRECTS = 5;
+
+    private final SharedPreferences redirects;
+    private final ConfigExecutor executor;
+    // Host -> elapsedRealtime of the last lookup
+    private final Map<String, Long> warmedHosts = new ConcurrentHashMap<>();
+    // URL -> elapsedRealtime of the last redirect check
+    private final Map<String, Long> redirectChecks = new ConcurrentHashMap<>();
+
+    public PageWarmer(Context context, ConfigExecutor executor) {
+        this.redirects = context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        this.executor = executor;
+    }
+
+    /**
+     * Resolve the hosts of these pages and look for new permanent redirects,
+     * in the background
+     */
+    public void warm(Collection<String> urls) {
+        List<String> pending = new ArrayList<>(urls);
+        try {
+            executor.execute(ConfigExecutor.Priority.NORMAL, () -> {
+                for (String url : pending) {
+                    checkRedirects(url);
+                    resolveHost(resolve(url));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "Page warm-up skipped, queue full");
+        }
+    }
+
+    /**
+     * Whether the host of this URL was resolved within the last WARM_TTL
+     */
+    public boolean isWarm(String url) {
+        String host = hostOf(url);
+        Long warmedAt = host != null ? warmedHosts.get(host) : null;
+        return warmedAt != null && SystemClock.elapsedRealtime() - warmedAt < WARM_TTL;
+    }
+
+    /**
+     * The final URL of a known permanent redirect, or the URL itself
+     */
+    public String resolve(String url) {
+        String entry = redirects.getString(url, null);
+        if (entry == null) {
+            return url;
+        }
+        // Stored as "target|expiresAt"
+        int separator = entry.lastIndexOf('|');
+        try {
+            if (separator > 0 && Long.parseLong(entry.substring(separator + 1)) > System.currentTimeMillis()) {
+                return entry.substring(0, separator);
+            }
+        } catch (NumberFormatException e) {
+            // Unreadable entry, treat as expired
+        }
+        return url;
+    }
+
+    /**
+     * Drop the redirect for this URL, e.g. because its target failed to load
+     */
+    public void forget(String url) {
+        if (redirects.contains(url)) {
+            Log.i(TAG, "Forgetting redirect for " + url);
+            redirects.edit().remove(url).apply();
+        }
+        redirectChecks.remove(url);
+    }
+
+    private void resolveHost(String url) {
+        String host = hostOf(url);
+        if (host == null || isWarm(url)) {
+            return;
+        }
+        long start = SystemClock.elapsedRealtime();
+        try {
+            InetAddress.getAllByName(host);
+            warmedHosts.put(host, SystemClock.elapsedRealtime());
+            Log.d(TAG, "Resolved " + host + " in " + (SystemClock.elapsedRealtime() - start) + "ms");
+        } catch (IOException e) {
+            Log.d(TAG, "Failed to resolve " + host + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Follow the chain of permanent redirects from this URL and remember where it ends
+     */
+    private void checkRedirects(String url) {
+        Long checkedAt = redirectChecks.get(url);
+        if (checkedAt != null && SystemClock.elapsedRealtime() - checkedAt < REDIRECT_TTL) {
+            return;
+        }
+
+        String current = url;
+        String permanentTarget = null;
+        try {
+            for (int hop = 0; hop < MAX_REDIRECTS; hop++) {
+                String next = permanentRedirect(current);
+                if (next == null) {
+                    break;
+                }
+                current = next;
+                permanentTarget = next;
+            }
+        } catch (IOException e) {
+            // Keep what we knew; the next warm-up tries again
+            Log.d(TAG, "Redirect check failed for " + url + ": " + e.getMessage());
+            return;
+        }
+        redirectChecks.put(url, SystemClock.elapsedRealtime());
+
+        if (permanentTarget == null) {
+            if (redirects.contains(url)) {
+                Log.i(TAG, "Redirect for " + url + " is gone");
+                redirects.edit().remove(url).apply();
+            }
+            return;
+        }
+        if (!permanentTarget.equals(resolve(url))) {
+            Log.i(TAG, "Permanent redirect " + url + " -> " + permanentTarget);
+        }
+        redirects.edit()
+            .putString(url, permanentTarget + "|" + (System.currentTimeMillis() + REDIRECT_TTL))
+            .apply();
+    }
+
+    /**
+     * @return the target of a 301 or 308 from this URL, or null if it doesn't redirect permanently
+     */
+    private static String permanentRedirect(String urlString) throws IOException {
+        URL url = new URL(urlString);
+        if (!"http".equals(url.getProtocol()) && !"https".equals(url.getProtocol())) {
+            return null;
+        }
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        try {
+            connection.setRequestMethod("HEAD");
+            connection.setInstanceFollowRedirects(false);
+            connection.setConnectTimeout(CHECK_TIMEOUT);
+            connection.setReadTimeout(CHECK_TIMEOUT);
+            connection.setRequestProperty("User-Agent", "KioskTV-Android");
+            int code = connection.getResponseCode();
+            String location = connection.getHeaderField("Location");
+            if ((code != HttpURLConnection.HTTP_MOVED_PERM && code != 308) || location == null) {
+                return null;
+            }
+            return new URL(url, location).toString();
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static String hostOf(String url) {
+        try {
+            return new URL(url).getHost();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
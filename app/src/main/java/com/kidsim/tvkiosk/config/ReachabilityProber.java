@@ -0,0 +1,179 @@
+package com.kidsim.tvkiosk.config;
+
+import android.os.SystemClock;
+import android.util.Log;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Checks whether the config and content hosts can actually be reached.
+ *
+ * A connected network can still be a captive portal or have a dead uplink.
+ * The prober sends a HEAD request to the origin of each target until one
+ * answers from the host it was asked. Any status over https proves that, as
+ * a portal can't pass TLS validation; over plain http a redirect to another
+ * host proves nothing, and HTTP 511 is a portal.
+ *
+ * The result is cached briefly when reachable, and for a backed-off period
+ * when not, so callers can ask before every refresh, retry and fetch without
+ * flooding the uplink.
+ */
+public class ReachabilityProber {
+    private static final String TAG = "ReachabilityProber";
+
+    private static final int PROBE_TIMEOUT = 4000;
+    private static final int MAX_TARGETS = 4;
+    private static final long REACHABLE_TTL = 60 * 1000; // 1 minute
+    private static final long UNREACHABLE_MIN_TTL = 15 * 1000; // 15 seconds
+    private static final long UNREACHABLE_MAX_TTL = 10 * 60 * 1000; // 10 minutes
+    private static final int HTTP_NETWORK_AUTHENTICATION_REQUIRED = 511;
+
+    public interface Callback {
+        void onReachability(boolean reachable);
+    }
+
+    private final BackoffPolicy unreachableBackoff = new BackoffPolicy(UNREACHABLE_MIN_TTL, UNREACHABLE_MAX_TTL);
+    private final ExecutorService prober = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "reachability-probe");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Object probeLock = new Object();
+
+    private volatile List<String> origins = new ArrayList<>();
+    private boolean reachable = false;
+    private long validUntil = 0;
+    private int consecutiveFailures = 0;
+
+    /**
+     * Set the URLs whose hosts are probed, most important first. Only their
+     * origins are requested.
+     */
+    public void setTargets(Collection<String> urls) {
+        Set<String> distinct = new LinkedHashSet<>();
+        for (String urlString : urls) {
+            if (distinct.size() >= MAX_TARGETS) {
+                break;
+            }
+            try {
+                URL url = new URL(urlString);
+                if ("http".equals(url.getProtocol()) || "https".equals(url.getProtocol())) {
+                    distinct.add(new URL(url.getProtocol(), url.getHost(), url.getPort(), "/").toString());
+                }
+            } catch (IOException | RuntimeException e) {
+                // Not probeable, skip it
+            }
+        }
+        origins = new ArrayList<>(distinct);
+    }
+
+    /**
+     * Forget the cached result, e.g. after the network changed
+     */
+    public void invalidate() {
+        synchronized (probeLock) {
+            validUntil = 0;
+            consecutiveFailures = 0;
+        }
+    }
+
+    /**
+     * The cached result if still valid, otherwise probe now. Blocks for up to
+     * a few seconds per target; call off the main thread.
+     */
+    public boolean checkReachable() {
+        synchronized (probeLock) {
+            // Concurrent callers wait here and share one probe
+            long now = SystemClock.elapsedRealtime();
+            if (now < validUntil) {
+                return reachable;
+            }
+            reachable = probe();
+            if (reachable) {
+                consecutiveFailures = 0;
+                validUntil = SystemClock.elapsedRealtime() + REACHABLE_TTL;
+            } else {
+                long backoff = unreachableBackoff.getDelayMillis(consecutiveFailures++);
+                validUntil = SystemClock.elapsedRealtime() + backoff;
+                Log.w(TAG, "Hosts unreachable, not probing again for " + (backoff / 1000) + "s");
+            }
+            return reachable;
+        }
+    }
+
+    /**
+     * Check without blocking; the result is delivered on the given executor
+     */
+    public void checkReachable(Executor callbackExecutor, Callback callback) {
+        prober.execute(() -> {
+            boolean result = checkReachable();
+            callbackExecutor.execute(() -> callback.onReachability(result));
+        });
+    }
+
+    public void shutdown() {
+        prober.shutdownNow();
+    }
+
+    private boolean probe() {
+        List<String> targets = origins;
+        if (targets.isEmpty()) {
+            // Nothing known to probe yet; don't hold work back
+            return true;
+        }
+        for (String origin : targets) {
+            String failure = probeOrigin(origin);
+            if (failure == null) {
+                return true;
+            }
+            Log.d(TAG, "Probe of " + origin + " failed: " + failure);
+        }
+        return false;
+    }
+
+    /**
+     * @return null if the origin answered itself, otherwise why it didn't
+     */
+    private static String probeOrigin(String origin) {
+        HttpURLConnection connection = null;
+        try {
+            URL url = new URL(origin);
+            connection = (HttpURLConnection) url.openConnection();
+            connection.setRequestMethod("HEAD");
+            connection.setInstanceFollowRedirects(false);
+            connection.setUseCaches(false);
+            connection.setConnectTimeout(PROBE_TIMEOUT);
+            connection.setReadTimeout(PROBE_TIMEOUT);
+            connection.setRequestProperty("User-Agent", "KioskTV-Android");
+
+            // Any status from the host itself proves the path there works
+            int code = connection.getResponseCode();
+            if (code == HTTP_NETWORK_AUTHENTICATION_REQUIRED) {
+                return "captive portal (HTTP 511)";
+            }
+            if ("http".equals(url.getProtocol()) && code >= 300 && code < 400) {
+                String location = connection.getHeaderField("Location");
+                if (location != null && !url.getHost().equalsIgnoreCase(new URL(url, location).getHost())) {
+                    return "redirected to " + location;
+                }
+            }
+            return null;
+        } catch (IOException e) {
+            // Including TLS failures when a portal intercepts https
+            return e.getClass().getSimpleName() + ": " + e.getMessage();
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.kidsim.tvkiosk.config;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+import android.util.Log;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming parser for Google Sheets API v4 "values" responses.
+ *
+ * Reads the values array row by row straight into the playlist model,
+ * skipping cells the sheet layout does not use. Device sheet structure:
+ * Row 1: "Refresh Minutes", refresh interval value (in column B)
+ * Row 4: "URL", "DisplaySeconds" (headers)
+ * Row 5+: actual URL, display time values
+ */
+public class SheetValuesParser {
+    private static final String TAG = "SheetValuesParser";
+
+    /**
+     * Last column the parser reads (URL, DisplaySeconds); loaders need not fetch past it
+     */
+    public static final String LAST_COLUMN = "B";
+
+    private static final int REFRESH_ROW = 0;
+    private static final int FIRST_PAGE_ROW = 4;
+    private static final int DEFAULT_REFRESH_MINUTES = 60;
+    private static final int DEFAULT_DISPLAY_SECONDS = 30;
+
+    private int refreshIntervalMinutes = DEFAULT_REFRESH_MINUTES;
+    private final List<PageConfig> pages = new ArrayList<>();
+    private int rowCount = 0;
+
+    /**
+     * Read one values response, appending its rows after any rows already read.
+     * The reader is closed when done.
+     *
+     * @return number of rows in this response
+     */
+    public int readValues(Reader in) throws IOException {
+        JsonReader reader = new JsonReader(in);
+        int rowsRead = 0;
+        try {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if ("values".equals(name) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        readRow(reader, rowCount);
+                        rowCount++;
+                        rowsRead++;
+                    }
+                    reader.endArray();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } finally {
+            reader.close();
+        }
+        return rowsRead;
+    }
+
+    private void readRow(JsonReader reader, int rowIndex) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            reader.skipValue();
+            return;
+        }
+
+        String first = null;
+        String second = null;
+        int cellCount = 0;
+
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (cellCount < 2) {
+                String cell = nextCell(reader);
+                if (cellCount == 0) {
+                    first = cell;
+                } else {
+                    second = cell;
+                }
+            } else {
+                // Columns beyond URL/DisplaySeconds are not used
+                reader.skipValue();
+            }
+            cellCount++;
+        }
+        reader.endArray();
+
+        if (rowIndex == REFRESH_ROW) {
+            if (cellCount > 1) {
+                try {
+                    refreshIntervalMinutes = Integer.parseInt(second.trim());
+                    Log.d(TAG, "Parsed refresh interval: " + refreshIntervalMinutes + " minutes");
+                } catch (NumberFormatException e) {
+                    Log.w(TAG, "Invalid refresh interval, using default: " + second);
+                }
+            }
+            return;
+        }
+
+        if (rowIndex < FIRST_PAGE_ROW || cellCount < 2) {
+            return;
+        }
+
+        String pageUrl = first.trim();
+        if (pageUrl.isEmpty()) {
+            return;
+        }
+
+        // Skip if this is a header row
+        if (pageUrl.equalsIgnoreCase("URL")) {
+            Log.d(TAG, "Skipping header row: " + pageUrl);
+            return;
+        }
+
+        int displayTime = DEFAULT_DISPLAY_SECONDS;
+        try {
+            displayTime = Integer.parseInt(second.trim());
+        } catch (NumberFormatException e) {
+            Log.w(TAG, "Invalid display time, using default: " + second);
+        }
+
+        PageConfig pageConfig = new PageConfig(pageUrl, displayTime);
+        pageConfig.setTitle("Page " + (pages.size() + 1));
+        pages.add(pageConfig);
+
+        Log.d(TAG, "Added page: " + pageUrl + " (display: " + displayTime + "s)");
+    }
+
+    private static String nextCell(JsonReader reader) throws IOException {
+        switch (reader.peek()) {
+            case STRING:
+            case NUMBER:
+                return reader.nextString();
+            case BOOLEAN:
+                return String.valueOf(reader.nextBoolean());
+            case NULL:
+                reader.nextNull();
+                return "";
+            default:
+                reader.skipValue();
+                return "";
+        }
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Build the device configuration from the rows read so far
+     *
+     * @return the configuration, or null if the sheet is too short or has no pages
+     */
+    public DeviceConfig toDeviceConfig(String deviceId) {
+        if (rowCount < FIRST_PAGE_ROW + 1) {
+            Log.e(TAG, "Sheet too short, expected at least " + (FIRST_PAGE_ROW + 1) + " rows");
+            return null;
+        }
+
+        if (pages.isEmpty()) {
+            Log.e(TAG, "No pages found in configuration");
+            return null;
+        }
+
+        String deviceName = deviceId + " Device";
+        Log.i(TAG, "Loaded config for " + deviceName + " with " + pages.size() + " pages, refresh: " + refreshIntervalMinutes + "min");
+
+        DeviceConfig config = new DeviceConfig();
+        config.setDeviceId(deviceId);
+        config.setDeviceName(deviceName);
+        config.setOrientation("landscape"); // Default orientation, will be overridden by stored preference
+        config.setRefreshIntervalMinutes(refreshIntervalMinutes);
+        config.setAutoStart(true);
+        config.setClearCache(true);
+        config.setPages(new ArrayList<>(pages));
+
+        return config;
+    }
+}
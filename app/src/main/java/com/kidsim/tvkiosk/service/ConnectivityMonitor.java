@@ -0,0 +1,98 @@
+package com.kidsim.tvkiosk.service;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tracks whether the device has a default network with internet access.
+ *
+ * The state is pushed by a default network callback and kept in an atomic
+ * field, so isConnected() is a plain read with no binder call. Changes are
+ * reported to the listener on the main thread.
+ */
+public class ConnectivityMonitor {
+    private static final String TAG = "ConnectivityMonitor";
+
+    public interface Listener {
+        /**
+         * Called on the main thread when connectivity is gained or lost
+         */
+        void onConnectivityChanged(boolean connected);
+    }
+
+    private final ConnectivityManager connectivityManager;
+    private final Listener listener;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final AtomicBoolean connected = new AtomicBoolean(true);
+    private volatile boolean registered = false;
+
+    private final ConnectivityManager.NetworkCallback networkCallback = new ConnectivityManager.NetworkCallback() {
+        @Override
+        public void onCapabilitiesChanged(Network network, NetworkCapabilities capabilities) {
+            // Not VALIDATED: some kiosk networks block the platform's validation probe
+            update(capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET));
+        }
+
+        @Override
+        public void onLost(Network network) {
+            // A replacement default network, if any, follows with onCapabilitiesChanged
+            update(false);
+        }
+    };
+
+    public ConnectivityMonitor(Context context, Listener listener) {
+        this.connectivityManager = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        this.listener = listener;
+    }
+
+    public synchronized void start() {
+        if (registered || connectivityManager == null) {
+            return;
+        }
+        // Seed the state; the callback only reports what changes from here on
+        NetworkCapabilities capabilities =
+            connectivityManager.getNetworkCapabilities(connectivityManager.getActiveNetwork());
+        connected.set(capabilities != null
+            && capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET));
+        try {
+            connectivityManager.registerDefaultNetworkCallback(networkCallback, mainHandler);
+            registered = true;
+            Log.i(TAG, "Connectivity monitor started, " + (connected.get() ? "CONNECTED" : "DISCONNECTED"));
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Failed to register network callback", e);
+        }
+    }
+
+    public synchronized void stop() {
+        if (!registered) {
+            return;
+        }
+        registered = false;
+        try {
+            connectivityManager.unregisterNetworkCallback(networkCallback);
+        } catch (IllegalArgumentException e) {
+            Log.w(TAG, "Network callback already unregistered", e);
+        }
+    }
+
+    public boolean isConnected() {
+        return connected.get();
+    }
+
+    private void update(boolean isConnected) {
+        if (connected.getAndSet(isConnected) == isConnected) {
+            return;
+        }
+        Log.i(TAG, "Network connectivity changed: " + (isConnected ? "CONNECTED" : "DISCONNECTED"));
+        // Already on the main thread; the handler passed at registration delivers callbacks there
+        if (registered) {
+            listener.onConnectivityChanged(isConnected);
+        }
+    }
+}
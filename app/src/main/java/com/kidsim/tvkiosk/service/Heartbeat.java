@@ -0,0 +1,165 @@
+package com.kidsim.tvkiosk.service;
+
+import android.content.Context;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Heartbeat shared between the kiosk process and the watchdog process
+ * through a small memory-mapped file, so the watchdog can check on the kiosk
+ * without binder calls.
+ *
+ * The kiosk writes its pid, state word and a counter that ticks while its
+ * main thread is responsive. Writes are wrapped in a sequence number
+ * (odd while writing) so the reader never uses a half-written record.
+ *
+ * Layout: magic, state, sequence, counter, pid, startedAt, lastBeatAt;
+ * times are elapsedRealtime, which both processes share.
+ */
+public class Heartbeat {
+    private static final String TAG = "Heartbeat";
+    private static final String FILE_NAME = "heartbeat.bin";
+    private static final int SIZE = 64;
+    private static final int MAGIC = 0x4B484231; // "KHB1"
+
+    private static final int OFFSET_MAGIC = 0;
+    private static final int OFFSET_STATE = 4;
+    private static final int OFFSET_SEQUENCE = 8;
+    private static final int OFFSET_COUNTER = 16;
+    private static final int OFFSET_PID = 24;
+    private static final int OFFSET_STARTED_AT = 32;
+    private static final int OFFSET_LAST_BEAT_AT = 40;
+    private static final int MAX_READ_ATTEMPTS = 5;
+
+    /** Process up, activity not yet running */
+    public static final int STATE_STARTING = 1;
+    /** Activity running; the counter must keep ticking */
+    public static final int STATE_RUNNING = 2;
+    /** Activity finished on purpose; nothing to supervise */
+    public static final int STATE_STOPPED = 3;
+
+    public static class Reading {
+        public final int state;
+        public final long counter;
+        public final int pid;
+        public final long startedAt;
+        public final long lastBeatAt;
+
+        Reading(int state, long counter, int pid, long startedAt, long lastBeatAt) {
+            this.state = state;
+            this.counter = counter;
+            this.pid = pid;
+            this.startedAt = startedAt;
+            this.lastBeatAt = lastBeatAt;
+        }
+    }
+
+    private static Heartbeat processHeartbeat;
+
+    private final MappedByteBuffer buffer;
+
+    private Heartbeat(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * The kiosk process's heartbeat. The first call in a process announces it
+     * as a new kiosk process; later calls, e.g. from a recreated activity, don't.
+     */
+    public static synchronized Heartbeat forKioskProcess(Context context) throws IOException {
+        if (processHeartbeat == null) {
+            Heartbeat heartbeat = open(context);
+            heartbeat.markStarting();
+            processHeartbeat = heartbeat;
+        }
+        return processHeartbeat;
+    }
+
+    /**
+     * Map the heartbeat file, creating it if needed
+     */
+    public static Heartbeat open(Context context) throws IOException {
+        File file = new File(context.getFilesDir(), FILE_NAME);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(SIZE);
+            // The mapping stays valid after the channel is closed
+            return new Heartbeat(raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, SIZE));
+        }
+    }
+
+    /**
+     * Announce a new kiosk process. Resets the counter.
+     */
+    public synchronized void markStarting() {
+        long now = SystemClock.elapsedRealtime();
+        beginWrite();
+        buffer.putInt(OFFSET_MAGIC, MAGIC);
+        buffer.putInt(OFFSET_STATE, STATE_STARTING);
+        buffer.putLong(OFFSET_COUNTER, 0);
+        buffer.putLong(OFFSET_PID, Process.myPid());
+        buffer.putLong(OFFSET_STARTED_AT, now);
+        buffer.putLong(OFFSET_LAST_BEAT_AT, now);
+        endWrite();
+    }
+
+    public synchronized void setState(int state) {
+        beginWrite();
+        buffer.putInt(OFFSET_STATE, state);
+        buffer.putLong(OFFSET_LAST_BEAT_AT, SystemClock.elapsedRealtime());
+        endWrite();
+    }
+
+    /**
+     * Tick the counter; call from the thread whose liveness is supervised
+     */
+    public synchronized void beat() {
+        beginWrite();
+        buffer.putLong(OFFSET_COUNTER, buffer.getLong(OFFSET_COUNTER) + 1);
+        buffer.putLong(OFFSET_LAST_BEAT_AT, SystemClock.elapsedRealtime());
+        endWrite();
+    }
+
+    /**
+     * Read a consistent record
+     *
+     * @return null if the kiosk never wrote one, or it was mid-write on every attempt
+     */
+    public Reading read() {
+        for (int attempt = 0; attempt < MAX_READ_ATTEMPTS; attempt++) {
+            long sequence = buffer.getLong(OFFSET_SEQUENCE);
+            if ((sequence & 1) != 0) {
+                Thread.yield();
+                continue;
+            }
+            if (buffer.getInt(OFFSET_MAGIC) != MAGIC) {
+                return null;
+            }
+            Reading reading = new Reading(
+                buffer.getInt(OFFSET_STATE),
+                buffer.getLong(OFFSET_COUNTER),
+                (int) buffer.getLong(OFFSET_PID),
+                buffer.getLong(OFFSET_STARTED_AT),
+                buffer.getLong(OFFSET_LAST_BEAT_AT));
+            if (buffer.getLong(OFFSET_SEQUENCE) == sequence) {
+                return reading;
+            }
+        }
+        Log.w(TAG, "Heartbeat kept changing while reading");
+        return null;
+    }
+
+    private void beginWrite() {
+        // Stays odd if a previous process died mid-write
+        buffer.putLong(OFFSET_SEQUENCE, buffer.getLong(OFFSET_SEQUENCE) | 1);
+    }
+
+    private void endWrite() {
+        buffer.putLong(OFFSET_SEQUENCE, buffer.getLong(OFFSET_SEQUENCE) + 1);
+    }
+}
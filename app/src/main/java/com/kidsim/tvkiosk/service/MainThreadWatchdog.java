@@ -0,0 +1,231 @@
+package com.kidsim.tvkiosk.service;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+import com.kidsim.tvkiosk.MainActivity;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Detects a stalled main thread.
+ *
+ * A background thread posts a ping to the main looper at a fixed cadence and
+ * records how long it took to run. A ping that hasn't run after
+ * STALL_THRESHOLD is a stall: the main thread's stack is logged, and once the
+ * thread recovers the listener is asked to recover in escalating steps. If
+ * the main thread never comes back within HARD_STALL_THRESHOLD, nothing on it
+ * can help, so the process is restarted.
+ *
+ * Each ping that runs also ticks the shared heartbeat that the out-of-process
+ * WatchdogService supervises.
+ */
+public class MainThreadWatchdog {
+    private static final String TAG = "MainThreadWatchdog";
+
+    private static final long PING_INTERVAL = 2000;
+    private static final long STALL_THRESHOLD = 5000;
+    private static final long HARD_STALL_THRESHOLD = 30000;
+    private static final long ESCALATION_WINDOW = 15 * 60 * 1000; // 15 minutes
+    private static final long REPORT_INTERVAL = 15 * 60 * 1000; // 15 minutes
+    private static final long RESTART_DELAY = 2000;
+    private static final int MAX_STACK_FRAMES = 40;
+
+    // Ping-to-pong delay bucket upper bounds in milliseconds, plus an overflow bucket
+    private static final long[] BUCKETS = { 16, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000 };
+
+    public enum RecoveryAction {
+        /** Reload the page on screen */
+        RELOAD_SLOT,
+        /** Replace every WebView in the pool */
+        RECREATE_POOL,
+        /** Recreate the activity */
+        RESTART_ACTIVITY
+    }
+
+    public interface RecoveryListener {
+        /**
+         * Called on the main thread after it recovers from a stall
+         */
+        void onStallRecovery(RecoveryAction action, long stallMillis);
+    }
+
+    private final Context context;
+    private final RecoveryListener listener;
+    private final Heartbeat heartbeat;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final long[] counts = new long[BUCKETS.length + 1];
+    private long maxDelay = 0;
+    private long pingCount = 0;
+
+    private volatile boolean running = false;
+    private Thread thread;
+    private int recentStalls = 0;
+    private long lastStallAt = 0;
+
+    /**
+     * @param heartbeat ticked from the main thread on every ping; may be null
+     */
+    public MainThreadWatchdog(Context context, RecoveryListener listener, Heartbeat heartbeat) {
+        this.context = context.getApplicationContext();
+        this.listener = listener;
+        this.heartbeat = heartbeat;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::runLoop, "main-thread-watchdog");
+        thread.setDaemon(true);
+        thread.start();
+        Log.i(TAG, "Main thread watchdog started");
+    }
+
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+        Log.i(TAG, "Main thread watchdog stopped; " + getLatencySummary());
+    }
+
+    /**
+     * Ping-to-pong delay distribution so far
+     */
+    public synchronized String getLatencySummary() {
+        StringBuilder summary = new StringBuilder("main thread delay over ").append(pingCount)
+            .append(" pings, max ").append(maxDelay).append("ms:");
+        for (int i = 0; i <= BUCKETS.length; i++) {
+            if (counts[i] == 0) {
+                continue;
+            }
+            summary.append(i < BUCKETS.length ? " <=" + BUCKETS[i] : " >" + BUCKETS[BUCKETS.length - 1])
+                .append("ms=").append(counts[i]);
+        }
+        return summary.toString();
+    }
+
+    private void runLoop() {
+        long lastReport = SystemClock.uptimeMillis();
+        try {
+            while (running) {
+                AtomicLong pongAt = new AtomicLong();
+                CountDownLatch pong = new CountDownLatch(1);
+                long sentAt = SystemClock.uptimeMillis();
+                mainHandler.post(() -> {
+                    pongAt.set(SystemClock.uptimeMillis());
+                    pong.countDown();
+                    if (heartbeat != null) {
+                        heartbeat.beat();
+                    }
+                });
+
+                if (!pong.await(STALL_THRESHOLD, TimeUnit.MILLISECONDS)) {
+                    Log.w(TAG, "Main thread stalled for " + STALL_THRESHOLD + "ms" + sampleMainStack());
+                    if (!pong.await(HARD_STALL_THRESHOLD - STALL_THRESHOLD, TimeUnit.MILLISECONDS)) {
+                        Log.e(TAG, "Main thread stuck for " + HARD_STALL_THRESHOLD + "ms" + sampleMainStack());
+                        RestartJournal.getInstance(context).append(RestartJournal.Event.HANG,
+                            "Main thread stuck for " + HARD_STALL_THRESHOLD + "ms, restarting process");
+                        restartProcess();
+                        return;
+                    }
+                }
+
+                long delay = pongAt.get() - sentAt;
+                record(delay);
+                if (delay >= STALL_THRESHOLD) {
+                    escalate(delay);
+                }
+
+                long now = SystemClock.uptimeMillis();
+                if (now - lastReport >= REPORT_INTERVAL) {
+                    lastReport = now;
+                    Log.i(TAG, getLatencySummary());
+                }
+                Thread.sleep(Math.max(0, PING_INTERVAL - delay));
+            }
+        } catch (InterruptedException e) {
+            // Stopped
+        }
+    }
+
+    private synchronized void record(long delay) {
+        int bucket = 0;
+        while (bucket < BUCKETS.length && delay > BUCKETS[bucket]) {
+            bucket++;
+        }
+        counts[bucket]++;
+        pingCount++;
+        maxDelay = Math.max(maxDelay, delay);
+    }
+
+    /**
+     * Pick the next recovery step; repeated stalls within the window escalate
+     */
+    private void escalate(long stallMillis) {
+        long now = SystemClock.uptimeMillis();
+        if (now - lastStallAt > ESCALATION_WINDOW) {
+            recentStalls = 0;
+        }
+        lastStallAt = now;
+        recentStalls++;
+
+        RecoveryAction action;
+        if (recentStalls == 1) {
+            action = RecoveryAction.RELOAD_SLOT;
+        } else if (recentStalls == 2) {
+            action = RecoveryAction.RECREATE_POOL;
+        } else {
+            action = RecoveryAction.RESTART_ACTIVITY;
+            recentStalls = 0;
+        }
+
+        Log.w(TAG, "Main thread recovered after " + stallMillis + "ms, recovering with " + action);
+        RestartJournal.getInstance(context).append(RestartJournal.Event.WATCHDOG,
+            "Main thread stalled " + stallMillis + "ms, " + action);
+        mainHandler.post(() -> {
+            if (running) {
+                listener.onStallRecovery(action, stallMillis);
+            }
+        });
+    }
+
+    private static String sampleMainStack() {
+        StackTraceElement[] frames = Looper.getMainLooper().getThread().getStackTrace();
+        StringBuilder out = new StringBuilder(", main thread stack:");
+        int shown = Math.min(frames.length, MAX_STACK_FRAMES);
+        for (int i = 0; i < shown; i++) {
+            out.append("\n    at ").append(frames[i]);
+        }
+        if (frames.length > shown) {
+            out.append(String.format(Locale.US, "\n    ... %d more", frames.length - shown));
+        }
+        return out.toString();
+    }
+
+    private void restartProcess() {
+        try {
+            Intent intent = new Intent(context, MainActivity.class);
+            intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
+            PendingIntent restart = PendingIntent.getActivity(context, 0, intent,
+                PendingIntent.FLAG_CANCEL_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+            AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+            alarmManager.set(AlarmManager.ELAPSED_REALTIME, SystemClock.elapsedRealtime() + RESTART_DELAY, restart);
+            Log.e(TAG, "Restarting process, " + getLatencySummary());
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to schedule restart", e);
+        }
+        Process.killProcess(Process.myPid());
+    }
+}
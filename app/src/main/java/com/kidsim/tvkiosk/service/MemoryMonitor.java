@@ -0,0 +1,137 @@
+package com.kidsim.tvkiosk.service;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.os.Debug;
+import java.util.Locale;
+
+/**
+ * Samples the app's real memory footprint and judges memory pressure.
+ *
+ * PSS covers the Java heap, the native heap and graphics memory of this
+ * process. WebView renderers run in isolated processes whose PSS we cannot
+ * read, so their growth shows up as falling system available memory instead.
+ * Thresholds scale with the device's total RAM and the system's own
+ * low-memory threshold rather than fixed sizes.
+ */
+public class MemoryMonitor {
+    // Share of device RAM this process may use before shedding pool slots
+    private static final double PSS_BUDGET_FRACTION = 0.3;
+    private static final double PSS_ELEVATED_FRACTION = 0.75;
+    // Multiples of the system low-memory threshold
+    private static final double AVAIL_ELEVATED_FACTOR = 2.0;
+    private static final double JAVA_HEAP_ELEVATED = 0.85;
+    private static final double JAVA_HEAP_CRITICAL = 0.95;
+
+    public enum Pressure { NORMAL, ELEVATED, CRITICAL }
+
+    public enum Maintenance {
+        /** Replace every WebView in the pool */
+        REBUILD_POOL,
+        /** Recreate the activity */
+        RESTART_ACTIVITY
+    }
+
+    public interface PressureListener {
+        /**
+         * Called on the main thread when the pressure level changes
+         */
+        void onMemoryPressure(Pressure pressure);
+
+        /**
+         * Called on the main thread when memory growth calls for maintenance.
+         * Run it at the next rotation boundary, never in the middle of a page.
+         */
+        void onMaintenanceDue(Maintenance maintenance);
+    }
+
+    public static class Sample {
+        public final long timestamp;
+        public final long totalPssKb;
+        public final long javaHeapPssKb;
+        public final long nativeHeapPssKb;
+        public final long graphicsPssKb;
+        public final long nativeAllocatedKb;
+        public final long javaUsedKb;
+        public final long javaMaxKb;
+        public final long availMemKb;
+        public final long totalMemKb;
+        public final long lowMemoryThresholdKb;
+        public final boolean lowMemory;
+
+        Sample(long timestamp, Debug.MemoryInfo pss, ActivityManager.MemoryInfo system) {
+            Runtime runtime = Runtime.getRuntime();
+            this.timestamp = timestamp;
+            this.totalPssKb = pss.getTotalPss();
+            this.javaHeapPssKb = statKb(pss, "summary.java-heap");
+            this.nativeHeapPssKb = statKb(pss, "summary.native-heap");
+            this.graphicsPssKb = statKb(pss, "summary.graphics");
+            this.nativeAllocatedKb = Debug.getNativeHeapAllocatedSize() / 1024;
+            this.javaUsedKb = (runtime.totalMemory() - runtime.freeMemory()) / 1024;
+            this.javaMaxKb = runtime.maxMemory() / 1024;
+            this.availMemKb = system.availMem / 1024;
+            this.totalMemKb = system.totalMem / 1024;
+            this.lowMemoryThresholdKb = system.threshold / 1024;
+            this.lowMemory = system.lowMemory;
+        }
+
+        private static long statKb(Debug.MemoryInfo pss, String name) {
+            String value = pss.getMemoryStat(name);
+            try {
+                return value != null ? Long.parseLong(value) : 0;
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                "pss=%dMB (java %dMB, native %dMB, graphics %dMB), nativeAlloc=%dMB, javaHeap=%d/%dMB, "
+                    + "system avail=%d/%dMB (low at %dMB)%s",
+                totalPssKb / 1024, javaHeapPssKb / 1024, nativeHeapPssKb / 1024, graphicsPssKb / 1024,
+                nativeAllocatedKb / 1024, javaUsedKb / 1024, javaMaxKb / 1024,
+                availMemKb / 1024, totalMemKb / 1024, lowMemoryThresholdKb / 1024,
+                lowMemory ? " LOW" : "");
+        }
+    }
+
+    private final ActivityManager activityManager;
+
+    public MemoryMonitor(Context context) {
+        this.activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+    }
+
+    /**
+     * Take a sample. Takes tens of milliseconds; call off the main thread.
+     */
+    public Sample sample() {
+        Debug.MemoryInfo pss = new Debug.MemoryInfo();
+        Debug.getMemoryInfo(pss);
+        ActivityManager.MemoryInfo system = new ActivityManager.MemoryInfo();
+        activityManager.getMemoryInfo(system);
+        return new Sample(System.currentTimeMillis(), pss, system);
+    }
+
+    /**
+     * Budget for this process's PSS on this device
+     */
+    public static long getPssBudgetKb(Sample sample) {
+        return (long) (sample.totalMemKb * PSS_BUDGET_FRACTION);
+    }
+
+    public static Pressure evaluate(Sample sample) {
+        long pssBudget = getPssBudgetKb(sample);
+        double javaHeapUse = sample.javaMaxKb > 0 ? (double) sample.javaUsedKb / sample.javaMaxKb : 0;
+
+        if (sample.lowMemory || sample.totalPssKb > pssBudget || javaHeapUse > JAVA_HEAP_CRITICAL) {
+            return Pressure.CRITICAL;
+        }
+        if (sample.availMemKb < sample.lowMemoryThresholdKb * AVAIL_ELEVATED_FACTOR
+                || sample.totalPssKb > pssBudget * PSS_ELEVATED_FRACTION
+                || javaHeapUse > JAVA_HEAP_ELEVATED) {
+            return Pressure.ELEVATED;
+        }
+        return Pressure.NORMAL;
+    }
+}
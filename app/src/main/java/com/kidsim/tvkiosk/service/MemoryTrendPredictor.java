@@ -0,0 +1,186 @@
+package com.kidsim.tvkiosk.service;
+
+import java.util.ArrayDeque;
+
+/**
+ * Fits a least-squares line to memory samples over a sliding time window
+ * and predicts when the trend reaches a limit.
+ *
+ * The window is split into buckets and the line is fitted to each bucket's
+ * lowest sample, the floor memory returns to after GC, so sawtooth from
+ * normal churn doesn't hide a slow leak or fake one. A prediction is only
+ * made once the window holds enough data over a long enough span and the
+ * line explains most of the variation. Plain Java, no Android types.
+ */
+public class MemoryTrendPredictor {
+    public static final long NO_PREDICTION = Long.MAX_VALUE;
+
+    private static final int MIN_SAMPLES = 20;
+    private static final int BUCKETS_PER_WINDOW = 24;
+    private static final double MIN_R_SQUARED = 0.6;
+    private static final double MILLIS_PER_HOUR = 60 * 60 * 1000.0;
+
+    private static class Sample {
+        final long time;
+        final double value;
+
+        Sample(long time, double value) {
+            this.time = time;
+            this.value = value;
+        }
+    }
+
+    private final long windowMillis;
+    private final long minSpanMillis;
+    private final long bucketMillis;
+    private final ArrayDeque<Sample> samples = new ArrayDeque<>();
+
+    // Fit of the current window, recomputed lazily
+    private boolean fitted = false;
+    private double slopePerHour;
+    private double intercept;
+    private double rSquared;
+
+    /**
+     * @param windowMillis samples older than this, relative to the newest, are dropped
+     */
+    public MemoryTrendPredictor(long windowMillis) {
+        this.windowMillis = windowMillis;
+        this.minSpanMillis = windowMillis / 4;
+        this.bucketMillis = Math.max(1, windowMillis / BUCKETS_PER_WINDOW);
+    }
+
+    public void addSample(long timeMillis, double value) {
+        samples.addLast(new Sample(timeMillis, value));
+        while (samples.peekFirst().time < timeMillis - windowMillis) {
+            samples.removeFirst();
+        }
+        fitted = false;
+    }
+
+    /**
+     * Forget all samples, e.g. after memory was reclaimed by a rebuild
+     */
+    public void clear() {
+        samples.clear();
+        fitted = false;
+    }
+
+    public int getSampleCount() {
+        return samples.size();
+    }
+
+    /**
+     * Whether the window holds enough data for a prediction
+     */
+    public boolean hasEnoughData() {
+        return samples.size() >= MIN_SAMPLES
+            && samples.peekLast().time - samples.peekFirst().time >= minSpanMillis;
+    }
+
+    /**
+     * Growth rate of the fitted line in value units per hour
+     */
+    public double getSlopePerHour() {
+        fit();
+        return slopePerHour;
+    }
+
+    /**
+     * How well the line fits, from 0 (not at all) to 1 (perfectly)
+     */
+    public double getRSquared() {
+        fit();
+        return rSquared;
+    }
+
+    /**
+     * Time from the newest sample until the fitted line reaches the limit
+     *
+     * @return milliseconds, 0 if already past it, or NO_PREDICTION if there
+     *         is no clear upward trend
+     */
+    public long predictTimeToLimit(double limit) {
+        if (!hasEnoughData()) {
+            return NO_PREDICTION;
+        }
+        fit();
+        if (slopePerHour <= 0 || rSquared < MIN_R_SQUARED) {
+            return NO_PREDICTION;
+        }
+        // intercept is the fitted value at the newest sample
+        double remaining = limit - intercept;
+        if (remaining <= 0) {
+            return 0;
+        }
+        double hours = remaining / slopePerHour;
+        return hours * MILLIS_PER_HOUR >= NO_PREDICTION ? NO_PREDICTION : (long) (hours * MILLIS_PER_HOUR);
+    }
+
+    private void fit() {
+        if (fitted) {
+            return;
+        }
+        fitted = true;
+        slopePerHour = 0;
+        intercept = samples.isEmpty() ? 0 : samples.peekLast().value;
+        rSquared = 0;
+        if (samples.size() < 2) {
+            return;
+        }
+
+        // Lowest sample per bucket, times in hours relative to the newest sample
+        // so the sums stay small and well conditioned
+        long oldest = samples.peekFirst().time;
+        long newest = samples.peekLast().time;
+        int bucketCount = (int) ((newest - oldest) / bucketMillis) + 1;
+        double[] xs = new double[bucketCount];
+        double[] ys = new double[bucketCount];
+        boolean[] used = new boolean[bucketCount];
+        for (Sample sample : samples) {
+            int bucket = (int) ((sample.time - oldest) / bucketMillis);
+            if (!used[bucket] || sample.value < ys[bucket]) {
+                used[bucket] = true;
+                xs[bucket] = (sample.time - newest) / MILLIS_PER_HOUR;
+                ys[bucket] = sample.value;
+            }
+        }
+
+        int n = 0;
+        double sumX = 0;
+        double sumY = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            if (used[i]) {
+                n++;
+                sumX += xs[i];
+                sumY += ys[i];
+            }
+        }
+        if (n < 2) {
+            return;
+        }
+        double meanX = sumX / n;
+        double meanY = sumY / n;
+
+        double sxx = 0;
+        double sxy = 0;
+        double syy = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            if (!used[i]) {
+                continue;
+            }
+            double dx = xs[i] - meanX;
+            double dy = ys[i] - meanY;
+            sxx += dx * dx;
+            sxy += dx * dy;
+            syy += dy * dy;
+        }
+        if (sxx == 0) {
+            return;
+        }
+
+        slopePerHour = sxy / sxx;
+        intercept = meanY - slopePerHour * meanX;
+        rSquared = syy == 0 ? 1.0 : (sxy * sxy) / (sxx * syy);
+    }
+}
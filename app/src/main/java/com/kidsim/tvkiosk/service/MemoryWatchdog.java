@@ -0,0 +1,199 @@
+package com.kidsim.tvkiosk.service;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.util.Log;
+import java.util.Calendar;
+import java.util.Locale;
+
+/**
+ * Watches the kiosk process's memory from inside it, since PSS can only be
+ * sampled for the calling process.
+ *
+ * Samples every minute on its own thread. Pressure changes are reported so
+ * the activity can shed pool slots, and the growth trend is fitted to
+ * schedule maintenance before memory runs out, preferably in the quiet
+ * window. Both are delivered on the main thread.
+ */
+public class MemoryWatchdog {
+    private static final String TAG = "MemoryWatchdog";
+    private static final long SAMPLE_INTERVAL = 60000; // 1 minute
+
+    // Pressure must persist this many samples before acting on it
+    private static final int NORMAL_SAMPLES_BEFORE_RESTORE = 3;
+    private static final int CRITICAL_SAMPLES_BEFORE_RESTART = 5;
+
+    // Predictive maintenance: fit memory growth and act before it runs out
+    private static final long TREND_WINDOW = 6 * 60 * 60 * 1000L; // 6 hours
+    private static final long MAINTENANCE_HORIZON = 24 * 60 * 60 * 1000L; // 24 hours
+    private static final long MAINTENANCE_MARGIN = 60 * 60 * 1000L; // 1 hour
+    private static final long REBUILD_ESCALATION_WINDOW = 24 * 60 * 60 * 1000L; // 24 hours
+    private static final int QUIET_START_HOUR = 2; // 02:00 local
+    private static final int QUIET_END_HOUR = 5; // 05:00 local
+
+    private final MemoryMonitor memoryMonitor;
+    private final MemoryMonitor.PressureListener listener;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private HandlerThread thread;
+    private Handler handler;
+    private volatile boolean running = false;
+
+    private MemoryMonitor.Pressure reportedPressure = MemoryMonitor.Pressure.NORMAL;
+    private int normalSamples = 0;
+    private int criticalSamples = 0;
+
+    private final MemoryTrendPredictor pssTrend = new MemoryTrendPredictor(TREND_WINDOW);
+    private final MemoryTrendPredictor systemTrend = new MemoryTrendPredictor(TREND_WINDOW);
+    private long lastMaintenanceAt = 0;
+
+    private final Runnable sampleRunnable = new Runnable() {
+        @Override
+        public void run() {
+            performCheck();
+            if (running) {
+                handler.postDelayed(this, SAMPLE_INTERVAL);
+            }
+        }
+    };
+
+    public MemoryWatchdog(Context context, MemoryMonitor.PressureListener listener) {
+        this.memoryMonitor = new MemoryMonitor(context);
+        this.listener = listener;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        // Sampling PSS takes a while, keep it off the main thread
+        thread = new HandlerThread("memory-watchdog");
+        thread.start();
+        handler = new Handler(thread.getLooper());
+        handler.post(sampleRunnable);
+        Log.d(TAG, "Memory watchdog started");
+    }
+
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            handler.removeCallbacks(sampleRunnable);
+            thread.quitSafely();
+            thread = null;
+        }
+        Log.d(TAG, "Memory watchdog stopped");
+    }
+
+    private void performCheck() {
+        try {
+            MemoryMonitor.Sample sample = memoryMonitor.sample();
+            MemoryMonitor.Pressure pressure = MemoryMonitor.evaluate(sample);
+            Log.d(TAG, "Memory " + pressure + ": " + sample);
+            checkMemoryTrend(sample);
+
+            if (pressure == MemoryMonitor.Pressure.NORMAL) {
+                criticalSamples = 0;
+                // Restore slots only once pressure has stayed away for a while
+                if (++normalSamples >= NORMAL_SAMPLES_BEFORE_RESTORE) {
+                    reportPressure(pressure);
+                }
+                return;
+            }
+
+            normalSamples = 0;
+            if (pressure.compareTo(reportedPressure) > 0) {
+                Log.w(TAG, "Memory pressure " + pressure + ", shedding pool slots: " + sample);
+                reportPressure(pressure);
+            }
+
+            if (pressure == MemoryMonitor.Pressure.CRITICAL) {
+                // Shedding didn't help; a restart is the last resort
+                if (++criticalSamples >= CRITICAL_SAMPLES_BEFORE_RESTART) {
+                    Log.e(TAG, "Memory still critical after shedding, restarting: " + sample);
+                    criticalSamples = 0;
+                    requestMaintenance(MemoryMonitor.Maintenance.RESTART_ACTIVITY);
+                }
+            } else {
+                criticalSamples = 0;
+            }
+
+        } catch (Exception e) {
+            Log.e(TAG, "Error during memory check", e);
+        }
+    }
+
+    /**
+     * Predict when memory runs out and schedule maintenance in time, preferably in the quiet window
+     */
+    private void checkMemoryTrend(MemoryMonitor.Sample sample) {
+        long now = sample.timestamp;
+        pssTrend.addSample(now, sample.totalPssKb);
+        systemTrend.addSample(now, sample.totalMemKb - sample.availMemKb);
+
+        long untilExhausted = Math.min(
+            pssTrend.predictTimeToLimit(MemoryMonitor.getPssBudgetKb(sample)),
+            systemTrend.predictTimeToLimit(sample.totalMemKb - sample.lowMemoryThresholdKb));
+        if (untilExhausted > MAINTENANCE_HORIZON) {
+            return;
+        }
+
+        long untilQuiet = millisUntilQuietWindow(now);
+        String trend = String.format(Locale.US, "memory exhausted in ~%.1fh (pss %+.1fMB/h, system %+.1fMB/h)",
+            untilExhausted / 3600000.0, pssTrend.getSlopePerHour() / 1024, systemTrend.getSlopePerHour() / 1024);
+        if (untilQuiet > 0 && untilQuiet + MAINTENANCE_MARGIN < untilExhausted) {
+            Log.d(TAG, "Predicted " + trend + ", maintenance deferred to quiet window in "
+                + (untilQuiet / 60000) + " minutes");
+            return;
+        }
+
+        // A rebuild that didn't hold is followed by a full restart
+        MemoryMonitor.Maintenance maintenance = lastMaintenanceAt > 0 && now - lastMaintenanceAt < REBUILD_ESCALATION_WINDOW
+            ? MemoryMonitor.Maintenance.RESTART_ACTIVITY
+            : MemoryMonitor.Maintenance.REBUILD_POOL;
+        lastMaintenanceAt = now;
+        pssTrend.clear();
+        systemTrend.clear();
+
+        Log.w(TAG, "Predicted " + trend + ", requesting " + maintenance);
+        requestMaintenance(maintenance);
+    }
+
+    private static long millisUntilQuietWindow(long now) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(now);
+        int hour = calendar.get(Calendar.HOUR_OF_DAY);
+        if (hour >= QUIET_START_HOUR && hour < QUIET_END_HOUR) {
+            return 0;
+        }
+        calendar.set(Calendar.HOUR_OF_DAY, QUIET_START_HOUR);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        if (calendar.getTimeInMillis() <= now) {
+            calendar.add(Calendar.DAY_OF_MONTH, 1);
+        }
+        return calendar.getTimeInMillis() - now;
+    }
+
+    private void reportPressure(MemoryMonitor.Pressure pressure) {
+        if (pressure == reportedPressure) {
+            return;
+        }
+        reportedPressure = pressure;
+        mainHandler.post(() -> {
+            if (running) {
+                listener.onMemoryPressure(pressure);
+            }
+        });
+    }
+
+    private void requestMaintenance(MemoryMonitor.Maintenance maintenance) {
+        mainHandler.post(() -> {
+            if (running) {
+                listener.onMaintenanceDue(maintenance);
+            }
+        });
+    }
+}
@@ -0,0 +1,269 @@
+package com.kidsim.tvkiosk.service;
+
+import android.content.Context;
+import android.os.Process;
+import android.util.Log;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Append-only journal of kiosk starts, restarts, crashes, renderer deaths and
+ * watchdog actions, kept in a fixed-size ring file so it never grows.
+ *
+ * The kiosk and the watchdog process both append to it; a file lock keeps
+ * their records apart. Each record is written before the header that makes
+ * it visible, so a process dying mid-append loses at most that record.
+ *
+ * The journal also judges whether the kiosk is in a crash loop and how far it
+ * should degrade to get out of it.
+ */
+public class RestartJournal {
+    private static final String TAG = "RestartJournal";
+    private static final String FILE_NAME = "restart_journal.bin";
+    private static final int MAGIC = 0x4B524A31; // "KRJ1"
+
+    // Header: magic, next sequence number
+    static final int HEADER_SIZE = 16;
+    private static final int OFFSET_NEXT_SEQUENCE = 8;
+    // Record: sequence, wall clock time, event, pid, reason length, UTF-8 reason
+    static final int RECORD_SIZE = 128;
+    private static final int RECORD_REASON = 26;
+    static final int MAX_REASON_BYTES = RECORD_SIZE - RECORD_REASON;
+    static final int CAPACITY = 256;
+
+    // Failures closer together than this are one incident, e.g. every WebView losing a shared renderer
+    private static final long INCIDENT_MERGE = 15000;
+    private static final long CRASH_LOOP_WINDOW = 60 * 60 * 1000; // 1 hour
+    // Incidents in the window for each degradation step; all are reached
+    // within the watchdog's budget of 5 starts per hour
+    private static final int[] DEGRADATION_THRESHOLDS = { 2, 3, 4 };
+
+    /** Journal events. The ordinal is stored, so new events go at the end. */
+    public enum Event {
+        START,
+        RESTART,
+        CRASH,
+        RENDERER_GONE,
+        HANG,
+        PROCESS_DIED,
+        WATCHDOG,
+        DEGRADATION;
+
+        /** Counts towards crash loop detection */
+        public boolean isFailure() {
+            return this == CRASH || this == RENDERER_GONE || this == HANG || this == PROCESS_DIED;
+        }
+    }
+
+    public enum Degradation {
+        /** Full pool, live configuration */
+        NONE,
+        /** Only the visible and the next page loaded */
+        REDUCED_POOL,
+        /** Reduced pool, no configuration fetches; the stored snapshot stays on screen */
+        SNAPSHOT_ONLY,
+        /** Reduced pool showing the fallback configuration */
+        FALLBACK_CONFIG
+    }
+
+    public static class Entry {
+        public final long sequence;
+        public final long timeMillis;
+        public final Event event;
+        public final int pid;
+        public final String reason;
+
+        Entry(long sequence, long timeMillis, Event event, int pid, String reason) {
+            this.sequence = sequence;
+            this.timeMillis = timeMillis;
+            this.event = event;
+            this.pid = pid;
+            this.reason = reason;
+        }
+
+        @Override
+        public String toString() {
+            return new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.US).format(new Date(timeMillis))
+                + " #" + sequence + " " + event + " pid " + pid + ": " + reason;
+        }
+    }
+
+    private static RestartJournal instance;
+    private static boolean crashHandlerInstalled = false;
+
+    private final File file;
+
+    RestartJournal(File file) {
+        this.file = file;
+    }
+
+    /**
+     * The journal of this process. File locks are held per process, so every
+     * writer in a process must go through the same instance.
+     */
+    public static synchronized RestartJournal getInstance(Context context) {
+        if (instance == null) {
+            instance = new RestartJournal(new File(context.getFilesDir(), FILE_NAME));
+        }
+        return instance;
+    }
+
+    /**
+     * Journal uncaught exceptions before the default handler kills the process
+     */
+    public static synchronized void installCrashHandler(Context context) {
+        if (crashHandlerInstalled) {
+            return;
+        }
+        crashHandlerInstalled = true;
+        RestartJournal journal = getInstance(context);
+        Thread.UncaughtExceptionHandler previous = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler((thread, e) -> {
+            journal.append(Event.CRASH, "Uncaught on " + thread.getName() + ": " + e);
+            if (previous != null) {
+                previous.uncaughtException(thread, e);
+            } else {
+                Process.killProcess(Process.myPid());
+                System.exit(10);
+            }
+        });
+    }
+
+    /**
+     * Append an event. Never throws; a journal that can't be written must not
+     * take its caller down.
+     */
+    public synchronized void append(Event event, String reason) {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw");
+             FileChannel channel = raf.getChannel()) {
+            // Released when the channel closes
+            channel.lock();
+            ByteBuffer header = readHeader(channel);
+            long sequence = header.getInt(0) == MAGIC ? header.getLong(OFFSET_NEXT_SEQUENCE) : 0;
+
+            ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+            byte[] reasonBytes = truncate(reason != null ? reason : "", MAX_REASON_BYTES);
+            record.putLong(sequence)
+                .putLong(System.currentTimeMillis())
+                .putInt(event.ordinal())
+                .putInt(Process.myPid())
+                .putShort((short) reasonBytes.length)
+                .put(reasonBytes);
+            record.rewind();
+            channel.write(record, HEADER_SIZE + (sequence % CAPACITY) * RECORD_SIZE);
+            channel.force(false);
+
+            header.clear();
+            header.putInt(0, MAGIC);
+            header.putLong(OFFSET_NEXT_SEQUENCE, sequence + 1);
+            channel.write(header, 0);
+            channel.force(false);
+            Log.i(TAG, event + ": " + reason);
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Failed to journal " + event + ": " + reason, e);
+        }
+    }
+
+    /**
+     * All entries still in the ring, oldest first
+     */
+    public synchronized List<Entry> readEntries() {
+        List<Entry> entries = new ArrayList<>();
+        if (!file.exists()) {
+            return entries;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw");
+             FileChannel channel = raf.getChannel()) {
+            channel.lock(0, Long.MAX_VALUE, true);
+            ByteBuffer header = readHeader(channel);
+            if (header.getInt(0) != MAGIC) {
+                return entries;
+            }
+            long next = header.getLong(OFFSET_NEXT_SEQUENCE);
+            ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+            for (long sequence = Math.max(0, next - CAPACITY); sequence < next; sequence++) {
+                record.clear();
+                channel.read(record, HEADER_SIZE + (sequence % CAPACITY) * RECORD_SIZE);
+                Entry entry = parseRecord(record, sequence);
+                if (entry != null) {
+                    entries.add(entry);
+                }
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to read restart journal", e);
+        }
+        return entries;
+    }
+
+    /**
+     * How far the kiosk should degrade, judged by the failure incidents in the
+     * last CRASH_LOOP_WINDOW. Steps back down as old incidents age out.
+     */
+    public Degradation evaluateCrashLoop(long now) {
+        return evaluateCrashLoop(readEntries(), now);
+    }
+
+    static Degradation evaluateCrashLoop(List<Entry> entries, long now) {
+        int incidents = 0;
+        long lastFailureAt = 0;
+        for (Entry entry : entries) {
+            if (!entry.event.isFailure() || entry.timeMillis < now - CRASH_LOOP_WINDOW) {
+                continue;
+            }
+            if (incidents == 0 || entry.timeMillis - lastFailureAt > INCIDENT_MERGE) {
+                incidents++;
+            }
+            lastFailureAt = entry.timeMillis;
+        }
+
+        Degradation degradation = Degradation.NONE;
+        for (int i = 0; i < DEGRADATION_THRESHOLDS.length; i++) {
+            if (incidents >= DEGRADATION_THRESHOLDS[i]) {
+                degradation = Degradation.values()[i + 1];
+            }
+        }
+        return degradation;
+    }
+
+    private static ByteBuffer readHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        channel.read(header, 0);
+        return header;
+    }
+
+    private static Entry parseRecord(ByteBuffer record, long expectedSequence) {
+        // A slot that was never written, or whose append didn't finish, holds another sequence
+        if (record.position() < RECORD_SIZE || record.getLong(0) != expectedSequence) {
+            return null;
+        }
+        int eventCode = record.getInt(16);
+        int reasonLength = record.getShort(24);
+        if (eventCode < 0 || eventCode >= Event.values().length
+                || reasonLength < 0 || reasonLength > MAX_REASON_BYTES) {
+            return null;
+        }
+        String reason = new String(record.array(), RECORD_REASON, reasonLength, StandardCharsets.UTF_8);
+        return new Entry(expectedSequence, record.getLong(8), Event.values()[eventCode], record.getInt(20), reason);
+    }
+
+    private static byte[] truncate(String text, int maxBytes) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, maxBytes);
+        // Don't cut a multi-byte character in half
+        while (length < bytes.length && length > 0 && (bytes[length] & 0xC0) == 0x80) {
+            length--;
+        }
+        byte[] truncated = new byte[length];
+        System.arraycopy(bytes, 0, truncated, 0, length);
+        return truncated;
+    }
+}
@@ -3,26 +3,60 @@ package com.kidsim.tvkiosk.service;
 import android.app.Service;
 import android.content.Intent;
 import android.os.Handler;
+import android.os.HandlerThread;
 import android.os.IBinder;
-import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
 import android.util.Log;
 import com.kidsim.tvkiosk.MainActivity;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
 
+/**
+ * Supervises the kiosk from its own process (":watchdog"), so a hung or
+ * crashed kiosk main thread can't take the watchdog down with it.
+ *
+ * Reads the shared-memory heartbeat written by the kiosk process; no binder
+ * calls to the kiosk are needed. A kiosk whose process has died is relaunched
+ * right away, one whose heartbeat stops ticking is killed and relaunched.
+ * Kiosk starts are counted against a restart budget so a crash loop settles
+ * instead of pegging the CPU.
+ */
 public class WatchdogService extends Service {
     private static final String TAG = "WatchdogService";
-    private static final long WATCHDOG_INTERVAL = 300000; // 5 minutes
-    private static final long MAX_MEMORY_THRESHOLD = 150 * 1024 * 1024; // 150MB
+    private static final long WATCHDOG_INTERVAL = 5000; // 5 seconds
     
+    // The kiosk beats every 2s and restarts itself after a 30s stall
+    private static final long HANG_TIMEOUT = 45000;
+    // Time a relaunched kiosk gets to write its first heartbeat
+    private static final long START_GRACE = 30000;
+    // Restart budget
+    private static final int MAX_STARTS_PER_WINDOW = 5;
+    private static final long START_WINDOW = 60 * 60 * 1000; // 1 hour
+    
+    private HandlerThread watchdogThread;
     private Handler watchdogHandler;
     private Runnable watchdogRunnable;
-    private boolean isRunning = false;
+    private volatile boolean isRunning = false;
+    
+    private Heartbeat heartbeat;
+    private RestartJournal journal;
+    private long lastStartedAt = -1;
+    private long lastCounter = -1;
+    private long lastProgressAt = 0;
+    private long graceUntil = 0;
+    private final ArrayDeque<Long> recentStarts = new ArrayDeque<>();
     
     @Override
     public void onCreate() {
         super.onCreate();
         Log.i(TAG, "WatchdogService created");
+        journal = RestartJournal.getInstance(this);
         
-        watchdogHandler = new Handler(Looper.getMainLooper());
+        watchdogThread = new HandlerThread("watchdog");
+        watchdogThread.start();
+        watchdogHandler = new Handler(watchdogThread.getLooper());
         
         watchdogRunnable = new Runnable() {
             @Override
@@ -48,6 +82,7 @@ public class WatchdogService extends Service {
         super.onDestroy();
         Log.i(TAG, "WatchdogService destroyed");
         stopWatchdog();
+        watchdogThread.quitSafely();
     }
     
     @Override
@@ -73,46 +108,99 @@ public class WatchdogService extends Service {
     
     private void performHealthCheck() {
         try {
-            // Check memory usage
-            Runtime runtime = Runtime.getRuntime();
-            long usedMemory = runtime.totalMemory() - runtime.freeMemory();
-            long maxMemory = runtime.maxMemory();
-            long availableMemory = maxMemory - usedMemory;
+            if (heartbeat == null) {
+                heartbeat = Heartbeat.open(this);
+            }
+            Heartbeat.Reading reading = heartbeat.read();
+            if (reading == null) {
+                return; // The kiosk hasn't started yet
+            }
+            long now = SystemClock.elapsedRealtime();
             
-            Log.d(TAG, String.format("Memory: Used=%dMB, Available=%dMB, Max=%dMB", 
-                usedMemory / (1024 * 1024), 
-                availableMemory / (1024 * 1024), 
-                maxMemory / (1024 * 1024)));
+            if (reading.startedAt != lastStartedAt) {
+                // A new kiosk process; every start counts against the budget
+                lastStartedAt = reading.startedAt;
+                lastCounter = reading.counter;
+                lastProgressAt = now;
+                graceUntil = 0;
+                recordStart(now);
+                Log.i(TAG, "Kiosk process " + reading.pid + " started, " + recentStarts.size()
+                    + " starts in the last hour");
+                return;
+            }
             
-            // If memory usage is too high, suggest garbage collection
-            if (usedMemory > MAX_MEMORY_THRESHOLD) {
-                Log.w(TAG, "High memory usage detected, suggesting GC");
-                System.gc();
-                
-                // If still high after GC, consider restarting the app
-                runtime = Runtime.getRuntime();
-                usedMemory = runtime.totalMemory() - runtime.freeMemory();
-                
-                if (usedMemory > MAX_MEMORY_THRESHOLD) {
-                    Log.e(TAG, "Memory usage still high after GC, considering app restart");
-                    restartMainActivity();
-                }
+            if (reading.state == Heartbeat.STATE_STOPPED || now < graceUntil) {
+                return;
+            }
+            
+            if (!isProcessAlive(reading.pid)) {
+                Log.e(TAG, "Kiosk process " + reading.pid + " died in state " + reading.state);
+                journal.append(RestartJournal.Event.PROCESS_DIED,
+                    "Kiosk process " + reading.pid + " died in state " + reading.state);
+                relaunchKiosk(now, "crash");
+                return;
             }
             
-            // Check if MainActivity is responsive (basic check)
-            // This is a simple implementation - could be enhanced with ping/pong mechanism
+            if (reading.counter != lastCounter) {
+                lastCounter = reading.counter;
+                lastProgressAt = now;
+                return;
+            }
             
+            if (now - lastProgressAt > HANG_TIMEOUT) {
+                Log.e(TAG, "Kiosk heartbeat stuck at " + reading.counter + " for "
+                    + (now - lastProgressAt) + "ms, killing process " + reading.pid);
+                journal.append(RestartJournal.Event.HANG, "Heartbeat stuck for "
+                    + ((now - lastProgressAt) / 1000) + "s, killing kiosk process " + reading.pid);
+                Process.killProcess(reading.pid);
+                relaunchKiosk(now, "hang");
+            }
+            
+        } catch (IOException e) {
+            Log.e(TAG, "Cannot open heartbeat", e);
         } catch (Exception e) {
             Log.e(TAG, "Error during health check", e);
         }
     }
     
-    private void restartMainActivity() {
+    private static boolean isProcessAlive(int pid) {
+        // Processes of the same app are visible in /proc
+        return pid > 0 && new File("/proc/" + pid).exists();
+    }
+    
+    private void recordStart(long now) {
+        recentStarts.addLast(now);
+        pruneStarts(now);
+    }
+    
+    private void pruneStarts(long now) {
+        while (!recentStarts.isEmpty() && recentStarts.peekFirst() < now - START_WINDOW) {
+            recentStarts.removeFirst();
+        }
+    }
+    
+    private void relaunchKiosk(long now, String reason) {
+        pruneStarts(now);
+        if (recentStarts.size() >= MAX_STARTS_PER_WINDOW) {
+            long wait = recentStarts.peekFirst() + START_WINDOW - now;
+            Log.w(TAG, "Restart budget used up (" + recentStarts.size() + " starts in the last hour), next relaunch in "
+                + (wait / 1000) + " seconds");
+            graceUntil = now + Math.min(wait, START_WINDOW);
+            journal.append(RestartJournal.Event.WATCHDOG, "Restart budget used up, not relaunching after "
+                + reason + " for " + (wait / 1000) + "s");
+            return;
+        }
+        graceUntil = now + START_GRACE;
+        restartMainActivity(reason);
+    }
+    
+    private void restartMainActivity(String reason) {
         try {
-            Log.i(TAG, "Restarting MainActivity due to health check failure");
+            Log.i(TAG, "Restarting MainActivity after " + reason);
+            journal.append(RestartJournal.Event.RESTART, "Watchdog relaunch after " + reason);
             
             Intent restartIntent = new Intent(this, MainActivity.class);
-            restartIntent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | 
+            restartIntent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK |
                                  Intent.FLAG_ACTIVITY_CLEAR_TOP |
                                  Intent.FLAG_ACTIVITY_SINGLE_TOP);
             
@@ -122,4 +210,4 @@ public class WatchdogService extends Service {
             Log.e(TAG, "Failed to restart MainActivity", e);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,37 @@
+package com.kidsim.tvkiosk.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import org.junit.Test;
+
+public class BackoffPolicyTest {
+    @Test
+    public void ceilingDoublesUpToMax() {
+        BackoffPolicy policy = new BackoffPolicy(1000, 10000);
+        assertEquals(1000, policy.getCeilingMillis(0));
+        assertEquals(2000, policy.getCeilingMillis(1));
+        assertEquals(8000, policy.getCeilingMillis(3));
+        assertEquals(10000, policy.getCeilingMillis(4));
+        assertEquals(10000, policy.getCeilingMillis(1000));
+    }
+
+    @Test
+    public void delayStaysWithinJitterWindow() {
+        BackoffPolicy policy = new BackoffPolicy(1000, 10000, new Random(1));
+        for (int failures = 0; failures < 10; failures++) {
+            for (int i = 0; i < 100; i++) {
+                long delay = policy.getDelayMillis(failures);
+                assertTrue(delay >= 1000);
+                assertTrue(delay <= policy.getCeilingMillis(failures));
+            }
+        }
+    }
+
+    @Test
+    public void firstDelayIsMinimum() {
+        BackoffPolicy policy = new BackoffPolicy(1000, 10000, new Random(1));
+        assertEquals(1000, policy.getDelayMillis(0));
+    }
+}
@@ -0,0 +1,67 @@
+package com.kidsim.tvkiosk.config;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+
+/**
+ * Time per run and bytes allocated per run of a task, for the benchmark tests.
+ * Allocation counts come from the JVM's per-thread counter and are -1 where
+ * it isn't available.
+ */
+class Benchmark {
+    interface Task {
+        Object run() throws Exception;
+    }
+
+    // Results are kept reachable so the JIT can't drop the work
+    private static volatile Object sink;
+
+    final double nanosPerRun;
+    final long bytesPerRun;
+
+    private Benchmark(double nanosPerRun, long bytesPerRun) {
+        this.nanosPerRun = nanosPerRun;
+        this.bytesPerRun = bytesPerRun;
+    }
+
+    static Benchmark measure(int warmupRounds, int rounds, Task task) throws Exception {
+        for (int i = 0; i < warmupRounds; i++) {
+            sink = task.run();
+        }
+        long bytesBefore = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            sink = task.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        long bytesAfter = allocatedBytes();
+        long bytesPerRun = bytesBefore < 0 ? -1 : (bytesAfter - bytesBefore) / rounds;
+        return new Benchmark((double) elapsed / rounds, bytesPerRun);
+    }
+
+    boolean allocatesLessThan(Benchmark other) {
+        return bytesPerRun < other.bytesPerRun;
+    }
+
+    boolean hasAllocations() {
+        return bytesPerRun >= 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%.1f us, %d B/read", nanosPerRun / 1000, bytesPerRun);
+    }
+
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        if (!allocations.isThreadAllocatedMemorySupported() || !allocations.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+        return allocations.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,246 @@
+package com.kidsim.tvkiosk.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class CircuitBreakerTest {
+    private static final long MINUTE = 60 * 1000;
+    private static final long HOUR = 60 * MINUTE;
+
+    private static final int FAILURE_THRESHOLD = ConfigurationManager.BREAKER_FAILURE_THRESHOLD;
+    private static final long BASE_OPEN = ConfigurationManager.BREAKER_BASE_OPEN;
+    private static final long MAX_OPEN = ConfigurationManager.BREAKER_MAX_OPEN;
+    private static final long RETRY_MIN_DELAY = ConfigurationManager.RETRY_MIN_DELAY;
+    private static final long RETRY_MAX_DELAY = ConfigurationManager.RETRY_MAX_DELAY;
+    // The interval MainActivity polls at
+    private static final long POLL_INTERVAL = HOUR;
+
+    private static CircuitBreaker newBreaker() {
+        return new CircuitBreaker("Test", FAILURE_THRESHOLD, BASE_OPEN, MAX_OPEN);
+    }
+
+    @Test
+    public void opensAfterThresholdFailures() {
+        CircuitBreaker breaker = newBreaker();
+        breaker.recordFailure(0);
+        breaker.recordFailure(0);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.recordFailure(0);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest(BASE_OPEN - 1));
+    }
+
+    @Test
+    public void halfOpenAllowsOneTrial() {
+        CircuitBreaker breaker = tripped();
+        assertTrue(breaker.allowRequest(BASE_OPEN));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest(BASE_OPEN + 1));
+
+        breaker.recordSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.allowRequest(BASE_OPEN + 2));
+    }
+
+    @Test
+    public void failedTrialDoublesOpenPeriod() {
+        CircuitBreaker breaker = tripped();
+        assertTrue(breaker.allowRequest(BASE_OPEN));
+        breaker.recordFailure(BASE_OPEN);
+        assertFalse(breaker.allowRequest(BASE_OPEN + 2 * BASE_OPEN - 1));
+        assertTrue(breaker.allowRequest(BASE_OPEN + 2 * BASE_OPEN));
+    }
+
+    @Test
+    public void releasedTrialGoesToNextRequest() {
+        CircuitBreaker breaker = tripped();
+        assertTrue(breaker.allowRequest(BASE_OPEN));
+
+        // Granted, but the request never went out, e.g. its source was cancelled
+        breaker.releaseRequest();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertTrue(breaker.allowRequest(BASE_OPEN + 1));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+
+    @Test
+    public void unreportedTrialExpires() {
+        CircuitBreaker breaker = tripped();
+        assertTrue(breaker.allowRequest(BASE_OPEN));
+
+        // Neither success nor failure is ever recorded
+        assertFalse(breaker.allowRequest(2 * BASE_OPEN - 1));
+        assertTrue(breaker.allowRequest(2 * BASE_OPEN));
+        assertFalse(breaker.allowRequest(2 * BASE_OPEN + 1));
+    }
+
+    @Test
+    public void releaseWhileClosedChangesNothing() {
+        CircuitBreaker breaker = newBreaker();
+        assertTrue(breaker.allowRequest(0));
+        breaker.releaseRequest();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    /**
+     * Runs the real ConfigFetchScheduler through a day-long outage on a fake
+     * clock, with attempts gated by the breaker as ConfigurationManager does.
+     * The old fixed 5-minute retry sent 12 requests an hour, 288 a day; this
+     * sends 6 in the first hour and then about one every four hours.
+     */
+    @Test
+    public void requestRateStaysLowDuringLongOutage() {
+        long outage = 24 * HOUR;
+        Outage run = new Outage(outage);
+        run.clock.advanceTo(outage);
+        run.clock.shutdown();
+
+        int total = 0;
+        for (int hour = 0; hour < 24; hour++) {
+            int requests = run.requestsIn(hour * HOUR, (hour + 1) * HOUR);
+            total += requests;
+            if (hour > 0) {
+                assertTrue("hour " + hour + ": " + requests + " requests", requests <= 2);
+            }
+        }
+        assertTrue("first hour: " + run.requestsIn(0, HOUR) + " requests", run.requestsIn(0, HOUR) <= 6);
+        assertTrue("total: " + total + " requests", total <= 16);
+    }
+
+    @Test
+    public void recoveryIsPickedUpAfterOutage() {
+        long outageEnd = 24 * HOUR;
+        Outage run = new Outage(outageEnd);
+        run.clock.advanceTo(outageEnd + 2 * MAX_OPEN);
+        run.clock.shutdown();
+
+        // Within the longest open period plus one poll of the source coming back
+        assertTrue("recovered at " + run.recoveredAt, run.recoveredAt >= outageEnd);
+        assertTrue((run.recoveredAt - outageEnd) <= MAX_OPEN + POLL_INTERVAL);
+        assertEquals(CircuitBreaker.State.CLOSED, run.breaker.getState());
+        assertEquals(0, run.scheduler.getConsecutiveFailures());
+    }
+
+    /**
+     * A source that fails until the outage ends, polled by a scheduler that
+     * starts with an immediate attempt, as at boot without a stored config
+     */
+    private static class Outage {
+        final FakeClockExecutor clock = new FakeClockExecutor();
+        final CircuitBreaker breaker = newBreaker();
+        final List<Long> requests = new ArrayList<>();
+        final ConfigFetchScheduler scheduler;
+        long recoveredAt = -1;
+
+        Outage(long outageEnd) {
+            FleetStagger stagger = new FleetStagger("TV-Lobby/a1b2", new Random(7));
+            scheduler = new ConfigFetchScheduler(clock,
+                callback -> {
+                    long now = clock.now;
+                    if (!breaker.allowRequest(now)) {
+                        // ConfigurationManager falls back to the stored config, which counts as a failure
+                        callback.onAttemptFinished(false);
+                        return;
+                    }
+                    requests.add(now);
+                    if (now < outageEnd) {
+                        breaker.recordFailure(now);
+                        callback.onAttemptFinished(false);
+                    } else {
+                        breaker.recordSuccess();
+                        if (recoveredAt < 0) {
+                            recoveredAt = now;
+                        }
+                        callback.onAttemptFinished(true);
+                    }
+                },
+                new BackoffPolicy(RETRY_MIN_DELAY, RETRY_MAX_DELAY, new Random(7)),
+                interval -> stagger.getDelayToNextSlot(clock.now, interval));
+            scheduler.start(POLL_INTERVAL);
+            scheduler.runNow();
+        }
+
+        int requestsIn(long from, long to) {
+            int count = 0;
+            for (long at : requests) {
+                if (at >= from && at < to) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Runs scheduled tasks in time order as the fake clock is advanced, and
+     * other tasks inline
+     */
+    private static class FakeClockExecutor extends ConfigExecutor {
+        long now = 0;
+        private final PriorityQueue<Timed> timers = new PriorityQueue<>();
+        private long sequence = 0;
+
+        private class Timed extends FutureTask<Void> implements ScheduledFuture<Void> {
+            final long at;
+            final long order = sequence++;
+
+            Timed(Runnable task, long at) {
+                super(task, null);
+                this.at = at;
+            }
+
+            @Override
+            public long getDelay(TimeUnit unit) {
+                return unit.convert(at - now, TimeUnit.MILLISECONDS);
+            }
+
+            @Override
+            public int compareTo(Delayed other) {
+                Timed timed = (Timed) other;
+                return at != timed.at ? Long.compare(at, timed.at) : Long.compare(order, timed.order);
+            }
+        }
+
+        @Override
+        public void execute(Priority priority, Runnable task) {
+            task.run();
+        }
+
+        @Override
+        public ScheduledFuture<?> schedule(Priority priority, Runnable task, long delay, TimeUnit unit) {
+            Timed timed = new Timed(task, now + unit.toMillis(delay));
+            timers.add(timed);
+            return timed;
+        }
+
+        void advanceTo(long end) {
+            while (!timers.isEmpty() && timers.peek().at <= end) {
+                Timed timed = timers.poll();
+                if (!timed.isCancelled()) {
+                    now = timed.at;
+                    timed.run();
+                }
+            }
+            now = end;
+        }
+    }
+
+    private static CircuitBreaker tripped() {
+        CircuitBreaker breaker = newBreaker();
+        for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+            breaker.recordFailure(0);
+        }
+        return breaker;
+    }
+}
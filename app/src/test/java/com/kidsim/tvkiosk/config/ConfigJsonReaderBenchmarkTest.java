@@ -0,0 +1,64 @@
+package com.kidsim.tvkiosk.config;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+/**
+ * Measured comparison of ConfigJsonReader against the JSONObject update path
+ * it replaced. Time and allocated bytes per read are printed for both; only
+ * allocations are asserted, since wall time on a shared build machine is too
+ * noisy to gate on. Numbers are from the JVM under Robolectric, so they show
+ * the relative cost, not what a TV sees.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ConfigJsonReaderBenchmarkTest {
+    private static final String DEVICE_ID = "TV-Lobby";
+    private static final int WARMUP_ROUNDS = 300;
+    private static final int MEASURED_ROUNDS = 1000;
+    // Big fleets take long enough per read that fewer rounds give stable numbers
+    private static final int FLEET_ROUNDS = 20;
+
+    @Test
+    public void singleDeviceConfigAllocatesLess() throws Exception {
+        assertStreamingAllocatesLess("single-device", MEASURED_ROUNDS);
+    }
+
+    @Test
+    public void multiDeviceConfigAllocatesLess() throws Exception {
+        assertStreamingAllocatesLess("multi-device", MEASURED_ROUNDS);
+    }
+
+    @Test
+    public void smallFleetAllocatesLess() throws Exception {
+        assertStreamingAllocatesLess("fleet-10", MEASURED_ROUNDS);
+    }
+
+    @Test
+    public void thousandDeviceFleetAllocatesLess() throws Exception {
+        assertStreamingAllocatesLess("fleet-1k", FLEET_ROUNDS * 5);
+    }
+
+    @Test
+    public void tenThousandDeviceFleetAllocatesLess() throws Exception {
+        assertStreamingAllocatesLess("fleet-10k", FLEET_ROUNDS);
+    }
+
+    private void assertStreamingAllocatesLess(String name, int rounds) throws Exception {
+        final String json = ConfigJsonReaderTest.read(name + ".json");
+        int warmupRounds = Math.min(rounds, WARMUP_ROUNDS);
+        Benchmark tree = Benchmark.measure(warmupRounds, rounds,
+            () -> new JsonObjectConfigParser(DEVICE_ID).parseUpdate(new StringReader(json)));
+        // The update path keeps the raw text for KioskConfig, so capture it here too
+        Benchmark stream = Benchmark.measure(warmupRounds, rounds,
+            () -> new ConfigJsonReader(DEVICE_ID).read(new StringReader(json), true).getDeviceConfig());
+
+        System.out.println(name + " (" + json.length() + " bytes): JSONObject " + tree + "; ConfigJsonReader " + stream);
+        if (stream.hasAllocations()) {
+            assertTrue(name + " allocated more than JSONObject", stream.allocatesLessThan(tree));
+        }
+    }
+}
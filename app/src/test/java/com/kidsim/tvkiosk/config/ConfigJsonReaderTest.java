@@ -0,0 +1,136 @@
+package com.kidsim.tvkiosk.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import org.json.JSONException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+/**
+ * Parity tests: each config in resources/config must give the same
+ * DeviceConfig through ConfigJsonReader as through the JSONObject parse it
+ * replaced.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ConfigJsonReaderTest {
+    private static final String[] FIXTURES = {
+        "single-device",
+        "url-only",
+        "multi-device",
+        "sheets-base",
+        "device-id-last",
+        "fleet-10",
+        "fleet-1k",
+    };
+
+    @Test
+    public void deviceConfigMatchesJsonObjectParse() throws Exception {
+        for (String name : FIXTURES) {
+            for (String deviceId : new String[] {"TV-Lobby", "TV-Cafeteria", "TV-Unknown"}) {
+                assertParity(name, deviceId);
+            }
+        }
+    }
+
+    @Test
+    public void deviceFieldsBeforeDeviceIdStillResolve() throws IOException {
+        String json = read("device-id-last.json");
+        DeviceConfig lobby = new ConfigJsonReader("TV-Lobby").read(new StringReader(json)).getDeviceConfig();
+        assertEquals("TV-Lobby", lobby.getDeviceId());
+        assertEquals("Lobby TV", lobby.getDeviceName());
+        assertEquals("portrait", lobby.getOrientation());
+        assertEquals(20, lobby.getRefreshIntervalMinutes());
+        assertTrue(lobby.isClearCache());
+        assertEquals(2, lobby.getPages().size());
+        assertEquals("https://www.kidsim.org/events", lobby.getPages().get(0).getUrl());
+
+        // Entries read before a mismatched deviceId must not leak into the match
+        DeviceConfig cafeteria = new ConfigJsonReader("TV-Cafeteria").read(new StringReader(json)).getDeviceConfig();
+        assertEquals("Cafeteria TV", cafeteria.getDeviceName());
+        assertEquals(1, cafeteria.getPages().size());
+        assertEquals("https://www.kidsim.org/menu", cafeteria.getPages().get(0).getUrl());
+    }
+
+    @Test
+    public void fleetEntryWithDeviceIdLastResolves() throws IOException {
+        // Every seventh fleet entry lists its deviceId last
+        DeviceConfig config = new ConfigJsonReader("TV-00703").read(new StringReader(read("fleet-1k.json"))).getDeviceConfig();
+        assertEquals("TV-00703", config.getDeviceId());
+        assertEquals("Kiosk 703", config.getDeviceName());
+        assertEquals("https://www.kidsim.org/s/703/1", config.getPages().get(1).getUrl());
+    }
+
+    @Test
+    public void fallbackConfigMatchesJsonObjectParse() throws Exception {
+        String json = read("sheets-base.json");
+        ConfigJsonReader.ConfigDocument document = new ConfigJsonReader("TV-Lobby").read(new StringReader(json));
+        DeviceConfig expected = new JsonObjectConfigParser("TV-Lobby").parseFallbackConfig(json);
+        assertEquals(describe(expected), describe(document.getFallbackConfig()));
+    }
+
+    @Test
+    public void readsSheetsSettings() throws IOException {
+        ConfigJsonReader.ConfigDocument document =
+            new ConfigJsonReader("TV-Lobby").read(new StringReader(read("sheets-base.json")));
+        assertTrue(document.isGoogleSheets());
+        assertEquals("test-sheets-id", document.getGoogleSheetsId());
+        assertEquals("test-api-key", document.getGoogleSheetsApiKey());
+
+        document = new ConfigJsonReader("TV-Lobby").read(new StringReader(read("single-device.json")));
+        assertFalse(document.isGoogleSheets());
+        assertEquals("json", document.getConfigSource());
+    }
+
+    @Test
+    public void capturedRawTextKeepsLineBreaks() throws IOException {
+        String json = read("multi-device.json");
+        ConfigJsonReader.ConfigDocument document = new ConfigJsonReader("TV-Lobby").read(new StringReader(json), true);
+        assertEquals(json, document.getRawJson());
+    }
+
+    private void assertParity(String name, String deviceId) throws IOException, JSONException {
+        String json = read(name + ".json");
+        DeviceConfig expected = new JsonObjectConfigParser(deviceId).parseUpdate(new StringReader(json));
+        DeviceConfig actual = new ConfigJsonReader(deviceId).read(new StringReader(json)).getDeviceConfig();
+        assertEquals(name + " as " + deviceId, describe(expected), describe(actual));
+    }
+
+    static String describe(DeviceConfig config) {
+        StringBuilder description = new StringBuilder()
+            .append("deviceId=").append(config.getDeviceId()).append('\n')
+            .append("deviceName=").append(config.getDeviceName()).append('\n')
+            .append("orientation=").append(config.getOrientation()).append('\n')
+            .append("refreshMinutes=").append(config.getRefreshIntervalMinutes()).append('\n')
+            .append("autoStart=").append(config.isAutoStart()).append('\n')
+            .append("clearCache=").append(config.isClearCache()).append('\n')
+            .append("configVersion=").append(config.getConfigVersion()).append('\n');
+        for (PageConfig page : config.getPages()) {
+            description.append("page=").append(page.getUrl())
+                .append('|').append(page.getDisplayTimeSeconds())
+                .append('|').append(page.getTitle()).append('\n');
+        }
+        return description.toString();
+    }
+
+    static String read(String resource) throws IOException {
+        try (InputStream in = ConfigJsonReaderTest.class.getResourceAsStream("/config/" + resource)) {
+            assertNotNull("Missing fixture " + resource, in);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                out.write(buffer, 0, count);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
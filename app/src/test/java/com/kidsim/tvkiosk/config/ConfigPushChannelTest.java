@@ -0,0 +1,255 @@
+package com.kidsim.tvkiosk.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowSystemClock;
+
+/**
+ * Runs the push channel against a stand-in control endpoint on a loopback
+ * ServerSocket. Each connection gets the next scripted response; once the
+ * script runs out, connections are held open like an idle long poll.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ConfigPushChannelTest {
+    private static final String DEVICE_ID = "TV-Lobby";
+    private static final long WAIT = 5000;
+    // How long a held request takes, well past the quick-round threshold
+    private static final Duration HELD = Duration.ofSeconds(30);
+
+    private interface Response {
+        /**
+         * @return whether to keep the connection open afterwards
+         */
+        boolean write(OutputStream out) throws Exception;
+    }
+
+    private static class Request {
+        final String target;
+        final Map<String, String> headers;
+
+        Request(String target, Map<String, String> headers) {
+            this.target = target;
+            this.headers = headers;
+        }
+    }
+
+    private ServerSocket server;
+    private Thread serverThread;
+    private String base;
+    private final BlockingQueue<Response> script = new LinkedBlockingQueue<>();
+    private final List<Request> requests = new CopyOnWriteArrayList<>();
+    private final List<String> versions = new CopyOnWriteArrayList<>();
+    private ConfigPushChannel channel;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new ServerSocket(0, 10, InetAddress.getLoopbackAddress());
+        base = "http://127.0.0.1:" + server.getLocalPort();
+        serverThread = new Thread(this::serve, "stand-in-server");
+        serverThread.setDaemon(true);
+        serverThread.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (channel != null) {
+            channel.stop();
+        }
+        server.close();
+    }
+
+    @Test
+    public void longPollReportsChangesAfterBaseline() throws Exception {
+        script.add(held(status(200, "text/plain", "v1")));
+        script.add(held(status(204, null, null)));
+        script.add(held(status(200, "application/json", "{\"version\": \"v2\"}")));
+
+        start(ConfigPushChannel.TYPE_LONG_POLL);
+        awaitRequests(4);
+
+        assertEquals(Collections.singletonList("v2"), versions);
+        assertEquals("/push?deviceId=" + DEVICE_ID, requests.get(0).target);
+        // After a 204 the same version is sent again; after a change, the new one
+        assertEquals("/push?version=v1&deviceId=" + DEVICE_ID, requests.get(1).target);
+        assertEquals("/push?version=v1&deviceId=" + DEVICE_ID, requests.get(2).target);
+        assertEquals("/push?version=v2&deviceId=" + DEVICE_ID, requests.get(3).target);
+    }
+
+    @Test
+    public void firstVersionOnlySetsBaseline() throws Exception {
+        script.add(held(status(200, "text/plain", "v7")));
+        script.add(held(status(200, "text/plain", "v7")));
+
+        start(ConfigPushChannel.TYPE_LONG_POLL);
+        awaitRequests(3);
+        assertTrue(versions.isEmpty());
+    }
+
+    @Test
+    public void eventStreamJoinsMultiLineDataAndSkipsKeepalives() throws Exception {
+        script.add(held(eventStream(
+            ": keepalive",
+            "",
+            "data: v1",
+            "",
+            ": keepalive",
+            "",
+            "data: {\"version\":",
+            "data:  \"v2\"}",
+            "",
+            "event: ping",
+            "",
+            "data: v2",
+            "",
+            "id: 3",
+            "data: v3",
+            "")));
+
+        start(ConfigPushChannel.TYPE_SSE);
+        awaitVersions(2);
+
+        assertEquals(Arrays.asList("v2", "v3"), versions);
+        assertEquals("text/event-stream", requests.get(0).headers.get("accept"));
+    }
+
+    @Test
+    public void quickRoundsArePaced() throws Exception {
+        // A proxy answering every long poll at once must not cause a request loop
+        for (int i = 0; i < 100; i++) {
+            script.add(status(204, null, null));
+        }
+
+        start(ConfigPushChannel.TYPE_LONG_POLL);
+        awaitRequests(1);
+        Thread.sleep(1500);
+        assertEquals(1, requests.size());
+    }
+
+    @Test
+    public void stopEndsHeldRequest() throws Exception {
+        start(ConfigPushChannel.TYPE_LONG_POLL);
+        awaitRequests(1);
+        channel.stop();
+        channel = null;
+
+        Thread.sleep(500);
+        assertEquals(1, requests.size());
+        assertFalse(versions.size() > 0);
+    }
+
+    private void start(String type) {
+        channel = new ConfigPushChannel(base + "/push", type, DEVICE_ID, versions::add);
+        channel.start();
+    }
+
+    private void awaitRequests(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT;
+        while (requests.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue("expected " + count + " requests, got " + requests.size(), requests.size() >= count);
+    }
+
+    private void awaitVersions(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT;
+        while (versions.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * A response the server holds for a while before sending, as a long poll does
+     */
+    private static Response held(Response response) {
+        return out -> {
+            ShadowSystemClock.advanceBy(HELD);
+            return response.write(out);
+        };
+    }
+
+    private static Response status(int code, String contentType, String body) {
+        return out -> {
+            byte[] bytes = body != null ? body.getBytes(StandardCharsets.UTF_8) : new byte[0];
+            StringBuilder head = new StringBuilder("HTTP/1.1 " + code + " Status\r\n");
+            if (contentType != null) {
+                head.append("Content-Type: ").append(contentType).append("\r\n");
+            }
+            head.append("Content-Length: ").append(bytes.length).append("\r\n")
+                .append("Connection: close\r\n\r\n");
+            out.write(head.toString().getBytes(StandardCharsets.UTF_8));
+            out.write(bytes);
+            return false;
+        };
+    }
+
+    /**
+     * An event stream that stays open after its lines, as a live SSE endpoint does
+     */
+    private static Response eventStream(String... lines) {
+        return out -> {
+            out.write(("HTTP/1.1 200 OK\r\nContent-Type: text/event-stream\r\n"
+                + "Cache-Control: no-cache\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+            for (String line : lines) {
+                out.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            }
+            return true;
+        };
+    }
+
+    private void serve() {
+        while (!server.isClosed()) {
+            try (Socket socket = server.accept()) {
+                BufferedReader in = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                String requestLine = in.readLine();
+                if (requestLine == null) {
+                    continue;
+                }
+                Map<String, String> headers = new HashMap<>();
+                String line;
+                while ((line = in.readLine()) != null && !line.isEmpty()) {
+                    int colon = line.indexOf(':');
+                    headers.put(line.substring(0, colon).trim().toLowerCase(), line.substring(colon + 1).trim());
+                }
+                requests.add(new Request(requestLine.split(" ")[1], headers));
+
+                Response response = script.poll();
+                boolean hold = response == null || response.write(socket.getOutputStream());
+                socket.getOutputStream().flush();
+                if (hold) {
+                    // Keep the connection until the client gives up
+                    while (in.read() != -1) {
+                        // Nothing more is sent on a GET
+                    }
+                }
+            } catch (Exception e) {
+                // The client went away; wait for the next one
+            }
+        }
+    }
+}
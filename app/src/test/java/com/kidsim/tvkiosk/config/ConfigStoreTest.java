@@ -0,0 +1,155 @@
+package com.kidsim.tvkiosk.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ConfigStoreTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+    private ConfigStore store;
+
+    @Before
+    public void setUp() {
+        file = new File(folder.getRoot(), "config.bin");
+        store = new ConfigStore(file);
+    }
+
+    @Test
+    public void missingFileLoadsNothing() {
+        assertNull(store.load());
+    }
+
+    @Test
+    public void roundTripKeepsEveryField() throws IOException {
+        long before = System.currentTimeMillis();
+        store.save(ConfigSnapshot.SOURCE_SHEETS, config("TV-Lobby", "https://www.kidsim.org/events", "Ünïcode café"));
+        long after = System.currentTimeMillis();
+
+        ConfigStore.StoredConfig stored = new ConfigStore(file).load();
+        assertNotNull(stored);
+        assertEquals(ConfigSnapshot.SOURCE_SHEETS, stored.getSource());
+        assertTrue(stored.getSavedAt() >= before && stored.getSavedAt() <= after);
+
+        DeviceConfig config = stored.getConfig();
+        assertTrue(config.isImmutable());
+        assertEquals("TV-Lobby", config.getDeviceId());
+        assertEquals("Lobby TV", config.getDeviceName());
+        assertEquals("portrait", config.getOrientation());
+        assertEquals(20, config.getRefreshIntervalMinutes());
+        assertFalse(config.isAutoStart());
+        assertTrue(config.isClearCache());
+        assertEquals("lobby-7", config.getConfigVersion());
+        assertEquals(2, config.getPages().size());
+        assertEquals("https://www.kidsim.org/events", config.getPages().get(0).getUrl());
+        assertEquals(120, config.getPages().get(0).getDisplayTimeSeconds());
+        assertEquals("Ünïcode café", config.getPages().get(0).getTitle());
+        assertEquals("https://sponsor.kidsim.org", config.getPages().get(1).getUrl());
+        assertNull(config.getPages().get(1).getTitle());
+    }
+
+    @Test
+    public void saveReplacesPreviousConfig() throws IOException {
+        store.save(ConfigSnapshot.SOURCE_SHEETS, config("TV-Lobby", "https://www.kidsim.org/old", "Old"));
+        store.save(ConfigSnapshot.SOURCE_GITHUB, config("TV-Lobby", "https://www.kidsim.org/new", "New"));
+
+        ConfigStore.StoredConfig stored = store.load();
+        assertEquals(ConfigSnapshot.SOURCE_GITHUB, stored.getSource());
+        assertEquals("https://www.kidsim.org/new", stored.getConfig().getPages().get(0).getUrl());
+    }
+
+    @Test
+    public void flippedPayloadByteFailsChecksum() throws IOException {
+        store.save(ConfigSnapshot.SOURCE_SHEETS, config("TV-Lobby", "https://www.kidsim.org/events", "Events"));
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            // The last byte ends the null title length of the last page; flipped, it still decodes
+            long offset = raf.length() - 1;
+            raf.seek(offset);
+            int value = raf.read();
+            raf.seek(offset);
+            raf.write(value ^ 0x01);
+        }
+        assertNull(store.load());
+    }
+
+    @Test
+    public void truncatedFileIsIgnored() throws IOException {
+        store.save(ConfigSnapshot.SOURCE_SHEETS, config("TV-Lobby", "https://www.kidsim.org/events", "Events"));
+        long length = file.length();
+
+        truncate(length - 1);
+        assertNull(store.load());
+
+        // Shorter than the header
+        truncate(10);
+        assertNull(store.load());
+
+        truncate(0);
+        assertNull(store.load());
+    }
+
+    @Test
+    public void staleTempFileFromInterruptedWriteIsIgnored() throws IOException {
+        store.save(ConfigSnapshot.SOURCE_SHEETS, config("TV-Lobby", "https://www.kidsim.org/old", "Old"));
+
+        // A write that died after a partial temp file, before the rename
+        File tmp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            out.write(new byte[] {'K', 'C', 'F', 'G', 0, 0, 0, 1, 0, 0});
+        }
+        assertEquals("https://www.kidsim.org/old", store.load().getConfig().getPages().get(0).getUrl());
+
+        // The next save overwrites the leftover and cleans it up by renaming
+        store.save(ConfigSnapshot.SOURCE_SHEETS, config("TV-Lobby", "https://www.kidsim.org/new", "New"));
+        assertFalse(tmp.exists());
+        assertEquals("https://www.kidsim.org/new", store.load().getConfig().getPages().get(0).getUrl());
+    }
+
+    @Test
+    public void staleTempFileAloneLoadsNothing() throws IOException {
+        store.save(ConfigSnapshot.SOURCE_SHEETS, config("TV-Lobby", "https://www.kidsim.org/events", "Events"));
+        File tmp = new File(file.getPath() + ".tmp");
+        assertTrue(file.renameTo(tmp));
+        assertNull(store.load());
+    }
+
+    private void truncate(long length) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(length);
+        }
+    }
+
+    private static DeviceConfig config(String deviceId, String firstUrl, String firstTitle) {
+        DeviceConfig config = new DeviceConfig();
+        config.setDeviceId(deviceId);
+        config.setDeviceName("Lobby TV");
+        config.setOrientation("portrait");
+        config.setRefreshIntervalMinutes(20);
+        config.setAutoStart(false);
+        config.setClearCache(true);
+        config.setConfigVersion("lobby-7");
+
+        List<PageConfig> pages = new ArrayList<>();
+        PageConfig first = new PageConfig(firstUrl, 120);
+        first.setTitle(firstTitle);
+        pages.add(first);
+        pages.add(new PageConfig("https://sponsor.kidsim.org", 180));
+        config.setPages(pages);
+        return config;
+    }
+}
@@ -0,0 +1,100 @@
+package com.kidsim.tvkiosk.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Measured comparison of CsvReader against the line.split(",") loop the
+ * setup dialog used to pull device IDs out of the sheet's CSV export. The
+ * exports here have no quoting, the only input the old loop read correctly.
+ * Time and allocated bytes are printed; only allocations are asserted.
+ */
+public class CsvReaderBenchmarkTest {
+    private static final int WARMUP_ROUNDS = 200;
+    private static final int ROUNDS = 500;
+
+    @Test
+    public void smallExportAllocatesLess() throws Exception {
+        assertCsvReaderAllocatesLess(20);
+    }
+
+    @Test
+    public void largeExportAllocatesLess() throws Exception {
+        assertCsvReaderAllocatesLess(5000);
+    }
+
+    private void assertCsvReaderAllocatesLess(int devices) throws Exception {
+        final String export = export(devices);
+        assertEquals(splitDeviceIds(new StringReader(export)), csvDeviceIds(new StringReader(export)));
+
+        Benchmark split = Benchmark.measure(WARMUP_ROUNDS, ROUNDS, () -> splitDeviceIds(new StringReader(export)));
+        Benchmark csv = Benchmark.measure(WARMUP_ROUNDS, ROUNDS, () -> csvDeviceIds(new StringReader(export)));
+
+        System.out.println(devices + " devices (" + export.length() + " chars): split " + split + "; CsvReader " + csv);
+        if (csv.hasAllocations()) {
+            assertTrue(devices + " devices: CsvReader allocated more than split", csv.allocatesLessThan(split));
+        }
+    }
+
+    private static String export(int devices) {
+        StringBuilder export = new StringBuilder("Name,DeviceID,Location,Notes\r\n");
+        for (int i = 0; i < devices; i++) {
+            export.append("Kiosk ").append(i).append(",TV-").append(10000 + i)
+                .append(",Building ").append((char) ('A' + i % 4)).append(" level ").append(i % 3)
+                .append(",Installed by facilities\r\n");
+        }
+        return export.toString();
+    }
+
+    /**
+     * The loop CsvReader replaced in MainActivity.fetchDeviceIdsFromGoogleSheets
+     */
+    private static List<String> splitDeviceIds(Reader in) throws IOException {
+        List<String> deviceIds = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(in);
+        String line;
+        boolean firstRow = true;
+
+        while ((line = reader.readLine()) != null) {
+            if (firstRow) {
+                firstRow = false;
+                continue; // Skip header row
+            }
+
+            String[] parts = line.split(",");
+            if (parts.length >= 2 && !parts[1].trim().isEmpty()) {
+                String deviceId = parts[1].trim().replace("\"", "");
+                if (!deviceId.equalsIgnoreCase("DeviceID")) {
+                    deviceIds.add(deviceId);
+                }
+            }
+        }
+        reader.close();
+        return deviceIds;
+    }
+
+    private static List<String> csvDeviceIds(Reader in) throws IOException {
+        List<String> deviceIds = new ArrayList<>();
+        try (CsvReader csv = new CsvReader(in)) {
+            while (csv.nextRow()) {
+                if (csv.getRowNumber() == 1) {
+                    continue; // Skip header row
+                }
+
+                String deviceId = csv.getTrimmedField(1);
+                if (deviceId != null && !deviceId.isEmpty() && !deviceId.equalsIgnoreCase("DeviceID")) {
+                    deviceIds.add(deviceId);
+                }
+            }
+        }
+        return deviceIds;
+    }
+}
@@ -0,0 +1,208 @@
+package com.kidsim.tvkiosk.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Corpus tests: each file in resources/csv is parsed and compared with its
+ * .expected file, one row per line, fields separated by '|' and line breaks
+ * written as \n and \r.
+ */
+public class CsvReaderTest {
+    private static final String[] CORPUS = {
+        "device-list",
+        "quotes",
+        "embedded-newlines",
+        "crlf",
+        "no-trailing-newline",
+        "empty-fields",
+        "unterminated-quote",
+    };
+
+    @Test
+    public void corpusMatchesExpected() throws IOException {
+        for (String name : CORPUS) {
+            String input = read(name + ".csv");
+            assertEquals(name, read(name + ".expected"), describe(new StringReader(input)));
+        }
+    }
+
+    @Test
+    public void corpusMatchesExpectedOneCharAtATime() throws IOException {
+        // Every row ending and quote falls on a buffer refill
+        for (String name : CORPUS) {
+            String input = read(name + ".csv");
+            assertEquals(name, read(name + ".expected"), describe(new TrickleReader(input)));
+        }
+    }
+
+    @Test
+    public void emptyInputHasNoRows() throws IOException {
+        try (CsvReader csv = new CsvReader(new StringReader(""))) {
+            assertFalse(csv.nextRow());
+        }
+    }
+
+    @Test
+    public void fieldAccessors() throws IOException {
+        try (CsvReader csv = new CsvReader(new StringReader("a,\"  b \"\n"))) {
+            assertTrue(csv.nextRow());
+            assertEquals(1, csv.getRowNumber());
+            assertEquals(2, csv.getFieldCount());
+            assertEquals("  b ", csv.getField(1));
+            assertEquals("b", csv.getTrimmedField(1));
+            assertNull(csv.getField(2));
+            assertNull(csv.getTrimmedField(-1));
+            assertFalse(csv.nextRow());
+        }
+    }
+
+    @Test
+    public void rowsLongerThanTheReadBuffer() throws IOException {
+        StringBuilder longField = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            longField.append((char) ('a' + i % 26));
+        }
+        String input = "x,\"" + longField + "\"\r\ny," + longField;
+        try (CsvReader csv = new CsvReader(new StringReader(input))) {
+            assertTrue(csv.nextRow());
+            assertEquals(longField.toString(), csv.getField(1));
+            assertTrue(csv.nextRow());
+            assertEquals("y", csv.getField(0));
+            assertEquals(longField.toString(), csv.getField(1));
+            assertFalse(csv.nextRow());
+        }
+    }
+
+    /**
+     * Random rows written the RFC 4180 way must read back unchanged
+     */
+    @Test
+    public void randomRowsRoundTrip() throws IOException {
+        Random random = new Random(4180);
+        String alphabet = "ab ,\"\r\n\té";
+        for (int round = 0; round < 500; round++) {
+            List<List<String>> rows = new ArrayList<>();
+            StringBuilder csv = new StringBuilder();
+            int rowCount = 1 + random.nextInt(6);
+            for (int r = 0; r < rowCount; r++) {
+                List<String> row = new ArrayList<>();
+                // At least two fields, or an empty row would be ambiguous with an empty field
+                int fieldCount = 2 + random.nextInt(4);
+                for (int f = 0; f < fieldCount; f++) {
+                    StringBuilder field = new StringBuilder();
+                    int length = random.nextInt(8);
+                    for (int i = 0; i < length; i++) {
+                        field.append(alphabet.charAt(random.nextInt(alphabet.length())));
+                    }
+                    row.add(field.toString());
+                    if (f > 0) {
+                        csv.append(',');
+                    }
+                    csv.append(encode(field.toString(), random.nextBoolean()));
+                }
+                rows.add(row);
+                if (r < rowCount - 1 || random.nextBoolean()) {
+                    csv.append(random.nextBoolean() ? "\r\n" : "\n");
+                }
+            }
+
+            Reader in = random.nextBoolean() ? new StringReader(csv.toString()) : new TrickleReader(csv.toString());
+            try (CsvReader reader = new CsvReader(in)) {
+                for (List<String> row : rows) {
+                    assertTrue(csv.toString(), reader.nextRow());
+                    assertEquals(csv.toString(), row.size(), reader.getFieldCount());
+                    for (int f = 0; f < row.size(); f++) {
+                        assertEquals(csv.toString(), row.get(f), reader.getField(f));
+                    }
+                }
+                assertFalse(csv.toString(), reader.nextRow());
+            }
+        }
+    }
+
+    private static String encode(String field, boolean alwaysQuote) {
+        boolean needsQuotes = field.indexOf(',') >= 0 || field.indexOf('"') >= 0
+            || field.indexOf('\r') >= 0 || field.indexOf('\n') >= 0;
+        if (!needsQuotes && !alwaysQuote) {
+            return field;
+        }
+        return "\"" + field.replace("\"", "\"\"") + "\"";
+    }
+
+    private static String describe(Reader in) throws IOException {
+        StringBuilder description = new StringBuilder();
+        try (CsvReader csv = new CsvReader(in)) {
+            while (csv.nextRow()) {
+                for (int i = 0; i < csv.getFieldCount(); i++) {
+                    if (i > 0) {
+                        description.append('|');
+                    }
+                    description.append(csv.getField(i)
+                        .replace("\\", "\\\\")
+                        .replace("|", "\\|")
+                        .replace("\n", "\\n")
+                        .replace("\r", "\\r"));
+                }
+                description.append('\n');
+            }
+        }
+        return description.toString();
+    }
+
+    private String read(String resource) throws IOException {
+        try (InputStream in = getClass().getResourceAsStream("/csv/" + resource)) {
+            assertNotNull("Missing corpus file " + resource, in);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                out.write(buffer, 0, count);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Hands out one character per read, like a slow network stream
+     */
+    private static class TrickleReader extends Reader {
+        private final String text;
+        private int pos = 0;
+
+        TrickleReader(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (pos >= text.length()) {
+                return -1;
+            }
+            if (length == 0) {
+                return 0;
+            }
+            buffer[offset] = text.charAt(pos++);
+            return 1;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
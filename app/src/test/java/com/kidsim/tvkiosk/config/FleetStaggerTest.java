@@ -0,0 +1,178 @@
+package com.kidsim.tvkiosk.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Fleet simulation: 500 TVs come back from one power cut within 20 seconds
+ * and run for six hours. Each test checks how request start times spread
+ * over their window, and how many requests are in flight at once.
+ */
+public class FleetStaggerTest {
+    private static final long SECOND = 1000;
+    private static final long MINUTE = 60 * SECOND;
+    private static final long HOUR = 60 * MINUTE;
+
+    private static final int DEVICES = 500;
+    private static final long BOOT_SPREAD = 20 * SECOND;
+    private static final long RUN_TIME = 6 * HOUR;
+    // An arbitrary wall clock time, so slots don't line up with the epoch by accident
+    private static final long POWER_RESTORED = 1760000000000L + 17 * MINUTE + 23 * SECOND;
+
+    private static final long STARTUP_WINDOW = 5 * MINUTE;
+    private static final long CONFIG_INTERVAL = HOUR;
+    private static final long CONFIG_FETCH_TIME = 2 * SECOND;
+    private static final long PAGE_REFRESH_INTERVAL = 10 * MINUTE;
+    private static final long PAGE_REFRESH_TIME = 3 * SECOND;
+
+    private static class Device {
+        final FleetStagger stagger;
+        final long bootedAt;
+
+        Device(FleetStagger stagger, long bootedAt) {
+            this.stagger = stagger;
+            this.bootedAt = bootedAt;
+        }
+    }
+
+    @Test
+    public void startupFetchesSpreadAcrossWindow() {
+        List<Long> delays = new ArrayList<>();
+        for (Device device : fleet()) {
+            long delay = device.stagger.getDelayWithin(STARTUP_WINDOW);
+            assertTrue(delay >= 0 && delay <= STARTUP_WINDOW);
+            delays.add(delay);
+        }
+
+        // 10 buckets of 30 seconds, 50 devices each if perfectly even
+        int[] buckets = histogram(delays, 0, STARTUP_WINDOW, 10);
+        for (int count : buckets) {
+            assertTrue("startup bucket with " + count + " devices", count >= 25 && count <= 75);
+        }
+    }
+
+    @Test
+    public void periodicFetchesSpreadAcrossInterval() {
+        List<Long> lockstep = new ArrayList<>();
+        List<Long> staggered = new ArrayList<>();
+        for (Device device : fleet()) {
+            for (long at = device.bootedAt; at < POWER_RESTORED + RUN_TIME; at += CONFIG_INTERVAL) {
+                lockstep.add(at);
+            }
+            staggered.addAll(periodicStarts(device, device.bootedAt + device.stagger.getDelayWithin(STARTUP_WINDOW),
+                CONFIG_INTERVAL, CONFIG_FETCH_TIME));
+        }
+
+        // After the startup window, each hour's fetches cover the whole hour
+        for (long hour = POWER_RESTORED + HOUR; hour + HOUR <= POWER_RESTORED + RUN_TIME; hour += HOUR) {
+            List<Long> inHour = new ArrayList<>();
+            for (long start : staggered) {
+                if (start >= hour && start < hour + HOUR) {
+                    inHour.add(start);
+                }
+            }
+            assertEquals("fetches in one hour", DEVICES, inHour.size(), DEVICES / 20);
+            // 12 buckets of 5 minutes, about 42 fetches each if perfectly even
+            for (int count : histogram(inHour, hour, hour + HOUR, 12)) {
+                assertTrue("5-minute bucket with " + count + " fetches", count >= 20 && count <= 65);
+            }
+        }
+
+        int lockstepPeak = peakInFlight(lockstep, CONFIG_FETCH_TIME);
+        int staggeredPeak = peakInFlight(staggered, CONFIG_FETCH_TIME);
+        assertTrue("lockstep peak " + lockstepPeak, lockstepPeak >= 50);
+        assertTrue("staggered peak " + staggeredPeak, staggeredPeak <= 12);
+    }
+
+    @Test
+    public void pageRefreshesSpreadAcrossInterval() {
+        List<Long> lockstep = new ArrayList<>();
+        List<Long> staggered = new ArrayList<>();
+        for (Device device : fleet()) {
+            for (long at = device.bootedAt + PAGE_REFRESH_INTERVAL; at < POWER_RESTORED + RUN_TIME; at += PAGE_REFRESH_INTERVAL) {
+                lockstep.add(at);
+            }
+            staggered.addAll(periodicStarts(device,
+                device.bootedAt + device.stagger.getDelayToNextSlot(device.bootedAt, PAGE_REFRESH_INTERVAL),
+                PAGE_REFRESH_INTERVAL, PAGE_REFRESH_TIME));
+        }
+
+        int lockstepPeak = peakInFlight(lockstep, PAGE_REFRESH_TIME);
+        int staggeredPeak = peakInFlight(staggered, PAGE_REFRESH_TIME);
+        assertTrue("lockstep peak " + lockstepPeak, lockstepPeak >= 50);
+        assertTrue("staggered peak " + staggeredPeak, staggeredPeak <= 15);
+    }
+
+    @Test
+    public void phaseIsStablePerDevice() {
+        assertEquals(new FleetStagger("TV-001/a1b2").getPhase(), new FleetStagger("TV-001/a1b2").getPhase(), 0);
+        assertNotEquals(new FleetStagger("TV-001/a1b2").getPhase(), new FleetStagger("TV-002/a1b2").getPhase(), 0);
+    }
+
+    @Test
+    public void nextSlotIsAtLeastHalfAnIntervalAway() {
+        FleetStagger stagger = new FleetStagger("TV-001/a1b2", new Random(1));
+        for (long now = POWER_RESTORED; now < POWER_RESTORED + 2 * HOUR; now += 7 * MINUTE) {
+            long delay = stagger.getDelayToNextSlot(now, HOUR);
+            assertTrue(delay >= HOUR / 2 && delay <= HOUR * 3 / 2 + HOUR / 20);
+        }
+    }
+
+    /**
+     * Start times of work that first runs at firstStart, then at the device's
+     * slot after each run finishes, until the simulation ends
+     */
+    private static List<Long> periodicStarts(Device device, long firstStart, long interval, long duration) {
+        List<Long> starts = new ArrayList<>();
+        for (long at = firstStart; at < POWER_RESTORED + RUN_TIME; ) {
+            starts.add(at);
+            long finished = at + duration;
+            at = finished + device.stagger.getDelayToNextSlot(finished, interval);
+        }
+        return starts;
+    }
+
+    /**
+     * Devices with sequential configured IDs, random Android IDs and boot times
+     */
+    private static List<Device> fleet() {
+        Random random = new Random(50);
+        List<Device> devices = new ArrayList<>();
+        for (int i = 0; i < DEVICES; i++) {
+            String key = String.format("TV-%03d/%016x", i, random.nextLong());
+            long bootedAt = POWER_RESTORED + (long) (random.nextDouble() * BOOT_SPREAD);
+            devices.add(new Device(new FleetStagger(key, new Random(i)), bootedAt));
+        }
+        return devices;
+    }
+
+    private static int[] histogram(List<Long> values, long from, long to, int bucketCount) {
+        int[] buckets = new int[bucketCount];
+        for (long value : values) {
+            int bucket = (int) ((value - from) * bucketCount / (to - from));
+            buckets[Math.min(bucket, bucketCount - 1)]++;
+        }
+        return buckets;
+    }
+
+    private static int peakInFlight(List<Long> starts, long duration) {
+        List<Long> sorted = new ArrayList<>(starts);
+        Collections.sort(sorted);
+        int peak = 0;
+        int first = 0;
+        for (int i = 0; i < sorted.size(); i++) {
+            while (sorted.get(first) + duration <= sorted.get(i)) {
+                first++;
+            }
+            peak = Math.max(peak, i - first + 1);
+        }
+        return peak;
+    }
+}
@@ -0,0 +1,115 @@
+package com.kidsim.tvkiosk.config;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * The JSONObject config parse ConfigurationManager used before ConfigJsonReader,
+ * kept as the reference for parity tests and benchmarks.
+ */
+class JsonObjectConfigParser {
+    private final String deviceId;
+
+    JsonObjectConfigParser(String deviceId) {
+        this.deviceId = deviceId;
+    }
+
+    /**
+     * The whole update path: join the response lines, parse once to read
+     * configSource, then parse again for the device config
+     */
+    DeviceConfig parseUpdate(Reader in) throws IOException, JSONException {
+        String configJson = join(in);
+        JSONObject configObj = new JSONObject(configJson);
+        configObj.optString("configSource", "json");
+        return parseConfig(configJson);
+    }
+
+    DeviceConfig parseConfig(String configJson) throws JSONException {
+        JSONObject json = new JSONObject(configJson);
+
+        // Check if this is a multi-device config or single device config
+        if (json.has("devices")) {
+            // Multi-device configuration
+            JSONArray devices = json.getJSONArray("devices");
+
+            for (int i = 0; i < devices.length(); i++) {
+                JSONObject deviceJson = devices.getJSONObject(i);
+                if (deviceId.equals(deviceJson.optString("deviceId"))) {
+                    return parseDeviceConfigFromJson(deviceJson);
+                }
+            }
+
+            // If no specific config found, use default or first one
+            if (devices.length() > 0) {
+                JSONObject defaultDevice = devices.getJSONObject(0);
+                DeviceConfig config = parseDeviceConfigFromJson(defaultDevice);
+                config.setDeviceId(deviceId); // Override with actual device ID
+                return config;
+            }
+        }
+
+        // Single device configuration
+        return parseDeviceConfigFromJson(json);
+    }
+
+    DeviceConfig parseFallbackConfig(String configJson) throws JSONException {
+        JSONObject fallbackConfig = new JSONObject(configJson).getJSONObject("fallbackConfig");
+        return parseDeviceConfigFromJson(fallbackConfig);
+    }
+
+    DeviceConfig parseDeviceConfigFromJson(JSONObject json) throws JSONException {
+        DeviceConfig config = new DeviceConfig();
+
+        config.setDeviceId(json.optString("deviceId", deviceId));
+        config.setDeviceName(json.optString("deviceName", "Android TV"));
+        config.setOrientation(json.optString("orientation", "landscape"));
+        config.setRefreshIntervalMinutes(json.optInt("refreshIntervalMinutes", 60));
+        config.setAutoStart(json.optBoolean("autoStart", true));
+        config.setClearCache(json.optBoolean("clearCache", false));
+        config.setConfigVersion(json.optString("configVersion", "1.0"));
+
+        // Parse pages
+        List<PageConfig> pages = new ArrayList<>();
+        if (json.has("pages")) {
+            JSONArray pagesArray = json.getJSONArray("pages");
+            for (int i = 0; i < pagesArray.length(); i++) {
+                JSONObject pageJson = pagesArray.getJSONObject(i);
+                PageConfig page = new PageConfig();
+                page.setUrl(pageJson.getString("url"));
+                page.setDisplayTimeSeconds(pageJson.optInt("displayTimeSeconds", 300));
+                page.setTitle(pageJson.optString("title", ""));
+                pages.add(page);
+            }
+        } else if (json.has("url")) {
+            // Single URL configuration for backward compatibility
+            PageConfig page = new PageConfig();
+            page.setUrl(json.getString("url"));
+            page.setDisplayTimeSeconds(config.getRefreshIntervalMinutes() * 60);
+            pages.add(page);
+        }
+
+        config.setPages(pages);
+        return config;
+    }
+
+    /**
+     * Read a response the way downloadConfig did, one line at a time
+     */
+    static String join(Reader in) throws IOException {
+        try (BufferedReader reader = new BufferedReader(in)) {
+            StringBuilder response = new StringBuilder();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                response.append(line);
+            }
+            return response.toString();
+        }
+    }
+}
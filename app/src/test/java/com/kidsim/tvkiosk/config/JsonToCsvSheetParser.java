@@ -0,0 +1,130 @@
+package com.kidsim.tvkiosk.config;
+
+import android.util.Log;
+import java.util.ArrayList;
+import java.util.List;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * The values parse GoogleSheetsConfigLoader used before SheetValuesParser:
+ * the response is parsed into a JSONObject, every row is re-joined into a CSV
+ * line and each line is split again. Kept, logging included, as the
+ * reference for benchmarks.
+ */
+class JsonToCsvSheetParser {
+    private static final String TAG = "GoogleSheetsLoader";
+
+    static DeviceConfig parseDeviceConfigFromAPI(String deviceId, String jsonResponse) throws JSONException {
+        // Parse the Google Sheets API JSON response
+        JSONObject response = new JSONObject(jsonResponse);
+        JSONArray values = response.getJSONArray("values");
+
+        // Convert JSON array to list of strings for compatibility with existing parser
+        List<String> csvLines = new ArrayList<>();
+        for (int i = 0; i < values.length(); i++) {
+            JSONArray row = values.getJSONArray(i);
+            StringBuilder csvLine = new StringBuilder();
+            for (int j = 0; j < row.length(); j++) {
+                if (j > 0) csvLine.append(",");
+                String cell = row.optString(j, "");
+                // Escape commas and quotes in CSV format
+                if (cell.contains(",") || cell.contains("\"")) {
+                    cell = "\"" + cell.replace("\"", "\"\"") + "\"";
+                }
+                csvLine.append(cell);
+            }
+            csvLines.add(csvLine.toString());
+        }
+
+        return parseDeviceConfigFromCsv(deviceId, csvLines);
+    }
+
+    private static DeviceConfig parseDeviceConfigFromCsv(String deviceId, List<String> csvLines) {
+        if (csvLines.size() < 5) {
+            Log.e(TAG, "Sheet too short, expected at least 5 rows");
+            return null;
+        }
+
+        String[] row1 = parseCsvLine(csvLines.get(0));
+
+        // Extract refresh interval from row 1, column B (index 1)
+        int refreshInterval = 60; // default
+        if (row1.length > 1) {
+            try {
+                refreshInterval = Integer.parseInt(row1[1].trim());
+                Log.d(TAG, "Parsed refresh interval: " + refreshInterval + " minutes");
+            } catch (NumberFormatException e) {
+                Log.w(TAG, "Invalid refresh interval, using default: " + row1[1]);
+            }
+        }
+
+        // Parse pages starting from row 5 (index 4) - after the URL/DisplaySeconds headers in row 4
+        List<PageConfig> pages = new ArrayList<>();
+        for (int i = 4; i < csvLines.size(); i++) {
+            String[] pageRow = parseCsvLine(csvLines.get(i));
+            if (pageRow.length >= 2 && !pageRow[0].trim().isEmpty()) {
+                String pageUrl = pageRow[0].trim();
+
+                // Skip if this is a header row
+                if (pageUrl.equalsIgnoreCase("URL")) {
+                    Log.d(TAG, "Skipping header row: " + pageUrl);
+                    continue;
+                }
+
+                int displayTime = 30; // default
+                try {
+                    displayTime = Integer.parseInt(pageRow[1].trim());
+                } catch (NumberFormatException e) {
+                    Log.w(TAG, "Invalid display time, using default: " + pageRow[1]);
+                }
+
+                PageConfig pageConfig = new PageConfig(pageUrl, displayTime);
+                pageConfig.setTitle("Page " + (pages.size() + 1));
+                pages.add(pageConfig);
+
+                Log.d(TAG, "Added page: " + pageUrl + " (display: " + displayTime + "s)");
+            }
+        }
+
+        if (pages.isEmpty()) {
+            Log.e(TAG, "No pages found in configuration");
+            return null;
+        }
+
+        String deviceName = deviceId + " Device";
+        Log.i(TAG, "Loaded config for " + deviceName + " with " + pages.size() + " pages, refresh: " + refreshInterval + "min");
+
+        DeviceConfig config = new DeviceConfig();
+        config.setDeviceId(deviceId);
+        config.setDeviceName(deviceName);
+        config.setOrientation("landscape");
+        config.setRefreshIntervalMinutes(refreshInterval);
+        config.setAutoStart(true);
+        config.setClearCache(true);
+        config.setPages(pages);
+        return config;
+    }
+
+    private static String[] parseCsvLine(String line) {
+        // Simple CSV parsing - handle quoted fields and commas
+        List<String> fields = new ArrayList<>();
+        boolean inQuotes = false;
+        StringBuilder currentField = new StringBuilder();
+
+        for (char c : line.toCharArray()) {
+            if (c == '"') {
+                inQuotes = !inQuotes;
+            } else if (c == ',' && !inQuotes) {
+                fields.add(currentField.toString());
+                currentField = new StringBuilder();
+            } else {
+                currentField.append(c);
+            }
+        }
+        fields.add(currentField.toString());
+
+        return fields.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,136 @@
+package com.kidsim.tvkiosk.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Page checks against a local stand-in server. Each path answers with the
+ * status in its name, e.g. /status/404; /no-head/405 refuses HEAD with that
+ * status and serves GET normally.
+ */
+public class PageUrlValidatorTest {
+    private HttpServer server;
+    private String base;
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    private final Map<String, String> ranges = new ConcurrentHashMap<>();
+    private PageUrlValidator validator;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            String method = exchange.getRequestMethod();
+            requests.add(method + " " + path);
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            if (range != null) {
+                ranges.put(path, range);
+            }
+
+            int status = Integer.parseInt(path.substring(path.lastIndexOf('/') + 1));
+            if (path.startsWith("/no-head/")) {
+                status = "HEAD".equals(method) ? status : 206;
+            }
+            if ("HEAD".equals(method)) {
+                exchange.sendResponseHeaders(status, -1);
+            } else {
+                exchange.sendResponseHeaders(status, 1);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write('<');
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+        base = "http://127.0.0.1:" + server.getAddress().getPort();
+        validator = new PageUrlValidator();
+    }
+
+    @After
+    public void tearDown() {
+        validator.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    public void refusedHeadFallsBackToRangedGet() {
+        PageUrlValidator.Result result = validator.validate(pages("/no-head/405", "/no-head/501"));
+
+        assertEquals(2, result.getLivePages().size());
+        assertTrue(result.getDeadUrls().isEmpty());
+        assertTrue(requests.containsAll(Arrays.asList(
+            "HEAD /no-head/405", "GET /no-head/405", "HEAD /no-head/501", "GET /no-head/501")));
+        assertEquals("bytes=0-0", ranges.get("/no-head/405"));
+        assertEquals("bytes=0-0", ranges.get("/no-head/501"));
+    }
+
+    @Test
+    public void answeredHeadNeedsNoGet() {
+        validator.validate(pages("/status/200", "/status/404"));
+        assertEquals(2, requests.size());
+        assertTrue(ranges.isEmpty());
+    }
+
+    @Test
+    public void authWallsAndRateLimitsCountAsLive() {
+        PageUrlValidator.Result result = validator.validate(pages("/status/401", "/status/403", "/status/429"));
+
+        assertEquals(3, result.getLivePages().size());
+        assertTrue(result.getDeadUrls().isEmpty());
+        assertEquals(1.0, result.getHealthyFraction(), 0);
+    }
+
+    @Test
+    public void otherErrorsCountAsDead() {
+        PageUrlValidator.Result result = validator.validate(pages("/status/200", "/status/404", "/status/500"));
+
+        assertEquals(1, result.getLivePages().size());
+        assertEquals(base + "/status/200", result.getLivePages().get(0).getUrl());
+        assertEquals("HTTP 404", result.getDeadUrls().get(base + "/status/404"));
+        assertEquals("HTTP 500", result.getDeadUrls().get(base + "/status/500"));
+        assertEquals(1.0 / 3, result.getHealthyFraction(), 1e-9);
+    }
+
+    @Test
+    public void repeatedUrlIsCheckedOnce() {
+        PageUrlValidator.Result result = validator.validate(pages("/status/200", "/status/200", "/status/200"));
+
+        assertEquals(3, result.getLivePages().size());
+        assertEquals(1, requests.size());
+    }
+
+    @Test
+    public void otherSchemesAreNotChecked() {
+        List<PageConfig> pages = new ArrayList<>();
+        pages.add(new PageConfig("file:///sdcard/kiosk/index.html", 30));
+        pages.add(new PageConfig("not a url", 30));
+
+        PageUrlValidator.Result result = validator.validate(pages);
+        assertEquals(1, result.getLivePages().size());
+        assertEquals("malformed URL", result.getDeadUrls().get("not a url"));
+        assertTrue(requests.isEmpty());
+    }
+
+    private List<PageConfig> pages(String... paths) {
+        List<PageConfig> pages = new ArrayList<>();
+        for (String path : paths) {
+            pages.add(new PageConfig(base + path, 30));
+        }
+        return pages;
+    }
+}
@@ -0,0 +1,182 @@
+package com.kidsim.tvkiosk.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+/**
+ * Redirect handling against a local stand-in server, plus a measurement of
+ * what loading a remembered redirect target saves.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class PageWarmerTest {
+    // Stand-in for the network round trip each request pays on a TV
+    private static final long SIMULATED_RTT = 50;
+    private static final byte[] PAGE = "<html><body>Kiosk page</body></html>".getBytes(StandardCharsets.UTF_8);
+
+    private HttpServer server;
+    private String base;
+    private final Map<String, String[]> redirects = new ConcurrentHashMap<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile long responseDelay = 0;
+    private ConfigExecutor executor;
+    private PageWarmer warmer;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            sleep(responseDelay);
+            String[] redirect = redirects.get(exchange.getRequestURI().getPath());
+            if (redirect != null) {
+                exchange.getResponseHeaders().add("Location", redirect[1]);
+                exchange.sendResponseHeaders(Integer.parseInt(redirect[0]), -1);
+            } else if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(200, -1);
+            } else {
+                exchange.sendResponseHeaders(200, PAGE.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(PAGE);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+        base = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        // Warm-ups run inline so each test sees their result right away
+        executor = new ConfigExecutor() {
+            @Override
+            public void execute(Priority priority, Runnable task) {
+                task.run();
+            }
+        };
+        warmer = new PageWarmer(RuntimeEnvironment.getApplication(), executor);
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    @Test
+    public void followsPermanentRedirectChain() {
+        redirects.put("/old", new String[] {"301", "/moved"});
+        redirects.put("/moved", new String[] {"308", base + "/final"});
+
+        warmer.warm(Collections.singletonList(base + "/old"));
+        assertEquals(base + "/final", warmer.resolve(base + "/old"));
+    }
+
+    @Test
+    public void temporaryRedirectEndsChain() {
+        redirects.put("/old", new String[] {"301", "/moved"});
+        redirects.put("/moved", new String[] {"302", "/today"});
+
+        warmer.warm(Collections.singletonList(base + "/old"));
+        assertEquals(base + "/moved", warmer.resolve(base + "/old"));
+    }
+
+    @Test
+    public void pageWithoutRedirectKeepsItsUrl() {
+        warmer.warm(Collections.singletonList(base + "/page"));
+        assertEquals(base + "/page", warmer.resolve(base + "/page"));
+        assertTrue(warmer.isWarm(base + "/page"));
+    }
+
+    @Test
+    public void removedRedirectIsDropped() {
+        redirects.put("/old", new String[] {"301", "/moved"});
+        warmer.warm(Collections.singletonList(base + "/old"));
+        assertEquals(base + "/moved", warmer.resolve(base + "/old"));
+
+        // A new warmer checks again, as after a restart
+        redirects.clear();
+        PageWarmer restarted = new PageWarmer(RuntimeEnvironment.getApplication(), executor);
+        restarted.warm(Collections.singletonList(base + "/old"));
+        assertEquals(base + "/old", restarted.resolve(base + "/old"));
+    }
+
+    @Test
+    public void forgetDropsRedirect() {
+        redirects.put("/old", new String[] {"301", "/moved"});
+        warmer.warm(Collections.singletonList(base + "/old"));
+        warmer.forget(base + "/old");
+        assertEquals(base + "/old", warmer.resolve(base + "/old"));
+    }
+
+    @Test
+    public void rememberedRedirectSavesRoundTrips() throws IOException {
+        for (String url : Arrays.asList("/old", "/moved")) {
+            redirects.put(url, new String[] {"301", url.equals("/old") ? "/moved" : "/final"});
+        }
+        warmer.warm(Collections.singletonList(base + "/old"));
+        responseDelay = SIMULATED_RTT;
+
+        requests.set(0);
+        long start = System.nanoTime();
+        load(base + "/old");
+        long coldMillis = (System.nanoTime() - start) / 1000000;
+        int coldRequests = requests.get();
+
+        requests.set(0);
+        start = System.nanoTime();
+        load(warmer.resolve(base + "/old"));
+        long warmMillis = (System.nanoTime() - start) / 1000000;
+        int warmRequests = requests.get();
+
+        System.out.println("Two-hop redirect with " + SIMULATED_RTT + "ms per request: "
+            + coldRequests + " requests, " + coldMillis + "ms as configured; "
+            + warmRequests + " request, " + warmMillis + "ms via the remembered target");
+        assertEquals(3, coldRequests);
+        assertEquals(1, warmRequests);
+        assertTrue(warmMillis < coldMillis);
+    }
+
+    /**
+     * Fetch a page the way a browser does, following redirects
+     */
+    private static void load(String url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        // No keep-alive, so both loads start from the same state
+        connection.setRequestProperty("Connection", "close");
+        try (InputStream in = connection.getInputStream()) {
+            byte[] buffer = new byte[4096];
+            while (in.read(buffer) != -1) {
+                // Drain the body
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.kidsim.tvkiosk.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowSystemClock;
+
+/**
+ * Probes against a local stand-in server. It answers as two hosts,
+ * 127.0.0.1 and localhost, each with its own scripted status and Location.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ReachabilityProberTest {
+    private HttpServer server;
+    private int port;
+    private final Map<String, String[]> answers = new ConcurrentHashMap<>();
+    private final AtomicInteger probes = new AtomicInteger();
+    private ReachabilityProber prober;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            probes.incrementAndGet();
+            String host = exchange.getRequestHeaders().getFirst("Host");
+            String[] answer = answers.get(host.substring(0, host.lastIndexOf(':')));
+            if (answer == null) {
+                answer = new String[] {"200"};
+            }
+            if (answer.length > 1) {
+                exchange.getResponseHeaders().add("Location", answer[1]);
+            }
+            exchange.sendResponseHeaders(Integer.parseInt(answer[0]), -1);
+            exchange.close();
+        });
+        server.start();
+        port = server.getAddress().getPort();
+        prober = new ReachabilityProber();
+    }
+
+    @After
+    public void tearDown() {
+        prober.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    public void redirectToOtherHostIsUnreachable() {
+        answers.put("127.0.0.1", new String[] {"302", "http://localhost:" + port + "/login"});
+        prober.setTargets(Collections.singletonList(origin("127.0.0.1") + "/kiosk/page"));
+        assertFalse(prober.checkReachable());
+    }
+
+    @Test
+    public void redirectWithinHostIsReachable() {
+        answers.put("127.0.0.1", new String[] {"301", "/home"});
+        prober.setTargets(Collections.singletonList(origin("127.0.0.1") + "/kiosk/page"));
+        assertTrue(prober.checkReachable());
+    }
+
+    @Test
+    public void networkAuthenticationRequiredIsUnreachable() {
+        answers.put("127.0.0.1", new String[] {"511"});
+        prober.setTargets(Collections.singletonList(origin("127.0.0.1")));
+        assertFalse(prober.checkReachable());
+    }
+
+    @Test
+    public void errorStatusFromHostItselfIsReachable() {
+        answers.put("127.0.0.1", new String[] {"503"});
+        prober.setTargets(Collections.singletonList(origin("127.0.0.1")));
+        assertTrue(prober.checkReachable());
+    }
+
+    @Test
+    public void laterTargetCanProveReachability() {
+        answers.put("127.0.0.1", new String[] {"511"});
+        prober.setTargets(Arrays.asList(origin("127.0.0.1") + "/a", origin("127.0.0.1") + "/b", origin("localhost")));
+        assertTrue(prober.checkReachable());
+        // One probe per distinct origin
+        assertEquals(2, probes.get());
+    }
+
+    @Test
+    public void noTargetsIsReachable() {
+        assertTrue(prober.checkReachable());
+        assertEquals(0, probes.get());
+    }
+
+    @Test
+    public void unreachableResultBacksOff() {
+        answers.put("127.0.0.1", new String[] {"511"});
+        prober.setTargets(Collections.singletonList(origin("127.0.0.1")));
+        assertFalse(prober.checkReachable());
+
+        // The portal is gone, but the first failure is trusted for 15 seconds
+        answers.clear();
+        ShadowSystemClock.advanceBy(Duration.ofSeconds(14));
+        assertFalse(prober.checkReachable());
+        assertEquals(1, probes.get());
+
+        // A second failure is trusted for 15 to 30 seconds
+        answers.put("127.0.0.1", new String[] {"511"});
+        ShadowSystemClock.advanceBy(Duration.ofSeconds(2));
+        assertFalse(prober.checkReachable());
+        assertEquals(2, probes.get());
+        answers.clear();
+        ShadowSystemClock.advanceBy(Duration.ofSeconds(14));
+        assertFalse(prober.checkReachable());
+        assertEquals(2, probes.get());
+
+        ShadowSystemClock.advanceBy(Duration.ofSeconds(17));
+        assertTrue(prober.checkReachable());
+        assertEquals(3, probes.get());
+    }
+
+    @Test
+    public void reachableResultIsCachedForAMinute() {
+        prober.setTargets(Collections.singletonList(origin("127.0.0.1")));
+        assertTrue(prober.checkReachable());
+
+        answers.put("127.0.0.1", new String[] {"511"});
+        ShadowSystemClock.advanceBy(Duration.ofSeconds(59));
+        assertTrue(prober.checkReachable());
+        assertEquals(1, probes.get());
+
+        ShadowSystemClock.advanceBy(Duration.ofSeconds(2));
+        assertFalse(prober.checkReachable());
+        assertEquals(2, probes.get());
+    }
+
+    @Test
+    public void invalidateProbesAgain() {
+        answers.put("127.0.0.1", new String[] {"511"});
+        prober.setTargets(Collections.singletonList(origin("127.0.0.1")));
+        assertFalse(prober.checkReachable());
+
+        answers.clear();
+        prober.invalidate();
+        assertTrue(prober.checkReachable());
+        assertEquals(2, probes.get());
+    }
+
+    private String origin(String host) {
+        return "http://" + host + ":" + port;
+    }
+}
@@ -0,0 +1,78 @@
+package com.kidsim.tvkiosk.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import org.json.JSONArray;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+/**
+ * Measured comparison of SheetValuesParser against the JSONObject to CSV
+ * parse it replaced, on the lobby fixture and on a full 100-row sheet (the
+ * most the old A1:Z100 range returned). Time and allocated bytes per read are
+ * printed; only allocations are asserted, and only on the full sheet, since
+ * on a five-page sheet both parsers allocate about the same.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class SheetValuesParserBenchmarkTest {
+    private static final String DEVICE_ID = "TV-Test";
+    private static final int WARMUP_ROUNDS = 300;
+    private static final int ROUNDS = 1000;
+
+    @Test
+    public void lobbySheet() throws Exception {
+        compare("lobby", SheetValuesParserTest.read("lobby.json"));
+    }
+
+    @Test
+    public void fullSheetAllocatesLess() throws Exception {
+        Benchmark[] results = compare("100 rows", fullSheet());
+        if (results[1].hasAllocations()) {
+            assertTrue("SheetValuesParser allocated more than JSON to CSV", results[1].allocatesLessThan(results[0]));
+        }
+    }
+
+    /**
+     * Check both parsers agree, then measure them
+     *
+     * @return the old parser's numbers, then SheetValuesParser's
+     */
+    private Benchmark[] compare(String name, final String json) throws Exception {
+        assertEquals(SheetValuesParserTest.describe(JsonToCsvSheetParser.parseDeviceConfigFromAPI(DEVICE_ID, json)),
+            SheetValuesParserTest.describe(parse(json)));
+
+        Benchmark csv = Benchmark.measure(WARMUP_ROUNDS, ROUNDS,
+            () -> JsonToCsvSheetParser.parseDeviceConfigFromAPI(DEVICE_ID, json));
+        Benchmark stream = Benchmark.measure(WARMUP_ROUNDS, ROUNDS, () -> parse(json));
+
+        System.out.println(name + " (" + json.length() + " chars): JSON to CSV " + csv + "; SheetValuesParser " + stream);
+        return new Benchmark[] {csv, stream};
+    }
+
+    private static DeviceConfig parse(String json) throws Exception {
+        SheetValuesParser parser = new SheetValuesParser();
+        parser.readValues(new StringReader(json));
+        return parser.toDeviceConfig(DEVICE_ID);
+    }
+
+    /**
+     * A sheet filling the old range: settings, headers, then 96 pages with notes in spare columns
+     */
+    private static String fullSheet() {
+        JSONArray values = new JSONArray()
+            .put(new JSONArray().put("Refresh Minutes").put("15"))
+            .put(new JSONArray())
+            .put(new JSONArray().put("Pages"))
+            .put(new JSONArray().put("URL").put("DisplaySeconds").put("Notes"));
+        for (int i = 0; i < 96; i++) {
+            values.put(new JSONArray()
+                .put("https://www.kidsim.org/screens/lobby/" + i + "?view=week&autoplay=true")
+                .put(String.valueOf(30 + i % 5 * 15))
+                .put("Rotation slot " + i + ", added by facilities"));
+        }
+        return "{\"range\":\"'TV-Test'!A1:Z100\",\"majorDimension\":\"ROWS\",\"values\":" + values + "}";
+    }
+}
@@ -0,0 +1,92 @@
+package com.kidsim.tvkiosk.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+/**
+ * Golden-file tests: each fixture in resources/sheets is a Sheets API values
+ * response, and its .expected file is what the JSON to CSV parser this one
+ * replaced produced for it.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class SheetValuesParserTest {
+    private static final String DEVICE_ID = "TV-Test";
+
+    @Test
+    public void lobbyMatchesBaseline() throws IOException {
+        assertMatchesGolden("lobby");
+    }
+
+    @Test
+    public void blankRowsBadNumbersAndRepeatedHeadersMatchBaseline() throws IOException {
+        assertMatchesGolden("cafeteria");
+    }
+
+    @Test
+    public void extraColumnsMatchBaseline() throws IOException {
+        assertMatchesGolden("wide");
+    }
+
+    @Test
+    public void headerOnlySheetMatchesBaseline() throws IOException {
+        assertMatchesGolden("header-only");
+    }
+
+    @Test
+    public void shortSheetMatchesBaseline() throws IOException {
+        assertMatchesGolden("short");
+    }
+
+    @Test
+    public void emptySheetMatchesBaseline() throws IOException {
+        assertMatchesGolden("empty");
+    }
+
+    private void assertMatchesGolden(String name) throws IOException {
+        SheetValuesParser parser = new SheetValuesParser();
+        parser.readValues(new InputStreamReader(open(name + ".json"), StandardCharsets.UTF_8));
+        assertEquals(read(name + ".expected"), describe(parser.toDeviceConfig(DEVICE_ID)));
+    }
+
+    static String describe(DeviceConfig config) {
+        if (config == null) {
+            return "null\n";
+        }
+        StringBuilder description = new StringBuilder()
+            .append("deviceName=").append(config.getDeviceName()).append('\n')
+            .append("refreshMinutes=").append(config.getRefreshIntervalMinutes()).append('\n');
+        for (PageConfig page : config.getPages()) {
+            description.append("page=").append(page.getUrl())
+                .append('|').append(page.getDisplayTimeSeconds())
+                .append('|').append(page.getTitle()).append('\n');
+        }
+        return description.toString();
+    }
+
+    private static InputStream open(String resource) {
+        InputStream in = SheetValuesParserTest.class.getResourceAsStream("/sheets/" + resource);
+        assertNotNull("Missing fixture " + resource, in);
+        return in;
+    }
+
+    static String read(String resource) throws IOException {
+        try (InputStream in = open(resource)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                out.write(buffer, 0, count);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.kidsim.tvkiosk.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import org.junit.Test;
+
+public class MemoryTrendPredictorTest {
+    private static final long MINUTE = 60 * 1000;
+    private static final long HOUR = 60 * MINUTE;
+
+    @Test
+    public void slowLeakUnderSawtoothIsPredicted() {
+        MemoryTrendPredictor predictor = new MemoryTrendPredictor(6 * HOUR);
+        // 5 MB/h leak under a 10-minute GC sawtooth of up to 72 MB
+        for (int minute = 0; minute <= 6 * 60; minute++) {
+            double leak = 300 + 5.0 * minute / 60;
+            predictor.addSample(minute * MINUTE, leak + (minute % 10) * 8);
+        }
+
+        assertTrue(predictor.hasEnoughData());
+        assertEquals(5.0, predictor.getSlopePerHour(), 0.5);
+        assertTrue(predictor.getRSquared() > 0.9);
+        // The floor is at 330 MB after 6 hours, so 400 MB is 14 hours out
+        assertEquals(14 * HOUR, predictor.predictTimeToLimit(400), HOUR);
+        assertEquals(0, predictor.predictTimeToLimit(320));
+    }
+
+    @Test
+    public void flatTraceHasNoPrediction() {
+        MemoryTrendPredictor predictor = new MemoryTrendPredictor(6 * HOUR);
+        for (int minute = 0; minute <= 6 * 60; minute++) {
+            predictor.addSample(minute * MINUTE, 300 + (minute % 10) * 8);
+        }
+
+        assertTrue(predictor.hasEnoughData());
+        assertEquals(0.0, predictor.getSlopePerHour(), 0.01);
+        assertEquals(MemoryTrendPredictor.NO_PREDICTION, predictor.predictTimeToLimit(400));
+    }
+
+    @Test
+    public void noisyTraceBelowMinRSquaredHasNoPrediction() {
+        MemoryTrendPredictor predictor = new MemoryTrendPredictor(6 * HOUR);
+        Random random = new Random(42);
+        // A slight upward drift the noise on the floor drowns out
+        for (int minute = 0; minute <= 6 * 60; minute++) {
+            double noise = (random.nextDouble() - 0.5) * 80;
+            predictor.addSample(minute * MINUTE, 300 + 0.5 * minute / 60 + noise);
+        }
+
+        assertTrue(predictor.hasEnoughData());
+        assertTrue(predictor.getRSquared() < 0.6);
+        assertEquals(MemoryTrendPredictor.NO_PREDICTION, predictor.predictTimeToLimit(400));
+    }
+
+    @Test
+    public void samplesOutsideWindowAreEvicted() {
+        MemoryTrendPredictor predictor = new MemoryTrendPredictor(HOUR);
+        // A steep climb that levels off; only the flat last hour stays in the window
+        for (int minute = 0; minute <= 3 * 60; minute++) {
+            double value = minute < 2 * 60 ? 100 + minute : 220;
+            predictor.addSample(minute * MINUTE, value);
+        }
+
+        assertEquals(61, predictor.getSampleCount());
+        assertEquals(0.0, predictor.getSlopePerHour(), 0.01);
+        assertEquals(MemoryTrendPredictor.NO_PREDICTION, predictor.predictTimeToLimit(400));
+    }
+
+    @Test
+    public void tooFewSamplesHaveNoPrediction() {
+        MemoryTrendPredictor predictor = new MemoryTrendPredictor(6 * HOUR);
+        for (int i = 0; i < 10; i++) {
+            predictor.addSample(i * 30 * MINUTE, 300 + i * 10);
+        }
+
+        assertFalse(predictor.hasEnoughData());
+        assertEquals(MemoryTrendPredictor.NO_PREDICTION, predictor.predictTimeToLimit(400));
+    }
+}
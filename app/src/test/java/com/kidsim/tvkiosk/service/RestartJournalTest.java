@@ -0,0 +1,228 @@
+package com.kidsim.tvkiosk.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.kidsim.tvkiosk.service.RestartJournal.Degradation;
+import com.kidsim.tvkiosk.service.RestartJournal.Entry;
+import com.kidsim.tvkiosk.service.RestartJournal.Event;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RestartJournalTest {
+    private static final long SECOND = 1000;
+    private static final long MINUTE = 60 * SECOND;
+    private static final long NOW = 1760000000000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+    private RestartJournal journal;
+
+    @Before
+    public void setUp() {
+        file = new File(folder.getRoot(), "journal.bin");
+        journal = new RestartJournal(file);
+    }
+
+    @Test
+    public void entriesReadBackInOrder() {
+        journal.append(Event.START, "boot");
+        journal.append(Event.CRASH, "NullPointerException");
+        journal.append(Event.RESTART, null);
+
+        List<Entry> entries = journal.readEntries();
+        assertEquals(3, entries.size());
+        assertEquals(Event.START, entries.get(0).event);
+        assertEquals("boot", entries.get(0).reason);
+        assertEquals(Event.CRASH, entries.get(1).event);
+        assertEquals("", entries.get(2).reason);
+        for (int i = 0; i < entries.size(); i++) {
+            assertEquals(i, entries.get(i).sequence);
+        }
+    }
+
+    @Test
+    public void missingFileHasNoEntries() {
+        assertTrue(journal.readEntries().isEmpty());
+        assertEquals(Degradation.NONE, journal.evaluateCrashLoop(NOW));
+    }
+
+    @Test
+    public void ringWrapsAroundWithoutGrowing() {
+        int appended = RestartJournal.CAPACITY + 44;
+        for (int i = 0; i < appended; i++) {
+            journal.append(Event.WATCHDOG, "check " + i);
+        }
+
+        List<Entry> entries = journal.readEntries();
+        assertEquals(RestartJournal.CAPACITY, entries.size());
+        assertEquals(44, entries.get(0).sequence);
+        assertEquals("check 44", entries.get(0).reason);
+        assertEquals(appended - 1, entries.get(entries.size() - 1).sequence);
+        assertEquals(RestartJournal.HEADER_SIZE + RestartJournal.CAPACITY * RestartJournal.RECORD_SIZE, file.length());
+    }
+
+    @Test
+    public void unfinishedAppendIsInvisible() throws IOException {
+        journal.append(Event.START, "boot");
+        journal.append(Event.CRASH, "first");
+
+        // A process died after writing part of the next record, before the header
+        writeAt(slot(2), new byte[] {0, 0, 0, 0, 0, 0, 0, 2, 1, 2, 3});
+
+        List<Entry> entries = journal.readEntries();
+        assertEquals(2, entries.size());
+        assertEquals("first", entries.get(1).reason);
+    }
+
+    @Test
+    public void tornRecordOverOldestSlotIsSkipped() throws IOException {
+        for (int i = 0; i < RestartJournal.CAPACITY; i++) {
+            journal.append(Event.WATCHDOG, "check " + i);
+        }
+        // The append of the next sequence died halfway through overwriting slot 0
+        writeAt(slot(RestartJournal.CAPACITY), new byte[] {0, 0, 0, 0, 0, 0, 1, 0, 0x7F});
+
+        List<Entry> entries = journal.readEntries();
+        assertEquals(RestartJournal.CAPACITY - 1, entries.size());
+        assertEquals(1, entries.get(0).sequence);
+
+        // The next append takes the slot over properly
+        journal.append(Event.START, "boot");
+        entries = journal.readEntries();
+        assertEquals(RestartJournal.CAPACITY, entries.size());
+        assertEquals("boot", entries.get(entries.size() - 1).reason);
+    }
+
+    @Test
+    public void truncatedFileKeepsWholeRecords() throws IOException {
+        journal.append(Event.START, "boot");
+        journal.append(Event.CRASH, "first");
+        journal.append(Event.CRASH, "second");
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(slot(2) + RestartJournal.RECORD_SIZE / 2);
+        }
+
+        List<Entry> entries = journal.readEntries();
+        assertEquals(2, entries.size());
+        assertEquals("first", entries.get(1).reason);
+    }
+
+    @Test
+    public void corruptHeaderReadsAsEmpty() throws IOException {
+        journal.append(Event.START, "boot");
+        writeAt(0, new byte[] {0, 0, 0, 0});
+        assertTrue(journal.readEntries().isEmpty());
+
+        // Appending starts the journal over
+        journal.append(Event.START, "boot");
+        assertEquals(1, journal.readEntries().size());
+    }
+
+    @Test
+    public void longReasonIsCutAtCharacterBoundary() {
+        StringBuilder reason = new StringBuilder();
+        for (int i = 0; i < 60; i++) {
+            reason.append('é');
+        }
+        journal.append(Event.CRASH, "x" + reason);
+
+        String stored = journal.readEntries().get(0).reason;
+        assertTrue(stored.getBytes(StandardCharsets.UTF_8).length <= RestartJournal.MAX_REASON_BYTES);
+        assertEquals(("x" + reason).substring(0, stored.length()), stored);
+    }
+
+    @Test
+    public void failuresCloseTogetherAreOneIncident() {
+        // Every WebView losing the shared renderer at once, then a crash right after
+        List<Entry> entries = entries(
+            failure(-20 * MINUTE), failure(-20 * MINUTE + 2 * SECOND), failure(-20 * MINUTE + 4 * SECOND),
+            failure(-20 * MINUTE + 18 * SECOND));
+        assertEquals(Degradation.NONE, RestartJournal.evaluateCrashLoop(entries, NOW));
+    }
+
+    @Test
+    public void failuresFurtherApartAreSeparateIncidents() {
+        List<Entry> entries = entries(failure(-20 * MINUTE), failure(-20 * MINUTE + 16 * SECOND));
+        assertEquals(Degradation.REDUCED_POOL, RestartJournal.evaluateCrashLoop(entries, NOW));
+    }
+
+    @Test
+    public void incidentsStepThroughDegradations() {
+        Degradation[] expected = {
+            Degradation.NONE, Degradation.NONE, Degradation.REDUCED_POOL, Degradation.SNAPSHOT_ONLY,
+            Degradation.FALLBACK_CONFIG, Degradation.FALLBACK_CONFIG };
+        for (int incidents = 0; incidents < expected.length; incidents++) {
+            List<Entry> entries = new ArrayList<>();
+            for (int i = 0; i < incidents; i++) {
+                entries.add(failure(-50 * MINUTE + i * 5 * MINUTE));
+            }
+            assertEquals(incidents + " incidents", expected[incidents],
+                RestartJournal.evaluateCrashLoop(entries, NOW));
+        }
+    }
+
+    @Test
+    public void onlyFailuresCount() {
+        List<Entry> entries = new ArrayList<>();
+        long sequence = 0;
+        for (Event event : Event.values()) {
+            if (!event.isFailure()) {
+                for (int i = 0; i < 5; i++) {
+                    entries.add(new Entry(sequence++, NOW - 50 * MINUTE + sequence * MINUTE, event, 42, ""));
+                }
+            }
+        }
+        assertEquals(Degradation.NONE, RestartJournal.evaluateCrashLoop(entries, NOW));
+    }
+
+    @Test
+    public void degradationStepsBackDownAsIncidentsAgeOut() {
+        List<Entry> entries = entries(
+            failure(-70 * MINUTE), failure(-55 * MINUTE), failure(-40 * MINUTE), failure(-25 * MINUTE));
+        assertEquals(Degradation.SNAPSHOT_ONLY, RestartJournal.evaluateCrashLoop(entries, NOW));
+        assertEquals(Degradation.FALLBACK_CONFIG, RestartJournal.evaluateCrashLoop(entries, NOW - 10 * MINUTE));
+        assertEquals(Degradation.REDUCED_POOL, RestartJournal.evaluateCrashLoop(entries, NOW + 10 * MINUTE));
+        assertEquals(Degradation.NONE, RestartJournal.evaluateCrashLoop(entries, NOW + 40 * MINUTE));
+    }
+
+    @Test
+    public void journaledCrashesAreEvaluated() {
+        journal.append(Event.START, "boot");
+        journal.append(Event.CRASH, "first");
+        assertEquals(Degradation.NONE, journal.evaluateCrashLoop(System.currentTimeMillis()));
+    }
+
+    private static Entry failure(long offset) {
+        return new Entry(0, NOW + offset, Event.CRASH, 42, "");
+    }
+
+    private static List<Entry> entries(Entry... entries) {
+        List<Entry> list = new ArrayList<>();
+        for (Entry entry : entries) {
+            list.add(entry);
+        }
+        return list;
+    }
+
+    private static long slot(long sequence) {
+        return RestartJournal.HEADER_SIZE + (sequence % RestartJournal.CAPACITY) * RestartJournal.RECORD_SIZE;
+    }
+
+    private void writeAt(long position, byte[] bytes) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(position);
+            raf.write(bytes);
+        }
+    }
+}